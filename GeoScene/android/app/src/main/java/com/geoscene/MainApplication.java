@@ -10,6 +10,8 @@ import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.geoscene.data_access.CacheManager;
 import com.geoscene.geography.modules.GeographyPackage;
+import com.geoscene.logging.AndroidLogger;
+import com.geoscene.logging.Log;
 import com.geoscene.oauth.OAuthManagerPackage;
 import com.geoscene.permissions.PermissionHelper;
 import com.geoscene.permissions.PermissionPackage;
@@ -20,7 +22,11 @@ import com.facebook.react.ReactPackage;
 import com.facebook.soloader.SoLoader;
 import com.geoscene.ar.modules.ARPackage;
 import com.geoscene.maps.modules.MapsPackage;
+import com.geoscene.tracing.AndroidResourceProbe;
+import com.geoscene.tracing.Tracer;
+import com.geoscene.tracing.modules.TracingPackage;
 import com.geoscene.triangulation.modules.ARCameraPackage;
+import com.geoscene.viewshed.modules.ViewshedPackage;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
@@ -48,6 +54,8 @@ public class MainApplication extends Application implements ReactApplication {
                     packages.add(new OverpassPackage());
                     packages.add(new GeographyPackage());
                     packages.add(new PermissionPackage());
+                    packages.add(new ViewshedPackage());
+                    packages.add(new TracingPackage());
                     return packages;
                 }
 
@@ -66,6 +74,8 @@ public class MainApplication extends Application implements ReactApplication {
     public void onCreate() {
         super.onCreate();
         SoLoader.init(this, /* native exopackage */ false);
+        Log.setLogger(new AndroidLogger());
+        Tracer.setResourceProbe(new AndroidResourceProbe());
         Realm.init(this);
         RealmConfiguration realmConfiguration = new RealmConfiguration.Builder()
                 .name("default.realm")
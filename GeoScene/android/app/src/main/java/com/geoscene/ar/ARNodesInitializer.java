@@ -7,9 +7,6 @@ import android.util.Log;
 
 import org.javatuples.Pair;
 
-import android.view.View;
-import android.widget.TextView;
-
 import androidx.annotation.NonNull;
 
 import com.facebook.react.bridge.Arguments;
@@ -22,42 +19,56 @@ import com.geoscene.data_access.CacheManager;
 import com.geoscene.data_access.PersistLocationObject;
 import com.geoscene.data_access.StorageAccess;
 import com.geoscene.elevation.Elevation;
+import com.geoscene.elevation.ElevationInterpolation;
 import com.geoscene.elevation.Raster;
 import com.geoscene.geography.LocationUtils;
 import com.geoscene.location_markers.LocationElevationNode;
 import com.geoscene.location_markers.LocationMarker;
 import com.geoscene.location_markers.LocationScene;
 import com.geoscene.places.Places;
-import com.geoscene.places.fov_analyzer.FOVAnalyzer;
 import com.geoscene.places.overpass.poi.Element;
 import com.geoscene.places.overpass.poi.PointsOfInterest;
+import com.geoscene.places.overpass.poi.PointsOfInterestAdapter;
+import com.geoscene.region.VisibilityIndex;
+import com.geoscene.scheduling.FrameScheduler;
 import com.geoscene.sensors.DeviceSensors;
+import com.geoscene.tracing.TraceSpan;
+import com.geoscene.tracing.Tracer;
 import com.geoscene.geography.Coordinate;
 import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.viewshed.HorizonEngine;
+import com.geoscene.viewshed.HorizonProfile;
 import com.geoscene.viewshed.ViewShed;
+import com.geoscene.viewshed.ViewShedService;
 import com.google.ar.core.Frame;
 import com.google.ar.core.TrackingState;
 import com.google.ar.sceneform.ArSceneView;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.Scene;
 import com.google.ar.sceneform.collision.CollisionShape;
-import com.google.ar.sceneform.rendering.ViewRenderable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.exceptions.CompositeException;
+import io.reactivex.rxjava3.observers.DisposableMaybeObserver;
 import io.reactivex.rxjava3.observers.DisposableSingleObserver;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class ARNodesInitializer {
+    public static final String TAG = "AR_NODES_INITIALIZER";
 
     private final int DISTANCE_GROUP_SIZE = 10;
     private final int LOCATION_MARKER_HEIGHT = 200;
@@ -82,6 +93,27 @@ public class ARNodesInitializer {
     private Scene.OnUpdateListener updateListener;
     private CompositeDisposable disposable;
 
+    // Loaded area, kept to refresh the visible markers as the viewshed follows the observer
+    private Raster raster;
+    private PointsOfInterestAdapter placesAdapter;
+    private Set<Element> visibleElements;
+    private ViewShedService viewShedService;
+    // Index of the opened saved location and its observer the markers were looked up from, null once the live viewshed took over
+    private VisibilityIndex visibilityIndex;
+    private int indexedObserver;
+    // Horizon of the loaded area, traced again when the device moves to another raster cell
+    private HorizonEngine horizonEngine;
+    private long horizonCell = -1;
+
+    // Cards of the markers in the shown distance group, the other markers have no renderable
+    private final MarkerCardPool markerCards = new MarkerCardPool(DISTANCE_GROUP_SIZE);
+    private final Map<LocationMarker, MarkerCardPool.MarkerCard> boundCards = new IdentityHashMap<>();
+    private final Map<LocationMarker, MarkerPlace> markerPlaces = new IdentityHashMap<>();
+
+    // Open stages of the traced load, closed once the markers are placed
+    private TraceSpan loadSpan;
+    private TraceSpan renderablesSpan;
+
     private boolean active;
 
     public ARNodesInitializer(ReactContext context, DeviceSensors sensors, ArSceneView arSceneView, boolean determineViewshed, int radiusKM, Map<String, HashSet<String>> placesTypes,
@@ -115,24 +147,78 @@ public class ARNodesInitializer {
     }
 
     private void getAndRenderMarkerInformation() {
+        Tracer.startSession();
+        loadSpan = Tracer.begin("load");
         Location deviceLocation = sensors.getDeviceLocation();
         BoundingBoxCenter bbox = new BoundingBoxCenter(new Coordinate(deviceLocation.getLatitude(), deviceLocation.getLongitude()), radiusKM);
+        // Loading and analysis run off the frame thread, only the markers are created on it
+        disposable.add(Maybe.fromCallable(() -> loadCachedLocation(bbox))
+                .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.computation())
+                .map(location -> analyzeCachedLocation(location, deviceLocation))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableMaybeObserver<LoadedLocation>() {
+                    @Override
+                    public void onSuccess(@NonNull LoadedLocation location) {
+                        postMarkers(location);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        requestLocationInformation(radiusKM);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.e(TAG, "Loading location information failed: " + e.getMessage());
+                        finishLoadTrace(0, false);
+                        arFragment.dispatchReady(false);
+                    }
+                }));
+    }
+
+    /**
+     * Reads the cached or saved location around the observer with its visibility index, null when there is none.
+     */
+    private LoadedLocation loadCachedLocation(BoundingBoxCenter bbox) {
+        TraceSpan cacheSpan = Tracer.begin("cache_lookup");
         PersistLocationObject cachedLocationInfo = CacheManager.fetchFromCache(bbox);
+        if (cachedLocationInfo == null) {
+            cacheSpan.setItems(0).close();
+            return null;
+        }
+        if (cachedLocationInfo.cached) {
+            arFragment.dispatchUseCache();
+            dispatchLoadingProgress("Using places and elevation from application cache.");
+        } else {
+            arFragment.dispatchUseLocal(cachedLocationInfo.name);
+            dispatchLoadingProgress("Using places and elevation from local device storage.");
+        }
+        Raster raster = cachedLocationInfo.getRaster(context);
+        raster.setBoundingBox(bbox);
+        PointsOfInterest pois = cachedLocationInfo.getPois();
+        cacheSpan.setCells((long) raster.getCols() * raster.getRows()).setItems(pois.elements.size()).close();
+        LoadedLocation location = new LoadedLocation(raster, new PointsOfInterestAdapter(pois));
+        if (determineViewshed && !cachedLocationInfo.cached) {
+            location.index = cachedLocationInfo.getVisibilityIndex(context);
+        }
+        return location;
+    }
 
-        if (cachedLocationInfo != null) {
-            if (cachedLocationInfo.cached) {
-                arFragment.dispatchUseCache();
-                dispatchLoadingProgress("Using places and elevation from application cache.");
-            } else {
-                arFragment.dispatchUseLocal(cachedLocationInfo.name);
-                dispatchLoadingProgress("Using places and elevation from local device storage.");
+    private LoadedLocation analyzeCachedLocation(LoadedLocation location, Location deviceLocation) {
+        if (location.index != null && lookupIndexedPlaces(location, deviceLocation)) {
+            return location;
+        }
+        location.index = null;
+        Raster raster = location.raster;
+        raster.setViewshed(null);
+        if (determineViewshed) {
+            try (TraceSpan span = Tracer.begin("viewshed")) {
+                raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, deviceLocation.getLatitude(), deviceLocation.getLongitude()));
+                span.setCells((long) raster.getCols() * raster.getRows());
             }
-            Raster raster = cachedLocationInfo.getRaster(context);
-            raster.setViewshed(determineViewshed ? ViewShed.calculateViewshed(raster, deviceLocation.getLatitude(), deviceLocation.getLongitude()) : null);
-            raster.setBoundingBox(bbox);
-            PointsOfInterest pois = cachedLocationInfo.getPois();
-            renderFOVMarkers(raster, pois);
-        } else requestLocationInformation(radiusKM);
+        }
+        return analyzeFieldOfView(location);
     }
 
     private Single<ElevationLocationData> subscribeAPICalls(Coordinate center, int radiusKM) {
@@ -140,11 +226,20 @@ public class ARNodesInitializer {
         Places places = new Places();
         dispatchLoadingProgress("Retrieving places and elevation data around you.");
 
+        // Network stages end on another thread so they carry wall time only
+        TraceSpan elevationSpan = Tracer.begin("elevation_fetch");
+        TraceSpan placesSpan = Tracer.begin("places_fetch");
         Single<Raster> elevationData = elevation.fetchElevationRaster(center, radiusKM, determineViewshed)
+                .doOnSuccess(raster -> elevationSpan.setCells((long) raster.getCols() * raster.getRows()))
+                .doOnError(e -> elevationSpan.fail())
+                .doFinally(elevationSpan::close)
                 .doOnSuccess(s -> dispatchLoadingProgress("Elevation data retrieved and analyzed"))
                 .subscribeOn(Schedulers.computation()) // computation
                 .doOnError(e -> arFragment.dispatchReady(false));
         Single<PointsOfInterest> placesData = places.searchPlaces(center, radiusKM)
+                .doOnSuccess(pois -> placesSpan.setItems(pois.elements.size()))
+                .doOnError(e -> placesSpan.fail())
+                .doFinally(placesSpan::close)
                 .doOnSuccess(s -> dispatchLoadingProgress("Places around you retrieved."))
                 .subscribeOn(Schedulers.io())
                 .doOnError(e -> arFragment.dispatchReady(false));
@@ -159,29 +254,52 @@ public class ARNodesInitializer {
 
         disposable.add(chainedAPICall
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribeWith(new DisposableSingleObserver<ElevationLocationData>() {
+                .map(data -> {
+                    StorageAccess.storeCacheLocationInfo(context, data.raster.getBbox(), data.raster, data.getPlaces());
+                    return new LoadedLocation(data.getRaster(), new PointsOfInterestAdapter(data.getPlaces()));
+                })
+                .observeOn(Schedulers.computation())
+                .map(this::analyzeFieldOfView)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableSingleObserver<LoadedLocation>() {
                     @Override
-                    public void onSuccess(@NonNull ElevationLocationData data) {
-                        StorageAccess.storeCacheLocationInfo(context, data.raster.getBbox(), data.raster, data.getPlaces());
-                        renderFOVMarkers(data.getRaster(), data.getPlaces());
+                    public void onSuccess(@NonNull LoadedLocation location) {
+                        postMarkers(location);
                     }
 
                     @Override
                     public void onError(Throwable e) {
+                        finishLoadTrace(0, false);
                         arFragment.dispatchReady(false);
                     }
                 }));
     }
 
-    public void downloadAndStoreLocationInformation(String name, String description, Coordinate center, int radiusKM) {
+    /**
+     * With precomputeVisibility the location is stored with the places visible from a grid of observers so opening it
+     * skips the viewshed, at the cost of a longer download.
+     */
+    public void downloadAndStoreLocationInformation(String name, String description, Coordinate center, int radiusKM, boolean precomputeVisibility) {
+        Tracer.startSession();
         Single<ElevationLocationData> chainedAPICall = subscribeAPICalls(center, radiusKM);
 
         disposable.add(chainedAPICall
+                .observeOn(Schedulers.computation())
+                .map(data -> {
+                    if (precomputeVisibility) {
+                        try (TraceSpan span = Tracer.begin("visibility_precompute")) {
+                            data.visibilityIndex = VisibilityIndex.buildGrid(data.getRaster(), new PointsOfInterestAdapter(data.getPlaces()).getPlaces(),
+                                    VisibilityIndex.createDefaultPlacesTypes(), true, VisibilityIndex.DEFAULT_STRIDE_CELLS, this::dispatchPrecomputeProgress);
+                            span.setCells((long) data.getRaster().getCols() * data.getRaster().getRows()).setItems(data.visibilityIndex.getObserverCount());
+                        }
+                    }
+                    return data;
+                })
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeWith(new DisposableSingleObserver<ElevationLocationData>() {
                     @Override
                     public void onSuccess(@NonNull ElevationLocationData data) {
-                        StorageAccess.storeLocationInfo(context, name, description, data.raster.getBbox(), data.raster, data.getPlaces());
+                        StorageAccess.storeLocationInfo(context, name, description, data.raster.getBbox(), data.raster, data.getPlaces(), data.visibilityIndex);
                         dispatchDownloadEvent(true, false);
                     }
 
@@ -202,11 +320,13 @@ public class ARNodesInitializer {
                     locationScene.setMinimalRefreshing(!realisticMarkers);
                     locationScene.setOffsetOverlapping(offsetOverlapping);
                     locationScene.setRemoveOverlapping(false);
-                    getAndRenderMarkerInformation();
+                    locationScene.getScheduler().post(FrameScheduler.Priority.SETUP, this::getAndRenderMarkerInformation);
                 }
                 if (hasFinishedLoading && active) {
                     handleARFrame();
                 }
+                // Runs the frame's work queued by the scene and its nodes within the frame budget
+                locationScene.getScheduler().runFrame(frameTime.getDeltaTime(TimeUnit.NANOSECONDS));
             };
             arSceneView.getScene().addOnUpdateListener(updateListener);
         }
@@ -214,8 +334,12 @@ public class ARNodesInitializer {
 
     public void stopUpdateListener() {
         active = false;
+        if (viewShedService != null) {
+            viewShedService.stop();
+        }
         if (updateListener != null) {
             locationScene.stopCalculationTask();
+            releaseMarkerCards();
             locationScene.clearMarkers();
             arSceneView.getScene().removeOnUpdateListener(updateListener);
         }
@@ -243,16 +367,189 @@ public class ARNodesInitializer {
     }
 
 
-    private void renderFOVMarkers(Raster raster, PointsOfInterest pois) {
+    private LoadedLocation analyzeFieldOfView(LoadedLocation location) {
         dispatchLoadingProgress("Determining your field of view.");
-        List<Pair<Element, Coordinate>> visibleLocations = FOVAnalyzer.intersectVisiblePlaces(raster, pois, placesTypes, showPlacesApp, showLocationCenter);
+        try (TraceSpan span = Tracer.begin("fov_analysis")) {
+            location.visibleLocations = location.places.intersectVisiblePlaces(location.raster, placesTypes, showPlacesApp, showLocationCenter);
+            span.setCells((long) location.raster.getCols() * location.raster.getRows()).setItems(location.visibleLocations.size());
+        }
         dispatchLoadingProgress("Field of view determined successfully.");
+        return location;
+    }
+
+    /**
+     * Looks up the places the saved location's visibility index lists for the nearest precomputed observer.
+     * Returns false when the index does not cover the observer and the field of view has to be determined.
+     */
+    private boolean lookupIndexedPlaces(LoadedLocation location, Location deviceLocation) {
+        VisibilityIndex index = location.index;
+        Raster raster = location.raster;
+        if (!index.matches(raster)) {
+            return false;
+        }
+        int observer = index.getNearestObserver(raster, deviceLocation.getLatitude(), deviceLocation.getLongitude(), VisibilityIndex.MAX_LOOKUP_DISTANCE_CELLS);
+        if (observer == -1) {
+            return false;
+        }
+        dispatchLoadingProgress("Using precomputed field of view.");
+        try (TraceSpan span = Tracer.begin("index_lookup")) {
+            location.visibleLocations = location.places.lookupVisiblePlaces(index, observer, raster, placesTypes, showPlacesApp, showLocationCenter);
+            span.setItems(location.visibleLocations.size());
+        }
+        location.observer = observer;
+        return true;
+    }
+
+    /**
+     * Creates the markers of the loaded location on the frame, then follows the observer through the location's index or its viewshed.
+     */
+    private void postMarkers(LoadedLocation location) {
+        locationScene.getScheduler().post(FrameScheduler.Priority.SETUP, () -> {
+            raster = location.raster;
+            placesAdapter = location.places;
+            renderVisibleLocations(raster, location.visibleLocations);
+            if (determineViewshed) {
+                horizonEngine = new HorizonEngine(raster);
+                horizonCell = -1;
+                updateHorizon(sensors.getDeviceLocation());
+            }
+            if (location.index != null) {
+                visibilityIndex = location.index;
+                indexedObserver = location.observer;
+                locationScene.setLocationChangedEvent(this::followIndexedObserver);
+                locationScene.listenToLocation();
+            } else {
+                startViewShedUpdates(raster);
+            }
+        });
+    }
+
+    /**
+     * Looks the markers up again as the observer moves between the precomputed observers of the saved location.
+     * Past the indexed grid the viewshed is traced off the main thread and followed live from there on.
+     */
+    private void followIndexedObserver(Location location) {
+        updateHorizon(location);
+        if (location == null || !active || !hasFinishedLoading || visibilityIndex == null) {
+            return;
+        }
+        int observer = visibilityIndex.getNearestObserver(raster, location.getLatitude(), location.getLongitude(), VisibilityIndex.MAX_LOOKUP_DISTANCE_CELLS);
+        if (observer == indexedObserver) {
+            return;
+        }
+        if (observer == -1) {
+            visibilityIndex = null;
+            startLiveViewShed(location);
+            return;
+        }
+        indexedObserver = observer;
+        refreshVisibleLocations(placesAdapter.lookupVisiblePlaces(visibilityIndex, observer, raster, placesTypes, showPlacesApp, showLocationCenter));
+    }
+
+    private void startLiveViewShed(Location location) {
+        Raster raster = this.raster;
+        PointsOfInterestAdapter adapter = placesAdapter;
+        disposable.add(Single.fromCallable(() -> {
+                    raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, location.getLatitude(), location.getLongitude()));
+                    return adapter.intersectVisiblePlaces(raster, placesTypes, showPlacesApp, showLocationCenter);
+                })
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableSingleObserver<List<Pair<Element, Coordinate>>>() {
+                    @Override
+                    public void onSuccess(@NonNull List<Pair<Element, Coordinate>> visibleLocations) {
+                        if (!active) {
+                            return;
+                        }
+                        startViewShedUpdates(raster);
+                        refreshVisibleLocations(visibleLocations);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.e(TAG, "Live viewshed failed: " + e.getMessage());
+                    }
+                }));
+    }
+
+    private void startViewShedUpdates(Raster raster) {
+        if (!determineViewshed || raster.getViewshed() == null || viewShedService != null) {
+            return;
+        }
+        Location deviceLocation = sensors.getDeviceLocation();
+        viewShedService = new ViewShedService(raster, deviceLocation.getLatitude(), deviceLocation.getLongitude());
+        // The field of view follows the viewshed off the main thread, only the marker rebuild runs on it
+        PointsOfInterestAdapter adapter = placesAdapter;
+        viewShedService.start(updated -> adapter.intersectVisiblePlaces(updated, placesTypes, showPlacesApp, showLocationCenter), this::refreshVisibleLocations);
+        ViewShedService service = viewShedService;
+        locationScene.setLocationChangedEvent(location -> {
+            service.onChange(location);
+            updateHorizon(location);
+        });
+        // The scene is only started with markers, its location hook feeds the viewshed until then
+        locationScene.listenToLocation();
+    }
+
+    /**
+     * Traces the horizon of the device location off the main thread when it moved to another raster cell,
+     * the scene does not place the markers of places behind it.
+     */
+    private void updateHorizon(Location location) {
+        HorizonEngine engine = horizonEngine;
+        if (engine == null || location == null || !active) {
+            return;
+        }
+        Raster raster = engine.getRaster();
+        long cell = Raster.packRowCol(ViewShed.getObserverCol(raster, location.getLongitude()), ViewShed.getObserverRow(raster, location.getLatitude()));
+        if (cell == horizonCell) {
+            return;
+        }
+        horizonCell = cell;
+        disposable.add(Single.fromCallable(() -> engine.getHorizon(location.getLatitude(), location.getLongitude()))
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableSingleObserver<HorizonProfile>() {
+                    @Override
+                    public void onSuccess(@NonNull HorizonProfile horizon) {
+                        if (active && engine == horizonEngine && cell == horizonCell) {
+                            locationScene.setHorizon(horizon);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.e(TAG, "Horizon failed: " + e.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * Called with the places visible after the viewshed followed the observer, rebuilds the markers only if the set of visible places changed.
+     */
+    private void refreshVisibleLocations(List<Pair<Element, Coordinate>> visibleLocations) {
+        if (!active || !hasFinishedLoading || raster == null) {
+            return;
+        }
+        Set<Element> elements = visibleLocations.stream().map(Pair::getValue0).collect(Collectors.toSet());
+        if (elements.equals(visibleElements)) {
+            return;
+        }
+        hasFinishedLoading = false;
+        locationScene.stopCalculationTask();
+        releaseMarkerCards();
+        locationScene.clearMarkers();
+        renderVisibleLocations(raster, visibleLocations);
+    }
+
+    private void renderVisibleLocations(Raster raster, List<Pair<Element, Coordinate>> visibleLocations) {
+        visibleElements = visibleLocations.stream().map(Pair::getValue0).collect(Collectors.toSet());
 
         Location deviceLocation = sensors.getDeviceLocation();
         Coordinate observer = new Coordinate(deviceLocation.getLatitude(), deviceLocation.getLongitude());
-        int observerElevation = raster.getElevationByCoordinate(observer);
+        int observerElevation = (int) Math.round(raster.getInterpolatedElevation(observer.getLat(), observer.getLon(), ElevationInterpolation.BILINEAR));
 
         if (visibleLocations.isEmpty()) {
+            finishLoadTrace(0, true);
             arFragment.dispatchReady(true);
             hasFinishedLoading = true;
             arFragment.dispatchLocationCount(0, 0);
@@ -270,56 +567,58 @@ public class ARNodesInitializer {
             });
         }
 
-        int index = 0;
-        for (Pair<Element, Coordinate> visibleLocation : visibleLocations) {
-            double locationLat = visibleLocation.getValue1().getLat();
-            double locationLon = visibleLocation.getValue1().getLon();
-            int elevation = raster.getElevationByCoordinate(new Coordinate(locationLat, locationLon));
-            int elevationDiff = elevation - observerElevation;
-            float distanceKm = (float) LocationUtils.distance(observer.getLat(), locationLat, observer.getLon(), locationLon, 0, 0) / 1000;
-
-            int finalIndex = index;
-            ViewRenderable.builder()
-                    .setView(context, R.layout.location_marker_card)
-                    .build()
-                    .thenAccept(renderable -> {
-                        LocationElevationNode locationNode = getLocationMarkerNode(renderable, visibleLocation.getValue0(), elevation, visibleLocation.getValue1(), finalIndex);
-                        LocationMarker layoutLocationMarker = new LocationMarker(locationLon, locationLat, locationNode);
-                        layoutLocationMarker.setName(visibleLocation.getValue0().tags.nameEng != null ? visibleLocation.getValue0().tags.nameEng : visibleLocation.getValue0().tags.name);
-                        layoutLocationMarker.setHeight(elevationDiff * 10 + (distanceKm < 1 ? LOCATION_MARKER_HEIGHT * distanceKm: LOCATION_MARKER_HEIGHT)); // Place marker in relative height distance from the observer
-                        layoutLocationMarker.setScalingMode(LocationMarker.ScalingMode.GRADUAL_TO_MAX_RENDER_DISTANCE);
-                        View eView = renderable.getView();
-                        TextView nameTextView = eView.findViewById(R.id.name);
-                        TextView typeTextView = eView.findViewById(R.id.type);
-                        TextView distanceTextView = eView.findViewById(R.id.distance);
-
-                        typeTextView.setText(ARFragment.getNodeTypeString(visibleLocation.getValue0()));
-                        nameTextView.setText(layoutLocationMarker.getName());
-                        // "onRender" event, called every frame
-                        // Updates the layout with the markers distance
-                        layoutLocationMarker.setRenderEvent(node -> {
-                            if (node.isEnabled() && locationScene.getDistanceLimit() < node.getDistance()) {
-                                locationScene.setDistanceLimit(node.getDistance());
-                            }
-                            distanceTextView.setText(node.getDistance() >= 1000 ? String.format("%.3f", ((float) node.getDistance() / (float) 1000)) + "Km" : node.getDistance() + "m");
-                        });
-                        // Adding the marker
-                        locationScene.mLocationMarkers.add(layoutLocationMarker);
-
-                        // Start location scene when created all renderables
-
-                        if (locationScene.mLocationMarkers.size() == visibleLocations.size()) {
-                            startLocationScene(observer, locationScene.mLocationMarkers.size());
-                        }
-                    });
-            index++;
-        }
+        renderablesSpan = Tracer.begin("renderables").setItems(visibleLocations.size());
+        // Markers are placed without a card, the pool binds cards to the markers of the shown distance group
+        markerCards.prepare(context).whenComplete((ready, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Marker cards failed to build: " + e.getMessage());
+                renderablesSpan.fail().close();
+                finishLoadTrace(0, false);
+                arFragment.dispatchReady(false);
+                // Lets the next viewshed update render the places again, even if they are unchanged
+                visibleElements = null;
+                hasFinishedLoading = true;
+                return;
+            }
+            int index = 0;
+            for (Pair<Element, Coordinate> visibleLocation : visibleLocations) {
+                double locationLat = visibleLocation.getValue1().getLat();
+                double locationLon = visibleLocation.getValue1().getLon();
+                int elevation = (int) Math.round(raster.getInterpolatedElevation(locationLat, locationLon, ElevationInterpolation.BILINEAR));
+                int elevationDiff = elevation - observerElevation;
+                float distanceKm = (float) LocationUtils.distance(observer.getLat(), locationLat, observer.getLon(), locationLon, 0, 0) / 1000;
+
+                LocationMarker layoutLocationMarker = new LocationMarker(locationLon, locationLat, new LocationElevationNode(elevation, index));
+                layoutLocationMarker.setName(visibleLocation.getValue0().tags.nameEng != null ? visibleLocation.getValue0().tags.nameEng : visibleLocation.getValue0().tags.name);
+                layoutLocationMarker.setElevation(elevation);
+                layoutLocationMarker.setHeight(elevationDiff * 10 + (distanceKm < 1 ? LOCATION_MARKER_HEIGHT * distanceKm: LOCATION_MARKER_HEIGHT)); // Place marker in relative height distance from the observer
+                layoutLocationMarker.setScalingMode(LocationMarker.ScalingMode.GRADUAL_TO_MAX_RENDER_DISTANCE);
+                markerPlaces.put(layoutLocationMarker, new MarkerPlace(visibleLocation.getValue0(), elevation, visibleLocation.getValue1()));
+                // "onRender" event, called every frame
+                // Updates the layout with the markers distance
+                layoutLocationMarker.setRenderEvent(node -> {
+                    if (node.isEnabled() && locationScene.getDistanceLimit() < node.getDistance()) {
+                        locationScene.setDistanceLimit(node.getDistance());
+                    }
+                    MarkerCardPool.MarkerCard card = boundCards.get(layoutLocationMarker);
+                    if (card != null) {
+                        card.setDistance(node.getDistance());
+                    }
+                });
+                // Adding the marker
+                locationScene.mLocationMarkers.add(layoutLocationMarker);
+                index++;
+            }
+            renderablesSpan.close();
+            startLocationScene(observer, locationScene.mLocationMarkers.size());
+        });
 
         dispatchObserverElevation(observerElevation);
         dispatchLoadingProgress("Starting Augmented reality scene.");
     }
 
     public void startLocationScene(Coordinate observer, int locationCount) {
+        TraceSpan span = Tracer.begin("location_scene_start").setItems(locationCount);
         locationScene.mLocationMarkers.sort((l1, l2) ->
                 Double.compare(LocationUtils.distance(observer.getLat(), l1.latitude, observer.getLon(), l1.longitude, 0, 0),
                         LocationUtils.distance(observer.getLat(), l2.latitude, observer.getLon(), l2.longitude, 0, 0)));
@@ -346,12 +645,25 @@ public class ARNodesInitializer {
             }
         }
 
+        bindDistanceGroup(locationScene.getCurrentDistanceGroup());
         locationScene.start();
         arFragment.dispatchLocationCount(Math.min(locationCount, DISTANCE_GROUP_SIZE), locationCount);
+        span.close();
+        finishLoadTrace(locationCount, true);
         arFragment.dispatchReady(true);
         hasFinishedLoading = true;
     }
 
+    private void finishLoadTrace(int locationCount, boolean success) {
+        if (loadSpan != null) {
+            if (!success) {
+                loadSpan.fail();
+            }
+            loadSpan.setItems(locationCount).close();
+            loadSpan = null;
+        }
+    }
+
     public void showNextPrevMarkers(boolean next) {
         if (locationScene != null) {
             int currentDistanceGroup = locationScene.getCurrentDistanceGroup();
@@ -384,6 +696,7 @@ public class ARNodesInitializer {
                 }
                 locationScene.resetDistanceLimit();
                 locationScene.setCurrentDistanceGroup(nextDistanceGroup);
+                bindDistanceGroup(nextDistanceGroup);
                 locationScene.setIteration(0);
                 locationScene.refreshAnchors();
             }
@@ -396,35 +709,67 @@ public class ARNodesInitializer {
         }
     }
 
-    @SuppressLint("ClickableViewAccessibility")
-    private LocationElevationNode getLocationMarkerNode(ViewRenderable renderable, Element location, int elevation, Coordinate coord, int index) {
-        LocationElevationNode base = new LocationElevationNode(elevation, index);
-        base.setRenderable(renderable);
-        // Add marker touch listeners here
-        View eView = renderable.getView();
-        if (location != null) {
-            eView.setOnTouchListener((v, event) -> {
-                if (sensors.isNetworkActive()) {
-                    Location deviceLocation = sensors.getDeviceLocation();
-                    int markerDistance = (int) Math.round(
-                            LocationUtils.distance(
-                                    coord.getLat(),
-                                    deviceLocation.getLatitude(),
-                                    coord.getLon(),
-                                    deviceLocation.getLongitude(),
-                                    0,
-                                    0)
-                    );
-                    arFragment.dispatchLocation(location, elevation,
-                            markerDistance >= 1000 ?
-                                    String.format("%.3f", ((float) markerDistance / (float) 1000)) + "KM" : markerDistance + "m");
-                    return true;
+    /**
+     * Moves the cards from the markers leaving the shown distance group to the markers entering it,
+     * so only the markers on screen own a renderable.
+     */
+    private void bindDistanceGroup(int distanceGroup) {
+        Iterator<Map.Entry<LocationMarker, MarkerCardPool.MarkerCard>> bound = boundCards.entrySet().iterator();
+        while (bound.hasNext()) {
+            Map.Entry<LocationMarker, MarkerCardPool.MarkerCard> entry = bound.next();
+            if (entry.getKey().getDistanceGroup() != distanceGroup) {
+                entry.getKey().node.setRenderable(null);
+                markerCards.release(entry.getValue());
+                bound.remove();
+            }
+        }
+        for (LocationMarker marker : locationScene.mLocationMarkers) {
+            if (marker.getDistanceGroup() == distanceGroup && !boundCards.containsKey(marker)) {
+                MarkerCardPool.MarkerCard card = markerCards.acquire();
+                if (card == null) {
+                    Log.w(TAG, "No free marker card for " + marker.getName());
+                    break;
                 }
-                return false;
-            });
+                bindMarkerCard(marker, card);
+            }
         }
+    }
 
-        return base;
+    private void releaseMarkerCards() {
+        for (Map.Entry<LocationMarker, MarkerCardPool.MarkerCard> entry : boundCards.entrySet()) {
+            entry.getKey().node.setRenderable(null);
+            markerCards.release(entry.getValue());
+        }
+        boundCards.clear();
+        markerPlaces.clear();
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    private void bindMarkerCard(LocationMarker marker, MarkerCardPool.MarkerCard card) {
+        MarkerPlace place = markerPlaces.get(marker);
+        card.bind(marker.getName(), ARFragment.getNodeTypeString(place.element));
+        marker.node.setRenderable(card.renderable);
+        boundCards.put(marker, card);
+        // Add marker touch listeners here
+        card.view.setOnTouchListener((v, event) -> {
+            if (sensors.isNetworkActive()) {
+                Location deviceLocation = sensors.getDeviceLocation();
+                int markerDistance = (int) Math.round(
+                        LocationUtils.distance(
+                                place.coordinate.getLat(),
+                                deviceLocation.getLatitude(),
+                                place.coordinate.getLon(),
+                                deviceLocation.getLongitude(),
+                                0,
+                                0)
+                );
+                arFragment.dispatchLocation(place.element, place.elevation,
+                        markerDistance >= 1000 ?
+                                String.format("%.3f", ((float) markerDistance / (float) 1000)) + "KM" : markerDistance + "m");
+                return true;
+            }
+            return false;
+        });
     }
 
     private void dispatchLoadingProgress(String message) {
@@ -434,6 +779,20 @@ public class ARNodesInitializer {
     }
 
 
+    private void dispatchPrecomputeProgress(int done, int total) {
+        // Observers finish on the building threads, only whole percents are sent over the bridge
+        int percent = done * 100 / total;
+        if (percent != (done - 1) * 100 / total) {
+            WritableMap params = Arguments.createMap();
+            params.putBoolean("done", false);
+            params.putBoolean("error", false);
+            params.putInt("progress", percent);
+            context
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit("DownloadEvent", params);
+        }
+    }
+
     public void dispatchDownloadEvent(boolean done, boolean error) {
         WritableMap params = Arguments.createMap();
         params.putBoolean("done", done);
@@ -454,9 +813,36 @@ public class ARNodesInitializer {
     }
 
 
+    private static class MarkerPlace {
+        private final Element element;
+        private final int elevation;
+        private final Coordinate coordinate;
+
+        private MarkerPlace(Element element, int elevation, Coordinate coordinate) {
+            this.element = element;
+            this.elevation = elevation;
+            this.coordinate = coordinate;
+        }
+    }
+
+    // Location loaded and analyzed off the frame thread, with the index its places were looked up in if any
+    private static class LoadedLocation {
+        private final Raster raster;
+        private final PointsOfInterestAdapter places;
+        private List<Pair<Element, Coordinate>> visibleLocations;
+        private VisibilityIndex index;
+        private int observer;
+
+        private LoadedLocation(Raster raster, PointsOfInterestAdapter places) {
+            this.raster = raster;
+            this.places = places;
+        }
+    }
+
     private static class ElevationLocationData {
         private Raster raster;
         private PointsOfInterest places;
+        private VisibilityIndex visibilityIndex;
 
         public ElevationLocationData(Raster raster, PointsOfInterest places) {
             this.raster = raster;
@@ -0,0 +1,111 @@
+package com.geoscene.ar;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.TextView;
+
+import com.geoscene.R;
+import com.google.ar.sceneform.rendering.ViewRenderable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/*
+Fixed set of marker card renderables shared by the markers on screen.
+Inflating a card and uploading its texture is the expensive part of placing a marker, so only as many cards as
+markers shown at once are ever built, and a card moves between markers by rebinding its text.
+Used from the main thread only, where Sceneform completes the renderable builds.
+ */
+public class MarkerCardPool {
+    private final int capacity;
+    private final Deque<MarkerCard> free;
+    private int created;
+    private CompletableFuture<Void> building;
+
+    public MarkerCardPool(int capacity) {
+        this.capacity = capacity;
+        free = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Completes once all the pool cards are built, immediately when they already are.
+     */
+    public CompletableFuture<Void> prepare(Context context) {
+        if (building != null) {
+            return building;
+        }
+        if (created == capacity) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] builds = new CompletableFuture<?>[capacity - created];
+        for (int i = 0; i < builds.length; ++i) {
+            builds[i] = ViewRenderable.builder()
+                    .setView(context, R.layout.location_marker_card)
+                    .build()
+                    .thenAccept(renderable -> {
+                        free.push(new MarkerCard(renderable));
+                        ++created;
+                    });
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(builds);
+        building = all;
+        // Cleared only if still the running build, the builds may already be complete here
+        all.whenComplete((ready, e) -> {
+            if (building == all) {
+                building = null;
+            }
+        });
+        return all;
+    }
+
+    /**
+     * A free card or null when every card is bound to a marker.
+     */
+    public MarkerCard acquire() {
+        return free.poll();
+    }
+
+    public void release(MarkerCard card) {
+        card.view.setOnTouchListener(null);
+        free.push(card);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public static class MarkerCard {
+        public final ViewRenderable renderable;
+        public final View view;
+        private final TextView name;
+        private final TextView type;
+        private final TextView distance;
+        private int shownDistance = -1;
+
+        private MarkerCard(ViewRenderable renderable) {
+            this.renderable = renderable;
+            view = renderable.getView();
+            name = view.findViewById(R.id.name);
+            type = view.findViewById(R.id.type);
+            distance = view.findViewById(R.id.distance);
+        }
+
+        public void bind(String name, String type) {
+            this.name.setText(name);
+            this.type.setText(type);
+            distance.setText("");
+            shownDistance = -1;
+        }
+
+        /**
+         * Called every frame, the text is only formatted again when the distance in metres changed.
+         */
+        public void setDistance(int distance) {
+            if (distance != shownDistance) {
+                shownDistance = distance;
+                this.distance.setText(distance >= 1000 ? String.format("%.3f", ((float) distance / (float) 1000)) + "Km" : distance + "m");
+            }
+        }
+    }
+}
@@ -22,6 +22,10 @@ import com.google.ar.core.ArCoreApk;
 
 import org.javatuples.Pair;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public class ARModule extends ReactContextBaseJavaModule {
@@ -53,12 +57,12 @@ public class ARModule extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    void downloadAndStoreLocationData(String name, String description, double latitude, double longitude, int radiusKM) {
+    void downloadAndStoreLocationData(String name, String description, double latitude, double longitude, int radiusKM, boolean precomputeVisibility) {
         DeviceSensors sensors = DeviceSensorsManager.getSensors(reactContext);
         ARNodesInitializer initializer = new ARNodesInitializer(reactContext, sensors);
         initializer.dispatchDownloadEvent(false, false);
         Coordinate center = new Coordinate(latitude, longitude);
-        initializer.downloadAndStoreLocationInformation(name, description, center, radiusKM);
+        initializer.downloadAndStoreLocationInformation(name, description, center, radiusKM, precomputeVisibility);
     }
 
     @ReactMethod
@@ -81,6 +85,20 @@ public class ARModule extends ReactContextBaseJavaModule {
         promise.resolve(data);
     }
 
+    @ReactMethod
+    void importRegionPackage(String path, final Promise promise) {
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(path))) {
+            PersistLocationObject locationObject = StorageAccess.importRegionPackage(reactContext, stream);
+            WritableMap response = Arguments.createMap();
+            response.putString("id", locationObject.id);
+            response.putString("name", locationObject.name);
+            response.putInt("pois", locationObject.pois.elements.size());
+            promise.resolve(response);
+        } catch (IOException e) {
+            promise.reject(TAG, "Region package import failed: " + e.getMessage());
+        }
+    }
+
     @ReactMethod
     void deleteStoredLocationData(String id) {
         StorageAccess.deletePersistedLocationInfoById(reactContext, id);
@@ -9,13 +9,17 @@ import com.geoscene.data_access.dto.IRealmCascadeObject;
 import com.geoscene.elevation.Raster;
 import com.geoscene.places.overpass.poi.PointsOfInterest;
 import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.region.VisibilityIndex;
 
+import java.io.IOException;
 import java.util.UUID;
 
 import io.realm.RealmObject;
 import io.realm.annotations.PrimaryKey;
 
 public class PersistLocationObject extends RealmObject implements IRealmCascadeObject {
+    private static final String VISIBILITY_INDEX_SUFFIX = "_visibility";
+
     @PrimaryKey
     public String id;
     public long timestamp;
@@ -60,6 +64,10 @@ public class PersistLocationObject extends RealmObject implements IRealmCascadeO
         return raster.getElevationsFileName();
     }
 
+    public String getVisibilityIndexFilename() {
+        return raster.getElevationsFileName() + VISIBILITY_INDEX_SUFFIX;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -73,6 +81,21 @@ public class PersistLocationObject extends RealmObject implements IRealmCascadeO
         return new Raster(raster.getCols(), raster.getRows(), raster.getxLowerLeftCorner(), raster.getyLowerLeftCorner(), raster.getCellSize(), elevations);
     }
 
+    /**
+     * Visibility index precomputed when the location was saved, null if it was saved without one.
+     */
+    public VisibilityIndex getVisibilityIndex(Context context) {
+        byte[] index = InternalStorage.read(context, getVisibilityIndexFilename());
+        if (index == null) {
+            return null;
+        }
+        try {
+            return VisibilityIndex.fromByteArray(index);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public PointsOfInterest getPois() {
         return pois;
     }
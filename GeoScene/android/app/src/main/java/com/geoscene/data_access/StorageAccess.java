@@ -5,10 +5,15 @@ import android.util.Log;
 
 import com.geoscene.elevation.Raster;
 import com.geoscene.places.overpass.poi.PointsOfInterest;
+import com.geoscene.places.overpass.poi.PointsOfInterestAdapter;
 import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.region.RegionPackage;
+import com.geoscene.region.VisibilityIndex;
 
 import org.javatuples.Pair;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,7 +37,8 @@ public class StorageAccess {
                     .findFirst();
             if (locationData != null) {
                 PersistLocationObject locationDataCopy = realm.copyFromRealm(locationData);
-                realm.executeTransactionAsync(transaction ->
+                // Synchronous so the lookup can run on a background thread without a looper
+                realm.executeTransaction(transaction ->
                         Objects.requireNonNull(transaction.where(PersistLocationObject.class).equalTo("id", locationDataCopy.id).findFirst()).setLastAccessTimestamp()
                 );
                 return locationDataCopy;
@@ -68,10 +74,20 @@ public class StorageAccess {
     }
 
     public static void storeLocationInfo(Context context, String name, String description, BoundingBoxCenter bbox, Raster raster, PointsOfInterest pois) {
+        storeLocationInfo(context, name, description, bbox, raster, pois, null);
+    }
+
+    /**
+     * Stores a saved location, with the visibility index precomputed for it if one is given.
+     */
+    public static void storeLocationInfo(Context context, String name, String description, BoundingBoxCenter bbox, Raster raster, PointsOfInterest pois, VisibilityIndex index) {
         try (Realm realm = Realm.getDefaultInstance()) {
             realm.executeTransactionAsync(transaction -> {
                 PersistLocationObject persist = new PersistLocationObject(name, description, bbox, raster, pois);
                 InternalStorage.store(context, persist.getRasterElevationFilename(), raster.getElevations());
+                if (index != null) {
+                    InternalStorage.store(context, persist.getVisibilityIndexFilename(), index.toByteArray());
+                }
                 transaction.insert(persist);
             });
         } catch (RealmException e) {
@@ -79,6 +95,30 @@ public class StorageAccess {
         }
     }
 
+    /**
+     * Stores a region package precomputed offline as a saved location, with its visibility index next to the elevations.
+     */
+    public static PersistLocationObject importRegionPackage(Context context, InputStream stream) throws IOException {
+        RegionPackage region = RegionPackage.read(stream);
+        PointsOfInterest pois = PointsOfInterestAdapter.toPointsOfInterest(region.getPlaces());
+        PersistLocationObject persist = new PersistLocationObject(region.getName(), region.getDescription(), region.getBoundingBox(), region.getRaster(), pois);
+        if (!InternalStorage.store(context, persist.getRasterElevationFilename(), region.getRaster().getElevations())) {
+            throw new IOException("Could not store the region elevations");
+        }
+        if (region.getVisibilityIndex() != null) {
+            InternalStorage.store(context, persist.getVisibilityIndexFilename(), region.getVisibilityIndex().toByteArray());
+        }
+        try (Realm realm = Realm.getDefaultInstance()) {
+            realm.executeTransaction(transaction -> transaction.insert(persist));
+        } catch (RealmException e) {
+            Log.e(TAG, e.getMessage());
+            InternalStorage.delete(context, persist.getRasterElevationFilename());
+            InternalStorage.delete(context, persist.getVisibilityIndexFilename());
+            throw new IOException(e.getMessage());
+        }
+        return persist;
+    }
+
     public static void deletePersistedLocationInfoById(Context context, String id) {
         try (Realm realm = Realm.getDefaultInstance()) {
             realm.executeTransaction(transaction -> {
@@ -88,6 +128,7 @@ public class StorageAccess {
                         .findFirst();
 
                 InternalStorage.delete(context, locationData.getRasterElevationFilename());
+                InternalStorage.delete(context, locationData.getVisibilityIndexFilename());
                 locationData.cascadeDelete();
             });
         } catch (Exception e) {
@@ -105,6 +146,7 @@ public class StorageAccess {
 
                 for (PersistLocationObject locationInfo : locationData) {
                     InternalStorage.delete(context, locationInfo.getRasterElevationFilename());
+                    InternalStorage.delete(context, locationInfo.getVisibilityIndexFilename());
                     locationInfo.cascadeDelete();
                 }
             });
@@ -126,6 +168,7 @@ public class StorageAccess {
                 for (PersistLocationObject locationInfo : locationData) {
                     cachedLocationCount.set(cachedLocationCount.get() + locationInfo.pois.elements.size());
                     InternalStorage.delete(context, locationInfo.getRasterElevationFilename());
+                    InternalStorage.delete(context, locationInfo.getVisibilityIndexFilename());
                     locationInfo.cascadeDelete();
                 }
             });
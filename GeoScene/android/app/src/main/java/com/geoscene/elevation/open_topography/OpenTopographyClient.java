@@ -7,6 +7,9 @@ import java.util.concurrent.TimeUnit;
 import com.geoscene.elevation.Raster;
 import com.geoscene.exceptions.WebRequestException;
 import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.tracing.CountingInputStream;
+import com.geoscene.tracing.TraceSpan;
+import com.geoscene.tracing.Tracer;
 import com.geoscene.viewshed.ViewShed;
 
 import io.reactivex.rxjava3.core.Single;
@@ -39,12 +42,30 @@ public class OpenTopographyClient {
     }
 
     public Single<Raster> fetchTopographyData(BoundingBoxCenter bbox, boolean determineViewshed) {
+        // Large areas keep the fine DEM, the viewshed coarsens the far field through the raster pyramid
+        return fetchTopographyData(bbox, DEM, determineViewshed);
+    }
+
+    public Single<Raster> fetchTopographyData(BoundingBoxCenter bbox, String dem, boolean determineViewshed) {
         double latitude = bbox.getCenter().getLat();
         double longitude = bbox.getCenter().getLon();
-        return openTopographyAPI.getElevationData(DEM, bbox.getSouth(), bbox.getNorth(), bbox.getWest(), bbox.getEast(), FORMAT)
-                .map(response -> ASCIIGridParser.parseASCIIGrid(response.byteStream()))
+        return openTopographyAPI.getElevationData(dem, bbox.getSouth(), bbox.getNorth(), bbox.getWest(), bbox.getEast(), FORMAT)
+                .map(response -> {
+                    try (TraceSpan span = Tracer.begin("elevation_parse")) {
+                        CountingInputStream stream = new CountingInputStream(response.byteStream());
+                        Raster raster = ASCIIGridParser.parseASCIIGrid(stream);
+                        span.setBytes(stream.getCount()).setCells((long) raster.getCols() * raster.getRows());
+                        return raster;
+                    }
+                })
                 .doOnSuccess(raster -> {
-                    raster.setViewshed(determineViewshed ? ViewShed.calculateViewshed(raster, latitude, longitude) : null);
+                    raster.setViewshed(null);
+                    if (determineViewshed) {
+                        try (TraceSpan span = Tracer.begin("viewshed")) {
+                            raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, latitude, longitude));
+                            span.setCells((long) raster.getCols() * raster.getRows());
+                        }
+                    }
                     raster.setBoundingBox(bbox);
                 })
                 .doOnError(e -> {throw new WebRequestException(e.getMessage());});
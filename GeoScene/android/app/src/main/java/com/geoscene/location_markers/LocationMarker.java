@@ -1,5 +1,8 @@
 package com.geoscene.location_markers;
 
+import android.location.Location;
+
+import com.geoscene.geography.LocationUtils;
 import com.google.ar.sceneform.Node;
 
 public class LocationMarker {
@@ -26,6 +29,13 @@ public class LocationMarker {
     private float gradualScalingMinScale = 0.2F;
     private float gradualScalingMaxScale = 0.65F;
     private int distanceGroup;
+    // Elevation of the place in metres, NaN when unknown, and whether the horizon hides it from the device location
+    private double elevation = Double.NaN;
+    private boolean occluded;
+    // Distance and bearing from the device fix they were measured from, measured again only for a new fix
+    private Location measuredFrom;
+    private double distance;
+    private double bearing;
 
     public LocationMarker(double longitude, double latitude, Node node) {
         this.longitude = longitude;
@@ -152,6 +162,51 @@ public class LocationMarker {
         this.distanceGroup = distanceGroup;
     }
 
+    public double getElevation() {
+        return elevation;
+    }
+
+    /**
+     * Elevation of the place, used to check it against the terrain horizon.
+     *
+     * @param elevation - metres
+     */
+    public void setElevation(double elevation) {
+        this.elevation = elevation;
+    }
+
+    public boolean isOccluded() {
+        return occluded;
+    }
+
+    void setOccluded(boolean occluded) {
+        this.occluded = occluded;
+    }
+
+    /**
+     * Distance in metres from the device location, cached until the device reports another fix.
+     */
+    public double getDistance(Location deviceLocation) {
+        measureFrom(deviceLocation);
+        return distance;
+    }
+
+    /**
+     * Bearing in degrees from the device location, cached until the device reports another fix.
+     */
+    public double getBearing(Location deviceLocation) {
+        measureFrom(deviceLocation);
+        return bearing;
+    }
+
+    private void measureFrom(Location deviceLocation) {
+        if (deviceLocation != measuredFrom) {
+            distance = LocationUtils.distance(latitude, deviceLocation.getLatitude(), longitude, deviceLocation.getLongitude(), 0, 0);
+            bearing = LocationUtils.bearing(deviceLocation.getLatitude(), deviceLocation.getLongitude(), latitude, longitude);
+            measuredFrom = deviceLocation;
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -1,22 +1,17 @@
 package com.geoscene.location_markers;
 
 import android.location.Location;
-import android.util.Log;
 
 import com.google.ar.core.Anchor;
 import com.google.ar.sceneform.AnchorNode;
 import com.google.ar.sceneform.FrameTime;
-import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
-import com.google.ar.sceneform.collision.Ray;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
 
-import com.geoscene.geography.LocationUtils;
-import com.google.ar.sceneform.rendering.Color;
 import com.google.ar.sceneform.rendering.Light;
+import com.geoscene.scheduling.FrameScheduler;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -24,7 +19,6 @@ import java.util.stream.Stream;
 public class LocationNode extends AnchorNode {
 
     private String TAG = "LocationNode";
-    private final static int COLLISION_THRESHOLD = 500;
 
     private LocationMarker locationMarker;
     private LocationNodeRender renderEvent;
@@ -34,16 +28,31 @@ public class LocationNode extends AnchorNode {
     private float height = 0F;
     private float gradualScalingMinScale = 0.2F;
     private float gradualScalingMaxScale = 0.65F;
-    private int noCollisionDetection;
+    // Placement of the marker label on the screen, applied by the scene's label placement pass
+    private float labelLift;
+    private boolean labelHidden;
+    private boolean renderPosted;
+    private final Runnable renderTask = () -> {
+        renderPosted = false;
+        if (renderEvent != null && isTracking() && isActive() && isEnabled()) {
+            renderEvent.render(this);
+        }
+    };
 
     private LocationMarker.ScalingMode scalingMode = LocationMarker.ScalingMode.FIXED_SIZE_ON_SCREEN;
     private LocationScene locationScene;
 
+    // Scratch values reused by every frame so the update loop does not allocate
+    private final Vector3 cameraPosition = new Vector3();
+    private final Vector3 nodePosition = new Vector3();
+    private final Vector3 direction = new Vector3();
+    private final Vector3 scratch = new Vector3();
+    private final Quaternion rotation = new Quaternion();
+
     public LocationNode(Anchor anchor, LocationMarker locationMarker, LocationScene locationScene) {
         super(anchor);
         this.locationMarker = locationMarker;
         this.locationScene = locationScene;
-        this.noCollisionDetection = 0;
     }
 
     public float getHeight() {
@@ -90,6 +99,25 @@ public class LocationNode extends AnchorNode {
         this.distanceInAR = distanceInAR;
     }
 
+    public float getLabelLift() {
+        return labelLift;
+    }
+
+    /**
+     * Raises the marker by the lift in metres above its height so its label clears the labels in front of it.
+     */
+    public void setLabelLift(float labelLift) {
+        this.labelLift = labelLift;
+    }
+
+    public boolean isLabelHidden() {
+        return labelHidden;
+    }
+
+    public void setLabelHidden(boolean labelHidden) {
+        this.labelHidden = labelHidden;
+    }
+
     public LocationMarker.ScalingMode getScalingMode() {
         return scalingMode;
     }
@@ -104,13 +132,15 @@ public class LocationNode extends AnchorNode {
         // is in the scene.
         // However, if onUpdate is called explicitly or if the node is removed from the scene on a
         // different thread during onUpdate, then getScene may be null.
-        for (Node n : getChildren()) {
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); ++i) {
+            Node n = children.get(i);
             if (getScene() == null || !n.isEnabled()) {
                 return;
             }
 
-            Vector3 cameraPosition = getScene().getCamera().getWorldPosition();
-            Vector3 nodePosition = n.getWorldPosition();
+            getScene().getCamera().getWorldModelMatrix().decomposeTranslation(cameraPosition);
+            n.getWorldModelMatrix().decomposeTranslation(nodePosition);
 
             // Compute the difference vector between the camera and anchor
             float dx = cameraPosition.x - nodePosition.x;
@@ -120,120 +150,27 @@ public class LocationNode extends AnchorNode {
             // Compute the straight-line distance.
             double distanceInAR = Math.sqrt(dx * dx + dy * dy + dz * dz);
             setDistanceInAR(distanceInAR);
-
-            if (locationScene.shouldOffsetOverlapping() && getHeight() < 5.0F && noCollisionDetection <= COLLISION_THRESHOLD && n instanceof LocationElevationNode) {
-                LocationElevationNode node = (LocationElevationNode)n;
-                List<Node> overlaps = locationScene.mArSceneView.getScene().overlapTestAll(n);
-                if(overlaps.size() > 0) {
-                    Log.d("height_col", String.valueOf(getHeight()) + "," + noCollisionDetection);
-                    boolean offsetHeight = true;
-                    double maxHeight = node.getElevation();
-                    for(Node overlap : overlaps) {
-                        if(overlap.isEnabled() && overlap instanceof LocationElevationNode) {
-                            LocationElevationNode overlapNode = (LocationElevationNode)overlap;
-                            double overlapHeight = overlapNode.getElevation();
-                            if (overlapHeight == maxHeight && node.getIndex() > overlapNode.getIndex()) {
-                                setHeight(getHeight() + 0.05F);
-                                break;
-                            } else if (overlapHeight >= maxHeight) {
-                                offsetHeight = false;
-                                break;
-                            }
-                        }
-                    }
-                    if(offsetHeight && locationMarker.anchorNode != null) {
-                        setHeight(getHeight() + 0.05F);
-                    }
-                } else noCollisionDetection++;
-            }
-
-            if (locationScene.shouldRemoveOverlapping()) {
-                Ray ray = new Ray();
-                ray.setOrigin(cameraPosition);
-
-                float xDelta = (float) (distanceInAR * Math.sin(Math.PI / 15)); //12 degrees
-                Vector3 cameraLeft = getScene().getCamera().getLeft().normalized();
-
-                Vector3 left = Vector3.add(nodePosition, cameraLeft.scaled(xDelta));
-                Vector3 center = nodePosition;
-                Vector3 right = Vector3.add(nodePosition, cameraLeft.scaled(-xDelta));
-
-                boolean isOverlapping = isOverlapping(n, ray, left, cameraPosition)
-                        || isOverlapping(n, ray, center, cameraPosition)
-                        || isOverlapping(n, ray, right, cameraPosition);
-
-                setEnabled(!isOverlapping);
-            }
         }
 
         if (!locationScene.minimalRefreshing())
             scaleAndRotate();
 
 
-        if (renderEvent != null) {
-            if (this.isTracking() && this.isActive() && this.isEnabled())
-                renderEvent.render(this);
-        }
-    }
-
-    private boolean isOverlapping(Node n, Ray ray, Vector3 target, Vector3 cameraPosition) {
-        Vector3 nodeDirection = Vector3.subtract(target, cameraPosition);
-        ray.setDirection(nodeDirection);
-
-        ArrayList<HitTestResult> hitTestResults = locationScene.mArSceneView.getScene().hitTestAll(ray);
-        if (hitTestResults.size() > 0) {
-
-            HitTestResult closestHit = null;
-            for (HitTestResult hit : hitTestResults) {
-                //Get the closest hit on enabled Node
-                if (hit.getNode() != null && hit.getNode().isEnabled()) {
-                    closestHit = hit;
-                    break;
-                }
+        // Render events update the label views, they run as scheduled work so they can be deferred on busy frames
+        if (renderEvent != null && !renderPosted) {
+            if (this.isTracking() && this.isActive() && this.isEnabled()) {
+                renderPosted = true;
+                locationScene.getScheduler().post(FrameScheduler.Priority.LABEL_TEXT, renderTask);
             }
-
-            // if closest hit is not the current node, it is hidden behind another node that is closer
-            return closestHit != null && closestHit.getNode() != n;
         }
-        return false;
-    }
-
-    private List<HitTestResult> getOverlapping(Vector3 cameraPosition, Vector3 nodePosition) {
-        Ray ray = new Ray();
-        ray.setOrigin(cameraPosition);
-
-        float xDelta = (float) (distanceInAR * Math.sin(Math.PI / 15)); //12 degrees
-        Vector3 cameraLeft = getScene().getCamera().getLeft().normalized();
-
-        Vector3 left = Vector3.add(nodePosition, cameraLeft.scaled(xDelta));
-        Vector3 center = nodePosition;
-        Vector3 right = Vector3.add(nodePosition, cameraLeft.scaled(-xDelta));
-
-        List<HitTestResult> hitTests = new ArrayList<>(getOverlappingRay(ray, center, cameraPosition));
-        hitTests.addAll(getOverlappingRay(ray, left, cameraPosition));
-        hitTests.addAll(getOverlappingRay(ray, right, cameraPosition));
-
-        return hitTests;
-    }
-
-    private List<HitTestResult> getOverlappingRay(Ray ray, Vector3 target, Vector3 cameraPosition) {
-        Vector3 nodeDirection = Vector3.subtract(target, cameraPosition);
-        ray.setDirection(nodeDirection);
-        return locationScene.mArSceneView.getScene().hitTestAll(ray);
     }
 
     public void scaleAndRotate() {
         Location deviceLocation = locationScene.deviceLocation();
-        for (Node n : getChildren()) {
-            int markerDistance = (int) Math.ceil(
-                    LocationUtils.distance(
-                            locationMarker.latitude,
-                            deviceLocation.getLatitude(),
-                            locationMarker.longitude,
-                            deviceLocation.getLongitude(),
-                            0,
-                            0)
-            );
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); ++i) {
+            Node n = children.get(i);
+            int markerDistance = (int) Math.ceil(locationMarker.getDistance(deviceLocation));
             setDistance(markerDistance);
 
             // Limit the distance of the Anchor within the scene.
@@ -243,8 +180,9 @@ public class LocationNode extends AnchorNode {
                 renderDistance = locationScene.getDistanceLimit();
 
             float scale = 1F;
-            final Vector3 cameraPosition = getScene().getCamera().getWorldPosition();
-            Vector3 direction = Vector3.subtract(cameraPosition, n.getWorldPosition());
+            getScene().getCamera().getWorldModelMatrix().decomposeTranslation(cameraPosition);
+            n.getWorldModelMatrix().decomposeTranslation(nodePosition);
+            direction.set(cameraPosition.x - nodePosition.x, cameraPosition.y - nodePosition.y, cameraPosition.z - nodePosition.z);
 
             switch (scalingMode) {
                 case FIXED_SIZE_ON_SCREEN:
@@ -268,13 +206,69 @@ public class LocationNode extends AnchorNode {
 
             scale *= scaleModifier;
 
-            Vector3 worldPosition = n.getWorldPosition();
-            n.setWorldPosition(new Vector3(worldPosition.x, getHeight(), worldPosition.z));
-            Quaternion lookRotation = Quaternion.lookRotation(direction, Vector3.up());
-            n.setWorldRotation(lookRotation);
-            n.setLight(Light.builder(Light.Type.DIRECTIONAL).setColor(new Color(0xFFFFFFFF)).build());
-            n.setWorldScale(new Vector3(scale, scale, scale));
+            scratch.set(nodePosition.x, getHeight() + labelLift, nodePosition.z);
+            n.setWorldPosition(scratch);
+            lookRotation(direction, rotation);
+            n.setWorldRotation(rotation);
+            Light light = locationScene.getMarkerLight();
+            if (n.getLight() != light) {
+                n.setLight(light);
+            }
+            scratch.set(scale, scale, scale);
+            n.setWorldScale(scratch);
+        }
+    }
+
+    /**
+     * Quaternion.lookRotation with world up into an existing quaternion, the rotation turns the z axis
+     * to the forward direction and keeps the y axis as close as possible to up.
+     */
+    private static void lookRotation(Vector3 forward, Quaternion destination) {
+        float length = (float) Math.sqrt(forward.x * forward.x + forward.y * forward.y + forward.z * forward.z);
+        if (length == 0) {
+            destination.set(0, 0, 0, 1);
+            return;
+        }
+        float fx = forward.x / length, fy = forward.y / length, fz = forward.z / length;
+        // right = up x forward, up = forward x right
+        float rx = fz, rz = -fx;
+        float rightLength = (float) Math.sqrt(rx * rx + rz * rz);
+        if (rightLength == 0) {
+            rx = 1;
+        } else {
+            rx /= rightLength;
+            rz /= rightLength;
+        }
+        float ux = fy * rz, uy = fz * rx - fx * rz, uz = -fy * rx;
+        // Rotation matrix columns are right, up and forward
+        float trace = rx + uy + fz;
+        float x, y, z, w;
+        if (trace > 0) {
+            float s = 0.5f / (float) Math.sqrt(trace + 1);
+            w = 0.25f / s;
+            x = (uz - fy) * s;
+            y = (fx - rz) * s;
+            z = -ux * s;
+        } else if (rx > uy && rx > fz) {
+            float s = 2 * (float) Math.sqrt(1 + rx - uy - fz);
+            w = (uz - fy) / s;
+            x = 0.25f * s;
+            y = ux / s;
+            z = (fx + rz) / s;
+        } else if (uy > fz) {
+            float s = 2 * (float) Math.sqrt(1 + uy - rx - fz);
+            w = (fx - rz) / s;
+            x = ux / s;
+            y = 0.25f * s;
+            z = (fy + uz) / s;
+        } else {
+            float s = 2 * (float) Math.sqrt(1 + fz - rx - uy);
+            w = -ux / s;
+            x = (fx + rz) / s;
+            y = (fy + uz) / s;
+            z = 0.25f * s;
         }
+        destination.set(x, y, z, w);
     }
 
     public float getGradualScalingMinScale() {
@@ -3,25 +3,37 @@ package com.geoscene.location_markers;
 import android.app.Activity;
 import android.location.Location;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 
+import com.geoscene.scheduling.FrameScheduler;
 import com.geoscene.sensors.DeviceSensors;
+import com.geoscene.tracing.Tracer;
+import com.geoscene.viewshed.HorizonProfile;
 import com.google.ar.core.Anchor;
 import com.google.ar.core.Frame;
 import com.google.ar.core.Plane;
 import com.google.ar.core.Pose;
 import com.google.ar.core.Session;
+import com.google.ar.core.TrackingState;
 import com.google.ar.sceneform.ArSceneView;
+import com.google.ar.sceneform.Camera;
 import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.collision.Box;
 import com.google.ar.sceneform.collision.CollisionShape;
 import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Color;
+import com.google.ar.sceneform.rendering.Light;
+import com.google.ar.sceneform.rendering.Renderable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import com.geoscene.sensors.DeviceLocationChanged;
-import com.geoscene.geography.LocationUtils;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class LocationScene {
 
@@ -31,6 +43,16 @@ public class LocationScene {
     private final int CALIBRATION_ITERATIONS = 3;
     private final float RENDER_DISTANCE = 10f;
     private final int DEFAULT_DISTANCE_LIMIT = 5000;
+    // Overlapping labels are placed again at this interval, the screen layout hardly changes between frames
+    private final int LABEL_PLACEMENT_INTERVAL = 200;
+    // Highest a label is lifted, as a fraction of the screen height
+    private final float MAX_LABEL_LIFT = 1 / 3f;
+    // A placed anchor is kept until its marker turns by this many degrees seen from the camera
+    private final float ANCHOR_BEARING_THRESHOLD = 1f;
+    // or its distance from the camera changes by this fraction
+    private final float ANCHOR_DISTANCE_THRESHOLD = 0.05f;
+    // Most anchors created in a single frame
+    private final int ANCHOR_BATCH_SIZE = 6;
     public ArSceneView mArSceneView;
     public Activity context;
     public DeviceSensors sensors;
@@ -48,6 +70,8 @@ public class LocationScene {
     private boolean anchorsNeedRefresh = true;
     private boolean minimalRefreshing = false;
     private boolean refreshing = false;
+    // Next marker of a refresh spread over several frames
+    private int refreshIndex;
     private boolean markersRefresh = true;
     private int iteration;
     private int currentDistanceGroup;
@@ -67,8 +91,35 @@ public class LocationScene {
     };
     private boolean debugEnabled = false;
     private Session mSession;
+    // Shared by every marker node, building a light per node and frame allocates
+    private Light markerLight;
+    private final LabelPlacement labelPlacement = new LabelPlacement();
+    // Nodes of the labels handed to the placement and the pixels per meter at their anchors
+    private final List<LocationNode> placedNodes = new ArrayList<>();
+    private float[] pixelsPerMeter = new float[0];
+    private long lastLabelPlacement;
+    private boolean placingLabels;
+    private final Vector3 labelBase = new Vector3();
+    // Work of the scene and its nodes is queued on the scheduler and run within the frame budget
+    private final FrameScheduler scheduler = new FrameScheduler(FrameScheduler.DEFAULT_BUDGET, Tracer.getFrameTimes(), Tracer.getFrameWorkTimes());
+    private Frame currentFrame;
+    private boolean anchorRefreshPosted;
+    private boolean labelPlacementPosted;
+    private final Runnable anchorRefreshStep = () -> {
+        anchorRefreshPosted = false;
+        // A step deferred past the frames the scene processed waits for the next processed frame
+        if (currentFrame != null && currentFrame == mArSceneView.getArFrame()) {
+            refreshAnchorsIfRequired(currentFrame);
+        }
+    };
+    private final Runnable labelPlacementStep = () -> {
+        labelPlacementPosted = false;
+        placeLabelsIfRequired();
+    };
 
     private DeviceLocationChanged locationChangedEvent;
+    // Terrain horizon around the device location, markers of places behind it are not placed
+    private HorizonProfile horizon;
 
     public LocationScene(Activity context, ArSceneView mArSceneView, DeviceSensors sensors, boolean markersRefresh, int distanceGroupSize) {
         this.context = context;
@@ -84,6 +135,14 @@ public class LocationScene {
 
     public void start() {
         startCalculationTask();
+        listenToLocation();
+    }
+
+    /**
+     * Takes the device location callback, forwarding the updates to the location changed event.
+     * Also used before the scene is started so the event receives updates when there are no markers.
+     */
+    public void listenToLocation() {
         this.sensors.setLocationEvent(() -> {
             if (locationChangedEvent != null) {
                 locationChangedEvent.onChange(sensors.getDeviceLocation());
@@ -160,6 +219,8 @@ public class LocationScene {
             }
         }
         mLocationMarkers = new ArrayList<>();
+        // A refresh in progress was walking the cleared markers
+        refreshing = false;
     }
 
     /**
@@ -190,23 +251,24 @@ public class LocationScene {
     }
 
     /**
-     * Attempts to raise markers vertically when they overlap.
-     * Needs work!
+     * Raises markers vertically when their labels overlap on the screen, the nearest labels stay in place.
      *
      * @param offsetOverlapping
      */
     public void setOffsetOverlapping(boolean offsetOverlapping) {
         this.offsetOverlapping = offsetOverlapping;
+        resetLabels();
     }
 
 
     /**
-     * Remove farthest markers when they overlap
+     * Remove farthest markers when their labels overlap on the screen
      *
      * @param removeOverlapping
      */
     public void setRemoveOverlapping(boolean removeOverlapping) {
         this.removeOverlapping = removeOverlapping;
+        resetLabels();
 
 //        for (LocationMarker mLocationMarker : mLocationMarkers) {
 //            LocationNode anchorNode = mLocationMarker.anchorNode;
@@ -216,12 +278,145 @@ public class LocationScene {
 //        }
     }
 
+    Light getMarkerLight() {
+        if (markerLight == null) {
+            markerLight = Light.builder(Light.Type.DIRECTIONAL).setColor(new Color(0xFFFFFFFF)).build();
+        }
+        return markerLight;
+    }
+
     public Location deviceLocation() {
         return sensors != null ? sensors.getDeviceLocation() : null;
     }
 
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets the horizon of the device location, markers with an elevation are checked against it in one lookup by bearing.
+     */
+    public void setHorizon(HorizonProfile horizon) {
+        this.horizon = horizon;
+        anchorsNeedRefresh = true;
+    }
+
+    /**
+     * Queues the anchor refresh and label placement of the frame, run when the scheduler runs the frame.
+     */
     public void processFrame(Frame frame) {
-        refreshAnchorsIfRequired(frame);
+        currentFrame = frame;
+        if (!anchorRefreshPosted) {
+            anchorRefreshPosted = true;
+            scheduler.post(FrameScheduler.Priority.ANCHOR_PLACEMENT, anchorRefreshStep);
+        }
+        if (!labelPlacementPosted) {
+            labelPlacementPosted = true;
+            scheduler.post(FrameScheduler.Priority.COLLISION, labelPlacementStep);
+        }
+    }
+
+    /**
+     * Projects the shown labels to the screen and resolves their overlaps off the render thread,
+     * the lifts and hidden labels are applied together on the next main thread pass.
+     */
+    private void placeLabelsIfRequired() {
+        if ((!offsetOverlapping && !removeOverlapping) || placingLabels) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (now - lastLabelPlacement < LABEL_PLACEMENT_INTERVAL) {
+            return;
+        }
+        lastLabelPlacement = now;
+        Location deviceLocation = deviceLocation();
+        if (deviceLocation == null) {
+            return;
+        }
+        Camera camera = mArSceneView.getScene().getCamera();
+        Vector3 cameraPosition = camera.getWorldPosition();
+        Vector3 forward = camera.getForward();
+        labelPlacement.clear();
+        placedNodes.clear();
+        for (int i = 0; i < mLocationMarkers.size(); i++) {
+            LocationMarker marker = mLocationMarkers.get(i);
+            LocationNode anchorNode = marker.anchorNode;
+            Renderable renderable = marker.node.getRenderable();
+            if (marker.getDistanceGroup() != currentDistanceGroup || marker.isOccluded() || anchorNode == null || renderable == null
+                    || !(renderable.getCollisionShape() instanceof Box)) {
+                continue;
+            }
+            // Labels are placed from where they stand without their current lift
+            labelBase.set(marker.node.getWorldPosition());
+            labelBase.y -= anchorNode.getLabelLift();
+            if (Vector3.dot(Vector3.subtract(labelBase, cameraPosition), forward) <= 0) {
+                continue; // Behind the camera
+            }
+            Vector3 anchor = camera.worldToScreenPoint(labelBase);
+            labelBase.y += 1;
+            float labelPixelsPerMeter = anchor.y - camera.worldToScreenPoint(labelBase).y;
+            if (labelPixelsPerMeter <= 0) {
+                continue;
+            }
+            Vector3 size = ((Box) renderable.getCollisionShape()).getSize();
+            Vector3 scale = marker.node.getWorldScale();
+            int label = labelPlacement.add(anchor.x, anchor.y, size.x * scale.x * labelPixelsPerMeter,
+                    size.y * scale.y * labelPixelsPerMeter, (float) marker.getDistance(deviceLocation));
+            if (label == pixelsPerMeter.length) {
+                pixelsPerMeter = Arrays.copyOf(pixelsPerMeter, Math.max(16, label * 2));
+            }
+            pixelsPerMeter[label] = labelPixelsPerMeter;
+            placedNodes.add(anchorNode);
+        }
+        if (placedNodes.isEmpty()) {
+            return;
+        }
+        placingLabels = true;
+        boolean offset = offsetOverlapping, remove = removeOverlapping;
+        float maxLift = mArSceneView.getHeight() * MAX_LABEL_LIFT;
+        Schedulers.computation().scheduleDirect(() -> {
+            labelPlacement.place(offset, remove, maxLift);
+            mHandler.post(this::applyLabelPlacement);
+        });
+    }
+
+    private void applyLabelPlacement() {
+        for (int i = 0; i < placedNodes.size(); i++) {
+            LocationNode anchorNode = placedNodes.get(i);
+            LocationMarker marker = anchorNode.getLocationMarker();
+            if (marker.anchorNode != anchorNode) {
+                continue; // Cleared while placing
+            }
+            boolean hidden = labelPlacement.isHidden(i);
+            anchorNode.setLabelLift(labelPlacement.getLift(i) / pixelsPerMeter[i]);
+            anchorNode.setLabelHidden(hidden);
+            if (marker.getDistanceGroup() == currentDistanceGroup && !marker.isOccluded() && anchorNode.isEnabled() == hidden) {
+                anchorNode.setEnabled(!hidden);
+            }
+            if (minimalRefreshing) {
+                anchorNode.scaleAndRotate();
+            }
+        }
+        placedNodes.clear();
+        placingLabels = false;
+    }
+
+    /**
+     * Puts every label back on its anchor, the next placement pass lifts or hides them again.
+     */
+    private void resetLabels() {
+        for (int i = 0; i < mLocationMarkers.size(); i++) {
+            LocationMarker marker = mLocationMarkers.get(i);
+            LocationNode anchorNode = marker.anchorNode;
+            if (anchorNode != null) {
+                anchorNode.setLabelLift(0);
+                if (anchorNode.isLabelHidden()) {
+                    anchorNode.setLabelHidden(false);
+                    anchorNode.setEnabled(marker.getDistanceGroup() == currentDistanceGroup && !marker.isOccluded());
+                }
+            }
+        }
+        lastLabelPlacement = 0;
     }
 
     /**
@@ -231,14 +426,24 @@ public class LocationScene {
         anchorsNeedRefresh = true;
     }
 
+    /**
+     * Refreshes the anchors of the current distance group, spread over as many frames as needed so a frame
+     * creates at most ANCHOR_BATCH_SIZE anchors and stays within the scheduler budget.
+     */
     private void refreshAnchorsIfRequired(Frame frame) {
-        if (sensors == null || !anchorsNeedRefresh || refreshing) {
+        if (sensors == null) {
             return;
         }
-        refreshing = true;
-        anchorsNeedRefresh = false;
-        if (debugEnabled) {
-            Log.i(TAG, "Refreshing anchors...");
+        if (!refreshing) {
+            if (!anchorsNeedRefresh) {
+                return;
+            }
+            refreshing = true;
+            anchorsNeedRefresh = false;
+            refreshIndex = 0;
+            if (debugEnabled) {
+                Log.i(TAG, "Refreshing anchors...");
+            }
         }
 
         Location deviceLocation = deviceLocation();
@@ -247,131 +452,150 @@ public class LocationScene {
             if (debugEnabled) {
                 Log.i(TAG, "Location not yet established.");
             }
+            refreshing = false;
             return;
         }
 
-        for (int i = 0; i < mLocationMarkers.size(); i++) {
+        Pose cameraPose = frame.getCamera().getDisplayOrientedPose();
+        int created = 0;
+        int refreshed = 0;
+        while (refreshIndex < mLocationMarkers.size()) {
+            if (created == ANCHOR_BATCH_SIZE || (refreshed++ > 0 && !scheduler.hasBudget())) {
+                return; // Carried on in the next frame
+            }
             try {
-                final LocationMarker marker = mLocationMarkers.get(i);
-
-                if (marker.getDistanceGroup() != currentDistanceGroup) {
-                    if (marker.anchorNode != null && marker.anchorNode.isEnabled()) {
-                        marker.anchorNode.setEnabled(false);
-                    }
-                    continue;
-                } else if (marker.anchorNode != null && !marker.anchorNode.isEnabled()) {
-                    marker.anchorNode.setEnabled(true);
+                if (refreshMarker(mLocationMarkers.get(refreshIndex++), cameraPose, deviceLocation, deviceOrientation)) {
+                    ++created;
                 }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        refreshing = false;
+        //this is bad, you should feel bad
+//        System.gc();
+    }
 
-                int markerDistance = (int) Math.round(
-                        LocationUtils.distance(
-                                marker.latitude,
-                                deviceLocation.getLatitude(),
-                                marker.longitude,
-                                deviceLocation.getLongitude(),
-                                0,
-                                0)
-                );
-                if (markerDistance > marker.getOnlyRenderWhenWithin()) {
-                    // Don't render if this has been set and we are too far away.
-                    if (debugEnabled) {
-                        Log.i(TAG, "Not rendering. Marker distance: " + markerDistance
-                                + " Max render distance: " + marker.getOnlyRenderWhenWithin());
-                    }
-                    continue;
-                }
+    /**
+     * Places the marker relative to the camera, returns whether a new anchor was created for it.
+     */
+    private boolean refreshMarker(LocationMarker marker, Pose cameraPose, Location deviceLocation, float deviceOrientation) {
+        if (marker.getDistanceGroup() != currentDistanceGroup) {
+            if (marker.anchorNode != null && marker.anchorNode.isEnabled()) {
+                marker.anchorNode.setEnabled(false);
+            }
+            return false;
+        }
 
-                float bearing = (float) LocationUtils.bearing(
-                        deviceLocation.getLatitude(),
-                        deviceLocation.getLongitude(),
-                        marker.latitude,
-                        marker.longitude);
+        int markerDistance = (int) Math.round(marker.getDistance(deviceLocation));
+        float bearing = (float) marker.getBearing(deviceLocation);
+        marker.setOccluded(horizon != null && !Double.isNaN(marker.getElevation()) && horizon.isOccluded(bearing, marker.getElevation(), markerDistance));
+        if (marker.isOccluded()) {
+            if (marker.anchorNode != null && marker.anchorNode.isEnabled()) {
+                marker.anchorNode.setEnabled(false);
+            }
+            return false;
+        } else if (marker.anchorNode != null && !marker.anchorNode.isEnabled() && !marker.anchorNode.isLabelHidden()) {
+            marker.anchorNode.setEnabled(true);
+        }
 
-                float markerBearing = bearing - deviceOrientation;
+        if (markerDistance > marker.getOnlyRenderWhenWithin()) {
+            // Don't render if this has been set and we are too far away.
+            if (debugEnabled) {
+                Log.i(TAG, "Not rendering. Marker distance: " + markerDistance
+                        + " Max render distance: " + marker.getOnlyRenderWhenWithin());
+            }
+            return false;
+        }
 
-                // Bearing adjustment can be set if you are trying to
-                // correct the heading of north - setBearingAdjustment(10)
-                markerBearing = markerBearing + bearingAdjustment + 360;
-                markerBearing = markerBearing % 360;
+        float markerBearing = bearing - deviceOrientation;
 
-                double rotation = Math.floor(markerBearing);
+        // Bearing adjustment can be set if you are trying to
+        // correct the heading of north - setBearingAdjustment(10)
+        markerBearing = markerBearing + bearingAdjustment + 360;
+        markerBearing = markerBearing % 360;
 
-                if (debugEnabled) {
-                    Log.d(TAG, "currentDegree " + deviceOrientation
-                            + " bearing " + bearing + " markerBearing " + markerBearing
-                            + " rotation " + rotation + " distance " + markerDistance);
-                }
+        double rotation = Math.floor(markerBearing);
 
-                int renderDistance = markerDistance;
+        if (debugEnabled) {
+            Log.d(TAG, "currentDegree " + deviceOrientation
+                    + " bearing " + bearing + " markerBearing " + markerBearing
+                    + " rotation " + rotation + " distance " + markerDistance);
+        }
 
-                // Limit the distance of the Anchor within the scene.
-                // Prevents rendering issues.
-                if (renderDistance > distanceLimit)
-                    renderDistance = distanceLimit;
+        int renderDistance = markerDistance;
 
-                // Adjustment to add markers on horizon, instead of just directly in front of camera
-                double heightAdjustment = 0;
-                // Math.round(renderDistance * (Math.tan(Math.toRadians(deviceOrientation.pitch)))) - 1.5F;
+        // Limit the distance of the Anchor within the scene.
+        // Prevents rendering issues.
+        if (renderDistance > distanceLimit)
+            renderDistance = distanceLimit;
 
-                // Raise distant markers for better illusion of distance
-                // Hacky - but it works as a temporary measure
-                int cappedRealDistance = Math.min(markerDistance, (distanceLimit / 2));
-                if (renderDistance != markerDistance)
-                    heightAdjustment += 0.005F * (cappedRealDistance - renderDistance);
+        // Adjustment to add markers on horizon, instead of just directly in front of camera
+        double heightAdjustment = 0;
+        // Math.round(renderDistance * (Math.tan(Math.toRadians(deviceOrientation.pitch)))) - 1.5F;
 
-                float z = -Math.min(renderDistance, RENDER_DISTANCE);
+        // Raise distant markers for better illusion of distance
+        // Hacky - but it works as a temporary measure
+        int cappedRealDistance = Math.min(markerDistance, (distanceLimit / 2));
+        if (renderDistance != markerDistance)
+            heightAdjustment += 0.005F * (cappedRealDistance - renderDistance);
 
-                double rotationRadian = Math.toRadians(rotation);
+        float z = -Math.min(renderDistance, RENDER_DISTANCE);
 
-                float zRotated = (float) (z * Math.cos(rotationRadian));
-                float xRotated = (float) -(z * Math.sin(rotationRadian));
+        double rotationRadian = Math.toRadians(rotation);
 
-                float y = frame.getCamera().getDisplayOrientedPose().ty() + (float) heightAdjustment;
+        float zRotated = (float) (z * Math.cos(rotationRadian));
+        float xRotated = (float) -(z * Math.sin(rotationRadian));
 
-                resetLocationMarker(marker);
+        float y = cameraPose.ty() + (float) heightAdjustment;
 
-                // Don't immediately assign newly created anchor in-case of exceptions
-                Pose translation = Pose.makeTranslation(xRotated, y, zRotated);
-                Anchor newAnchor = mSession.createAnchor(
-                        frame.getCamera()
-                                .getDisplayOrientedPose()
-                                .compose(translation)
-                                .extractTranslation()
-                );
-                if(marker.anchorNode == null) {
-                    marker.anchorNode = new LocationNode(newAnchor, marker, this);
-                    marker.anchorNode.setParent(mArSceneView.getScene());
-                    marker.anchorNode.addChild(marker.node);
+        Pose target = cameraPose.compose(Pose.makeTranslation(xRotated, y, zRotated)).extractTranslation();
+        boolean create = marker.anchorNode == null || hasMoved(marker.anchorNode.getAnchor(), target, cameraPose);
+        if (create) {
+            // Don't immediately assign newly created anchor in-case of exceptions
+            Anchor newAnchor = mSession.createAnchor(target);
+            resetLocationMarker(marker);
+            if (marker.anchorNode == null) {
+                marker.anchorNode = new LocationNode(newAnchor, marker, this);
+                marker.anchorNode.setParent(mArSceneView.getScene());
+                marker.anchorNode.addChild(marker.node);
+            } else marker.anchorNode.setAnchor(newAnchor);
 
-                    if(shouldOffsetOverlapping()) {
-                        calculateMarkerHeight(marker, markerDistance);
-                    }
-                } else marker.anchorNode.setAnchor(newAnchor);
-                marker.anchorNode.setScalingMode(LocationMarker.ScalingMode.GRADUAL_TO_MAX_RENDER_DISTANCE);
+            marker.node.setLocalPosition(Vector3.zero());
+        }
 
-                marker.node.setLocalPosition(Vector3.zero());
+        if (marker.getRenderEvent() != null) {
+            marker.anchorNode.setRenderEvent(marker.getRenderEvent());
+        }
 
-                if (marker.getRenderEvent() != null) {
-                    marker.anchorNode.setRenderEvent(marker.getRenderEvent());
-                }
+        marker.anchorNode.setScaleModifier(marker.getScaleModifier());
+        marker.anchorNode.setScalingMode(marker.getScalingMode());
+        marker.anchorNode.setGradualScalingMaxScale(marker.getGradualScalingMaxScale());
+        marker.anchorNode.setGradualScalingMinScale(marker.getGradualScalingMinScale());
+        calculateMarkerHeight(marker, markerDistance);
 
-                marker.anchorNode.setScaleModifier(marker.getScaleModifier());
-                marker.anchorNode.setScalingMode(marker.getScalingMode());
-                marker.anchorNode.setGradualScalingMaxScale(marker.getGradualScalingMaxScale());
-                marker.anchorNode.setGradualScalingMinScale(marker.getGradualScalingMinScale());
-                if(!shouldOffsetOverlapping()) {
-                    calculateMarkerHeight(marker, markerDistance);
-                }
+        if (minimalRefreshing)
+            marker.anchorNode.scaleAndRotate();
+        return create;
+    }
 
-                if (minimalRefreshing)
-                    marker.anchorNode.scaleAndRotate();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    /**
+     * Whether the placed anchor is farther than the thresholds from the target, in bearing or distance seen from the camera.
+     */
+    private boolean hasMoved(Anchor anchor, Pose target, Pose cameraPose) {
+        if (anchor == null || anchor.getTrackingState() == TrackingState.STOPPED) {
+            return true;
         }
-        refreshing = false;
-        //this is bad, you should feel bad
-//        System.gc();
+        Pose placed = anchor.getPose();
+        float placedX = placed.tx() - cameraPose.tx(), placedZ = placed.tz() - cameraPose.tz();
+        float targetX = target.tx() - cameraPose.tx(), targetZ = target.tz() - cameraPose.tz();
+        double placedDistance = Math.hypot(placedX, placedZ), targetDistance = Math.hypot(targetX, targetZ);
+        double distanceThreshold = ANCHOR_DISTANCE_THRESHOLD * targetDistance;
+        if (Math.abs(placedDistance - targetDistance) > distanceThreshold || Math.abs(placed.ty() - target.ty()) > distanceThreshold) {
+            return true;
+        }
+        double turn = Math.toDegrees(Math.atan2(placedX * targetZ - placedZ * targetX, placedX * targetX + placedZ * targetZ));
+        return Math.abs(turn) > ANCHOR_BEARING_THRESHOLD;
     }
 
     private void calculateMarkerHeight(LocationMarker marker, int markerDistance) {
@@ -0,0 +1,28 @@
+package com.geoscene.logging;
+
+import android.util.Log;
+
+/*
+Forwards the log messages of the geospatial core to logcat.
+ */
+public class AndroidLogger implements Logger {
+    @Override
+    public void debug(String tag, String message) {
+        Log.d(tag, message);
+    }
+
+    @Override
+    public void info(String tag, String message) {
+        Log.i(tag, message);
+    }
+
+    @Override
+    public void warn(String tag, String message) {
+        Log.w(tag, message);
+    }
+
+    @Override
+    public void error(String tag, String message) {
+        Log.e(tag, message);
+    }
+}
@@ -19,6 +19,7 @@ import com.geoscene.R;
 import com.geoscene.constants.LocationConstants;
 import com.geoscene.sensors.DeviceSensors;
 import com.geoscene.sensors.DeviceSensorsManager;
+import com.geoscene.triangulation.GeodesicArcCache;
 import com.geoscene.triangulation.Triangulation;
 import com.geoscene.triangulation.TriangulationData;
 import com.geoscene.geography.Coordinate;
@@ -54,7 +55,11 @@ import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class OSMMapView extends LinearLayout implements IOrientationConsumer, LifecycleEventListener {
@@ -88,6 +93,12 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
     private FolderOverlay distanceLines;
     private ItemizedIconOverlay<OverlayItem> triangulationPoints;
     private ItemizedIconOverlay<OverlayItem> triangulationViewers;
+    // Overlays of the triangulations currently intersecting the line of sight
+    private final Map<TriangulationData, TriangulationOverlay> triangulationOverlays = new IdentityHashMap<>();
+    private final TriangulationWorker triangulationWorker;
+    // Arcs of the shown triangulations, drawn on the main thread at the zoom level of arcLevel
+    private final GeodesicArcCache<GeoPoint> triangulationArcs = new GeodesicArcCache<>(GeoPoint::new);
+    private int arcLevel;
 
     private Overlay centerOverlay;
     private Overlay distanceOverlay;
@@ -114,6 +125,8 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
         distanceMarkers = new ArrayList<>();
 
         sensors = DeviceSensorsManager.getSensors(reactContext);
+        triangulationWorker = new TriangulationWorker();
+        triangulationWorker.start(this::drawTriangulations);
         mapController = map.getController();
         reactContext.addLifecycleEventListener(this);
         zoomToBoundingBox(null);
@@ -235,8 +248,9 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
                     Location location = sensors.getDeviceLocation();
                     double lat = location.getLatitude(), lon = location.getLongitude();
                     observer = new GeoPoint(lat, lon);
-                    List<Coordinate> myArc = Triangulation.getGeodesicArc(200, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, lat, lon, azimuth);
-                    List<Coordinate> arc = Triangulation.getGeodesicArc(200, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, data.getLat(), data.getLon(), data.getAzimuth());
+                    arcLevel = GeodesicArcCache.getLevel(map.getZoomLevelDouble());
+                    List<GeoPoint> myArc = getTriangulationArc(lat, lon, azimuth);
+                    List<GeoPoint> arc = getTriangulationArc(data.getLat(), data.getLon(), data.getAzimuth());
 
                     if (lineOfSight != null) {
                         map.getOverlays().remove(lineOfSight);
@@ -253,19 +267,20 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
                     if (triangulationViewers != null) {
                         map.getOverlays().remove(triangulationViewers);
                     }
+                    triangulationOverlays.clear();
                     triangulationLines = new FolderOverlay();
                     OverlayItem marker = new OverlayItem("", "", new GeoPoint(intersection.intersection.getLat(), intersection.intersection.getLon()));
                     marker.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.marker_small));
-                    OverlayItem viewer = new OverlayItem("", "", new GeoPoint(arc.get(0).getLat(), arc.get(0).getLon()));
+                    OverlayItem viewer = new OverlayItem("", "", new GeoPoint(data.getLat(), data.getLon()));
                     viewer.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.observer));
                     lineOfSight = new Polyline(map);
-                    lineOfSight.setPoints(myArc.stream().map(c -> new GeoPoint(c.getLat(), c.getLon())).collect(Collectors.toList()));
+                    lineOfSight.setPoints(myArc);
                     lineOfSight.getOutlinePaint().setColor(Color.RED);
                     lineOfSight.getOutlinePaint().setStrokeWidth(4f);
                     map.getOverlays().add(lineOfSight);
 
                     Polyline polyline = new Polyline(map);
-                    polyline.setPoints(arc.stream().map(c -> new GeoPoint(c.getLat(), c.getLon())).collect(Collectors.toList()));
+                    polyline.setPoints(arc);
                     polyline.getOutlinePaint().setColor(Color.BLACK);
                     polyline.getOutlinePaint().setStrokeWidth(4f);
                     triangulationLines.add(polyline);
@@ -286,21 +301,29 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
                 }
             });
         } else {
-            List<Coordinate> myArc = Triangulation.getGeodesicArc(200, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, data.getLat(), data.getLon(), azimuth);
-            if (lineOfSight != null)
-                map.getOverlays().remove(lineOfSight);
-            lineOfSight = new Polyline(map);
-            lineOfSight.setPoints(myArc.stream().map(c -> new GeoPoint(c.getLat(), c.getLon())).collect(Collectors.toList()));
-            lineOfSight.getOutlinePaint().setColor(Color.RED);
-            lineOfSight.getOutlinePaint().setStrokeWidth(4f);
-            map.getOverlays().add(lineOfSight);
+            if (lineOfSight == null) {
+                lineOfSight = new Polyline(map);
+                lineOfSight.getOutlinePaint().setColor(Color.RED);
+                lineOfSight.getOutlinePaint().setStrokeWidth(4f);
+            }
+            lineOfSight.setPoints(getTriangulationArc(data.getLat(), data.getLon(), azimuth));
+            if (!map.getOverlays().contains(lineOfSight)) {
+                map.getOverlays().add(lineOfSight);
+            }
             map.invalidate();
         }
     }
 
     public void setTriangulationData(List<TriangulationData> data) {
+        for (TriangulationOverlay overlay : triangulationOverlays.values()) {
+            if (triangulationLines != null) {
+                triangulationLines.remove(overlay.arc);
+                triangulationViewers.removeItem(overlay.viewer);
+                triangulationPoints.removeItem(overlay.marker);
+            }
+        }
+        triangulationOverlays.clear();
         triangulationData = data;
-        triangulationData.forEach(t -> t.setTriangulationArc(Triangulation.getGeodesicArc(1000, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, t.getLat(), t.getLon(), t.getAzimuth())));
         if(mLocationOverlay != null) {
             mLocationOverlay.disableFollowLocation();
         }
@@ -471,7 +494,8 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
         if((useTriangulation || useCompassOrientation) && map.getRepository() != null && Math.abs(previousAzimuth - azimuth) >= 1e-3) { // Reduce azimuth to include only 2 digits after point changes(EPSILON DIFF)
             dispatchAzimuth(azimuth);
             if(useTriangulation) {
-                calculateAndDrawTriangulations(azimuth, t);
+                Location location = sensors.getDeviceLocation();
+                triangulationWorker.submit(location.getLatitude(), location.getLongitude(), azimuth, t, map.getZoomLevelDouble(), triangulationData);
             }
 
             if(!animateToIncludeTriangulationPoints && isShown) {
@@ -482,86 +506,89 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
         previousAzimuth = azimuth;
     }
 
-    private void calculateAndDrawTriangulations(double azimuth, float bearing) {
-        try {
-            Location location = sensors.getDeviceLocation();
-            double lat = location.getLatitude(), lon = location.getLongitude();
-            List<Coordinate> myArc = Triangulation.getGeodesicArc(200, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, lat, lon, azimuth);
-
-            if (lineOfSight != null)
-                map.getOverlays().remove(lineOfSight);
+    /**
+     * Applies a triangulation result to the map, only the triangulations that appeared, moved or disappeared touch their overlays.
+     */
+    private void drawTriangulations(TriangulationWorker.Result result) {
+        if (!useTriangulation || result.triangulations != triangulationData) {
+            return;
+        }
+        if (lineOfSight == null) {
             lineOfSight = new Polyline(map);
-            lineOfSight.setPoints(myArc.stream().map(c -> new GeoPoint(c.getLat(), c.getLon())).collect(Collectors.toList()));
             lineOfSight.getOutlinePaint().setColor(Color.RED);
             lineOfSight.getOutlinePaint().setStrokeWidth(4f);
+        }
+        lineOfSight.setPoints(result.lineOfSight);
+        if (!map.getOverlays().contains(lineOfSight)) {
             map.getOverlays().add(lineOfSight);
-
-            if (triangulationLines != null) {
-                map.getOverlays().remove(triangulationLines);
-            }
-
-            if (triangulationPoints != null) {
-                map.getOverlays().remove(triangulationPoints);
-            }
-
-            if (triangulationViewers != null) {
-                map.getOverlays().remove(triangulationViewers);
-            }
-
+        }
+        if (triangulationLines == null || triangulationPoints == null || triangulationViewers == null) {
             triangulationLines = new FolderOverlay();
-            List<OverlayItem> markers = new ArrayList<>();
-            List<OverlayItem> viewers = new ArrayList<>();
-            List<TriangulationIntersection> intersections = new ArrayList<>();
-            for (TriangulationData triangulation : triangulationData) {
-                Coordinate intersection = Triangulation.triangulate(lat, lon, azimuth, triangulation.getLat(), triangulation.getLon(), triangulation.getAzimuth());
-                if(intersection != null) {
-                    double aerialDistance = LocationUtils.aerialDistance(lat, intersection.getLat(), lon, intersection.getLon());
-                    if (aerialDistance < Triangulation.MAX_TRIANGULATION_DISTANCE) { // Smaller than triangulation arc
-                        intersections.add(new TriangulationIntersection(triangulation.id, triangulation.name, triangulation.description, intersection.getLat(), intersection.getLon(), aerialDistance));
-                        OverlayItem item = new OverlayItem("", "", new GeoPoint(intersection.getLat(), intersection.getLon()));
-                        item.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.marker_small));
-                        markers.add(item);
-                        List<Coordinate> arc = triangulation.getTriangulationArc();
-
-                        Coordinate viewerCoordinate = arc.get(0);
-
-                        OverlayItem viewer = new OverlayItem("", "", new GeoPoint(viewerCoordinate.getLat(), viewerCoordinate.getLon()));
-                        viewer.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.observer));
-                        viewers.add(viewer);
+            triangulationPoints = new ItemizedIconOverlay<>(reactContext, new ArrayList<>(), null);
+            triangulationViewers = new ItemizedIconOverlay<>(reactContext, new ArrayList<>(), null);
+            triangulationOverlays.clear();
+        }
+        int level = GeodesicArcCache.getLevel(map.getZoomLevelDouble());
+        if (level != arcLevel) {
+            arcLevel = level;
+            triangulationOverlays.values().forEach(overlay -> overlay.arc.setPoints(
+                    getTriangulationArc(overlay.triangulation.getLat(), overlay.triangulation.getLon(), overlay.triangulation.getAzimuth())));
+        }
 
-                        Polyline polyline = new Polyline(map);
-                        polyline.setPoints(arc.stream().map(c -> new GeoPoint(c.getLat(), c.getLon())).collect(Collectors.toList()));
-                        polyline.getOutlinePaint().setColor(Color.BLACK);
-                        polyline.getOutlinePaint().setStrokeWidth(4f);
-                        triangulationLines.add(polyline);
-                    }
-                }
+        boolean changed = false;
+        Set<TriangulationData> visible = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TriangulationIntersection> intersections = new ArrayList<>(result.intersections.size());
+        for (TriangulationWorker.Intersection intersection : result.intersections) {
+            TriangulationData triangulation = intersection.triangulation;
+            Coordinate coordinate = intersection.intersection.intersection;
+            visible.add(triangulation);
+            intersections.add(intersection.intersection);
+            TriangulationOverlay overlay = triangulationOverlays.get(triangulation);
+            if (overlay == null) {
+                overlay = new TriangulationOverlay(triangulation);
+                triangulationLines.add(overlay.arc);
+                triangulationViewers.addItem(overlay.viewer);
+                triangulationOverlays.put(triangulation, overlay);
+                changed = true;
+            } else if (overlay.marker.getPoint().getLatitude() == coordinate.getLat() && overlay.marker.getPoint().getLongitude() == coordinate.getLon()) {
+                continue;
+            } else {
+                triangulationPoints.removeItem(overlay.marker);
+                changed = true;
             }
-            dispatchTriangulationIntersection(intersections);
-            observer = new GeoPoint(sensors.getDeviceLocation().getLatitude(), sensors.getDeviceLocation().getLongitude());
-            if (!markers.isEmpty()) {
-                triangulationPoints = new ItemizedIconOverlay<>(reactContext, markers, null);
-                triangulationViewers = new ItemizedIconOverlay<>(reactContext, viewers, null);
-                //triangulationPoints = new ItemizedIconOverlay<>(markers, ResourcesCompat.getDrawable(getResources(), R.drawable.marker, null), null, null);
-                map.getOverlays().add(triangulationLines);
-                map.getOverlays().add(triangulationPoints);
-                map.getOverlays().add(triangulationViewers);
-            }
-            List<IGeoPoint> bboxPoints = markers.stream().map(OverlayItem::getPoint).collect(Collectors.toList());
-            if (bboxPoints.isEmpty() && animateToIncludeTriangulationPoints) {
-                BoundingBoxCenter bbox = new BoundingBoxCenter(new Coordinate(location.getLatitude(), location.getLongitude()), LocationConstants.OBSERVER_BBOX * 2);
-                mapController.animateTo(observer, map.getZoomLevelDouble(), ORIENTATION_CHANGE_ANIMATION_SPEED, bearing);
-            } else if (animateToIncludeTriangulationPoints) {
-                bboxPoints.add(observer);
-                mapController.animateTo(observer, map.getZoomLevelDouble(), ORIENTATION_CHANGE_ANIMATION_SPEED, bearing);
-                map.zoomToBoundingBox(getPointsBbox(bboxPoints), true, 200, map.getZoomLevelDouble() * 100, ORIENTATION_CHANGE_ANIMATION_SPEED * 5);
-            }
-            map.invalidate();
-            if (!markers.isEmpty()) {
-                markers.clear();
-                viewers.clear();
+            overlay.setMarker(coordinate);
+            triangulationPoints.addItem(overlay.marker);
+        }
+        Iterator<Map.Entry<TriangulationData, TriangulationOverlay>> overlays = triangulationOverlays.entrySet().iterator();
+        while (overlays.hasNext()) {
+            TriangulationOverlay overlay = overlays.next().getValue();
+            if (!visible.contains(overlay.triangulation)) {
+                triangulationLines.remove(overlay.arc);
+                triangulationViewers.removeItem(overlay.viewer);
+                triangulationPoints.removeItem(overlay.marker);
+                overlays.remove();
+                changed = true;
             }
-        } catch (Exception ignored) {}
+        }
+        if (changed) {
+            dispatchTriangulationIntersection(intersections);
+        }
+        if (!triangulationOverlays.isEmpty() && !map.getOverlays().contains(triangulationPoints)) {
+            map.getOverlays().add(triangulationLines);
+            map.getOverlays().add(triangulationPoints);
+            map.getOverlays().add(triangulationViewers);
+        }
+
+        observer = new GeoPoint(result.lat, result.lon);
+        if (triangulationOverlays.isEmpty() && animateToIncludeTriangulationPoints) {
+            mapController.animateTo(observer, map.getZoomLevelDouble(), ORIENTATION_CHANGE_ANIMATION_SPEED, result.bearing);
+        } else if (animateToIncludeTriangulationPoints) {
+            List<IGeoPoint> bboxPoints = triangulationOverlays.values().stream().map(overlay -> overlay.marker.getPoint()).collect(Collectors.toList());
+            bboxPoints.add(observer);
+            mapController.animateTo(observer, map.getZoomLevelDouble(), ORIENTATION_CHANGE_ANIMATION_SPEED, result.bearing);
+            map.zoomToBoundingBox(getPointsBbox(bboxPoints), true, 200, map.getZoomLevelDouble() * 100, ORIENTATION_CHANGE_ANIMATION_SPEED * 5);
+        }
+        map.invalidate();
     }
 
     public void zoomToBoundingBox(Double radiusKm) {
@@ -772,5 +799,33 @@ public class OSMMapView extends LinearLayout implements IOrientationConsumer, Li
 
     @Override
     public void onHostDestroy() {
+        triangulationWorker.stop();
+    }
+
+    private List<GeoPoint> getTriangulationArc(double lat, double lon, double azimuth) {
+        return triangulationArcs.getArc(lat, lon, azimuth, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, arcLevel);
+    }
+
+    private class TriangulationOverlay {
+        private final TriangulationData triangulation;
+        private final Polyline arc;
+        private final OverlayItem viewer;
+        private OverlayItem marker;
+
+        private TriangulationOverlay(TriangulationData triangulation) {
+            this.triangulation = triangulation;
+            arc = new Polyline(map);
+            arc.setPoints(getTriangulationArc(triangulation.getLat(), triangulation.getLon(), triangulation.getAzimuth()));
+            arc.getOutlinePaint().setColor(Color.BLACK);
+            arc.getOutlinePaint().setStrokeWidth(4f);
+            viewer = new OverlayItem("", "", new GeoPoint(triangulation.getLat(), triangulation.getLon()));
+            viewer.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.observer));
+        }
+
+        private void setMarker(Coordinate coordinate) {
+            // Overlay items are immutable, a moved intersection replaces its marker
+            marker = new OverlayItem("", "", new GeoPoint(coordinate.getLat(), coordinate.getLon()));
+            marker.setMarker(ContextCompat.getDrawable(reactContext, R.drawable.marker_small));
+        }
     }
 }
@@ -0,0 +1,204 @@
+package com.geoscene.maps;
+
+import android.util.Log;
+
+import com.geoscene.geography.LocationUtils;
+import com.geoscene.triangulation.GeodesicArcCache;
+import com.geoscene.triangulation.LandmarkClustering;
+import com.geoscene.triangulation.Triangulation;
+import com.geoscene.triangulation.TriangulationData;
+import com.geoscene.triangulation.TriangulationFix;
+import com.geoscene.triangulation.TriangulationIntersection;
+import com.geoscene.triangulation.TriangulationSolver;
+
+import org.osmdroid.util.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+/*
+Resolves the shared triangulations of the map against the observer's line of sight on the computation scheduler.
+Compass updates are sampled at a bounded rate and skipped while the azimuth barely moves, the triangulations near the
+heading are intersected in one batch and the listener is called on the main thread with the latest result only.
+The line of sight is a cached arc simplified for the map zoom level, shared between results.
+Shared observations of one landmark that meet the line of sight at one point are fixed together into a single intersection.
+ */
+public class TriangulationWorker {
+    public static final String TAG = "TRIANGULATION_WORKER";
+    public static final int SAMPLE_MS = 100;
+    // Smaller azimuth changes move the intersections by less than the markers' size
+    public static final double MIN_AZIMUTH_CHANGE = 0.05;
+
+    private final PublishSubject<Request> requests;
+    // Holds the rays of the triangulations last resolved, only touched on the computation scheduler
+    private final TriangulationSolver solver;
+    private List<TriangulationData> solverTriangulations;
+    private final GeodesicArcCache<GeoPoint> lineOfSightArcs;
+    private final LandmarkClustering landmarks;
+    // Only touched on the sampling worker, or before the stream is subscribed
+    private Request lastRequest;
+    private Disposable disposable;
+
+    public TriangulationWorker() {
+        requests = PublishSubject.create();
+        solver = new TriangulationSolver();
+        lineOfSightArcs = new GeodesicArcCache<>(GeoPoint::new);
+        landmarks = new LandmarkClustering();
+    }
+
+    public void start(Consumer<Result> onResult) {
+        stop();
+        lastRequest = null;
+        disposable = requests
+                .sample(SAMPLE_MS, TimeUnit.MILLISECONDS, Schedulers.computation(), true)
+                // Sampling emits on a single computation worker, the filter and the resolution share it
+                .filter(this::hasChanged)
+                .concatMapMaybe(this::tryResolve)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(onResult, e -> Log.e(TAG, "Triangulation failed: " + e.getMessage()));
+    }
+
+    public void submit(double lat, double lon, double azimuth, float bearing, double zoom, List<TriangulationData> triangulations) {
+        if (triangulations != null) {
+            requests.onNext(new Request(lat, lon, azimuth, bearing, zoom, triangulations));
+        }
+    }
+
+    public void stop() {
+        if (disposable != null && !disposable.isDisposed()) {
+            disposable.dispose();
+        }
+        disposable = null;
+    }
+
+    private boolean hasChanged(Request request) {
+        Request last = lastRequest;
+        if (last != null && last.triangulations == request.triangulations && last.lat == request.lat && last.lon == request.lon
+                && GeodesicArcCache.getLevel(last.zoom) == GeodesicArcCache.getLevel(request.zoom) && Math.abs(((last.azimuth - request.azimuth) % 360 + 540) % 360 - 180) < MIN_AZIMUTH_CHANGE) {
+            return false;
+        }
+        lastRequest = request;
+        return true;
+    }
+
+    /**
+     * Resolves the request, a failure is logged and skipped so the stream keeps serving the next requests.
+     */
+    private Maybe<Result> tryResolve(Request request) {
+        try {
+            return Maybe.just(resolve(request));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Triangulation failed: " + e.getMessage());
+            // The rays may be half set, the next request sets them again and is resolved even if unchanged
+            solverTriangulations = null;
+            lastRequest = null;
+            return Maybe.empty();
+        }
+    }
+
+    private Result resolve(Request request) {
+        if (request.triangulations != solverTriangulations) {
+            solver.setRays(request.triangulations);
+            solverTriangulations = request.triangulations;
+        }
+        List<GeoPoint> lineOfSight = lineOfSightArcs.getArc(request.lat, request.lon, request.azimuth, Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5, request.zoom);
+        int[] rays = new int[solver.getRayCount()];
+        double[] coordinates = new double[2 * solver.getRayCount()];
+        int count = solver.triangulateNearby(request.lat, request.lon, request.azimuth, rays, coordinates);
+        double[] lats = new double[count], lons = new double[count], azimuths = new double[count];
+        // Observations named alike are fixed together with the observer's ray where they meet it at one point
+        Map<String, List<Integer>> named = new LinkedHashMap<>();
+        List<List<Integer>> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            TriangulationData triangulation = request.triangulations.get(rays[i]);
+            lats[i] = triangulation.getLat();
+            lons[i] = triangulation.getLon();
+            azimuths[i] = triangulation.getAzimuth();
+            if (triangulation.name != null) {
+                named.computeIfAbsent(triangulation.name, key -> new ArrayList<>()).add(i);
+            } else {
+                groups.add(Collections.singletonList(i));
+            }
+        }
+        for (List<Integer> observations : named.values()) {
+            groups.addAll(observations.size() > 1 ? landmarks.cluster(observations, lats, lons, coordinates) : Collections.singletonList(observations));
+        }
+        List<Intersection> intersections = new ArrayList<>(count);
+        for (List<Integer> observations : groups) {
+            TriangulationFix fix = observations.size() > 1 ? landmarks.fix(request.lat, request.lon, request.azimuth, observations, lats, lons, azimuths) : null;
+            if (fix != null) {
+                TriangulationData triangulation = request.triangulations.get(rays[observations.get(0)]);
+                intersections.add(new Intersection(triangulation, new TriangulationIntersection(triangulation.id, triangulation.name, triangulation.description,
+                        fix.lat, fix.lon, LocationUtils.aerialDistance(request.lat, fix.lat, request.lon, fix.lon)), fix));
+                continue;
+            }
+            for (int i : observations) {
+                double lat = coordinates[2 * i], lon = coordinates[2 * i + 1];
+                TriangulationData triangulation = request.triangulations.get(rays[i]);
+                intersections.add(new Intersection(triangulation, new TriangulationIntersection(triangulation.id, triangulation.name, triangulation.description,
+                        lat, lon, LocationUtils.aerialDistance(request.lat, lat, request.lon, lon)), null));
+            }
+        }
+        return new Result(request, lineOfSight, intersections);
+    }
+
+    private static class Request {
+        private final double lat;
+        private final double lon;
+        private final double azimuth;
+        private final float bearing;
+        private final double zoom;
+        private final List<TriangulationData> triangulations;
+
+        private Request(double lat, double lon, double azimuth, float bearing, double zoom, List<TriangulationData> triangulations) {
+            this.lat = lat;
+            this.lon = lon;
+            this.azimuth = azimuth;
+            this.bearing = bearing;
+            this.zoom = zoom;
+            this.triangulations = triangulations;
+        }
+    }
+
+    public static class Intersection {
+        public final TriangulationData triangulation;
+        public final TriangulationIntersection intersection;
+        // Least squares fix when several observations of the landmark were intersected, null for a single pair
+        public final TriangulationFix fix;
+
+        private Intersection(TriangulationData triangulation, TriangulationIntersection intersection, TriangulationFix fix) {
+            this.triangulation = triangulation;
+            this.intersection = intersection;
+            this.fix = fix;
+        }
+    }
+
+    public static class Result {
+        public final double lat;
+        public final double lon;
+        public final float bearing;
+        public final List<TriangulationData> triangulations;
+        public final List<GeoPoint> lineOfSight;
+        public final List<Intersection> intersections;
+
+        private Result(Request request, List<GeoPoint> lineOfSight, List<Intersection> intersections) {
+            lat = request.lat;
+            lon = request.lon;
+            bearing = request.bearing;
+            triangulations = request.triangulations;
+            this.lineOfSight = lineOfSight;
+            this.intersections = intersections;
+        }
+    }
+}
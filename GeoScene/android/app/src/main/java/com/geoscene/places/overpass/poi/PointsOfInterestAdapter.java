@@ -0,0 +1,155 @@
+package com.geoscene.places.overpass.poi;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.places.fov_analyzer.FOVAnalyzer;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceBounds;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.places.poi.PlaceTags;
+import com.geoscene.region.VisibilityIndex;
+
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+Adapts the Realm points of interest to the plain places of the geospatial core.
+The elements are copied once so the core may read them from any thread, and the visible places
+are mapped back to the Realm elements they were copied from.
+ */
+public class PointsOfInterestAdapter {
+    private final PlaceList places;
+    private final Map<Place, Element> elements;
+
+    public PointsOfInterestAdapter(PointsOfInterest pointsOfInterest) {
+        places = new PlaceList(new ArrayList<>(pointsOfInterest.elements.size()));
+        elements = new IdentityHashMap<>(pointsOfInterest.elements.size());
+        for (Element element : pointsOfInterest.elements) {
+            Place place = toPlace(element);
+            places.elements.add(place);
+            elements.put(place, element);
+        }
+    }
+
+    public PlaceList getPlaces() {
+        return places;
+    }
+
+    public Element getElement(Place place) {
+        return elements.get(place);
+    }
+
+    public List<Pair<Element, Coordinate>> intersectVisiblePlaces(Raster raster, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, boolean showCenter) {
+        return FOVAnalyzer.intersectVisiblePlaces(raster, places, placesTypes, showPlacesApp, showCenter).stream()
+                .map(visible -> new Pair<>(elements.get(visible.getValue0()), visible.getValue1()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Precomputed counterpart of intersectVisiblePlaces, the index must have been built over these points of interest.
+     */
+    public List<Pair<Element, Coordinate>> lookupVisiblePlaces(VisibilityIndex index, int observer, Raster raster, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, boolean showCenter) {
+        return index.getVisiblePlaces(observer, raster, places, placesTypes, showPlacesApp, showCenter).stream()
+                .map(visible -> new Pair<>(elements.get(visible.getValue0()), visible.getValue1()))
+                .collect(Collectors.toList());
+    }
+
+    public static Place toPlace(Element element) {
+        Place place = new Place();
+        place.type = element.type;
+        place.id = element.id;
+        place.lat = element.lat;
+        place.lon = element.lon;
+        if (element.bounds != null) {
+            place.bounds = new PlaceBounds(element.bounds.minlat, element.bounds.minlon, element.bounds.maxlat, element.bounds.maxlon);
+        }
+        if (element.tags != null) {
+            place.tags = toPlaceTags(element.tags);
+        }
+        return place;
+    }
+
+    /**
+     * Realm points of interest of plain places, used to store places read outside the app such as region packages.
+     */
+    public static PointsOfInterest toPointsOfInterest(PlaceList places) {
+        PointsOfInterest pointsOfInterest = new PointsOfInterest();
+        for (Place place : places.elements) {
+            pointsOfInterest.elements.add(toElement(place));
+        }
+        return pointsOfInterest;
+    }
+
+    public static Element toElement(Place place) {
+        Element element = new Element();
+        element.type = place.type;
+        element.id = place.id;
+        element.lat = place.lat;
+        element.lon = place.lon;
+        if (place.bounds != null) {
+            element.bounds = new Bounds();
+            element.bounds.minlat = place.bounds.minlat;
+            element.bounds.minlon = place.bounds.minlon;
+            element.bounds.maxlat = place.bounds.maxlat;
+            element.bounds.maxlon = place.bounds.maxlon;
+        }
+        if (place.tags != null) {
+            element.tags = toTags(place.tags);
+        }
+        return element;
+    }
+
+    private static PlaceTags toPlaceTags(Tags tags) {
+        PlaceTags placeTags = new PlaceTags();
+        placeTags.type = tags.type;
+        placeTags.amenity = tags.amenity;
+        placeTags.place = tags.place;
+        placeTags.natural = tags.natural;
+        placeTags.historic = tags.historic;
+        placeTags.createdBy = tags.createdBy;
+        placeTags.landuse = tags.landuse;
+        placeTags.name = tags.name;
+        placeTags.nameHeb = tags.nameHeb;
+        placeTags.nameEng = tags.nameEng;
+        placeTags.nameAr = tags.nameAr;
+        placeTags.image = tags.image;
+        placeTags.phone = tags.phone;
+        placeTags.contactEmail = tags.contactEmail;
+        placeTags.website = tags.website;
+        placeTags.addressCity = tags.addressCity;
+        placeTags.addressPostCode = tags.addressPostCode;
+        placeTags.addressStreet = tags.addressStreet;
+        placeTags.addressHouseNumber = tags.addressHouseNumber;
+        return placeTags;
+    }
+
+    private static Tags toTags(PlaceTags placeTags) {
+        Tags tags = new Tags();
+        tags.type = placeTags.type;
+        tags.amenity = placeTags.amenity;
+        tags.place = placeTags.place;
+        tags.natural = placeTags.natural;
+        tags.historic = placeTags.historic;
+        tags.createdBy = placeTags.createdBy;
+        tags.landuse = placeTags.landuse;
+        tags.name = placeTags.name;
+        tags.nameHeb = placeTags.nameHeb;
+        tags.nameEng = placeTags.nameEng;
+        tags.nameAr = placeTags.nameAr;
+        tags.image = placeTags.image;
+        tags.phone = placeTags.phone;
+        tags.contactEmail = placeTags.contactEmail;
+        tags.website = placeTags.website;
+        tags.addressCity = placeTags.addressCity;
+        tags.addressPostCode = placeTags.addressPostCode;
+        tags.addressStreet = placeTags.addressStreet;
+        tags.addressHouseNumber = placeTags.addressHouseNumber;
+        return tags;
+    }
+}
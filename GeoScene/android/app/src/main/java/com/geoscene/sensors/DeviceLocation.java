@@ -10,10 +10,10 @@ import android.os.Bundle;
 import android.os.SystemClock;
 import android.util.Log;
 
-import java.util.ArrayList;
 import java.util.Objects;
 
 import com.geoscene.geography.KalmanLatLong;
+import com.geoscene.geography.LocationTrack;
 
 public class DeviceLocation implements LocationListener {
 
@@ -26,11 +26,9 @@ public class DeviceLocation implements LocationListener {
     public Location currentBestLocation;
     public Double currentBestAltitude;
     private boolean isLocationManagerUpdatingLocation;
-    private ArrayList<Location> locationList;
-    private ArrayList<Location> oldLocationList;
-    private ArrayList<Location> noAccuracyLocationList;
-    private ArrayList<Location> inaccurateLocationList;
-    private ArrayList<Location> kalmanNGLocationList;
+    // Accepted fixes and the counts of the rejected ones, bounded however long the session runs
+    private final LocationTrack track = new LocationTrack();
+    private final float[] predictedDelta = new float[1];
     private float currentSpeed = 0.0f; // meters/second
     private KalmanLatLong kalmanFilter;
     private int gpsCount = 0;
@@ -42,11 +40,6 @@ public class DeviceLocation implements LocationListener {
     public DeviceLocation(Context context) {
         this.context = context.getApplicationContext();
         isLocationManagerUpdatingLocation = false;
-        locationList = new ArrayList<>();
-        noAccuracyLocationList = new ArrayList<>();
-        oldLocationList = new ArrayList<>();
-        inaccurateLocationList = new ArrayList<>();
-        kalmanNGLocationList = new ArrayList<>();
         kalmanFilter = new KalmanLatLong(3);
         currentBestAltitude = null;
 
@@ -96,12 +89,7 @@ public class DeviceLocation implements LocationListener {
             isLocationManagerUpdatingLocation = true;
             runStartTimeInMillis = (long) (SystemClock.elapsedRealtimeNanos() / 1000000);
 
-            locationList.clear();
-
-            oldLocationList.clear();
-            noAccuracyLocationList.clear();
-            inaccurateLocationList.clear();
-            kalmanNGLocationList.clear();
+            track.clear();
 
             LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
             LocationProvider gpsLocationProvider = locationManager.getProvider(LocationManager.GPS_PROVIDER);
@@ -167,13 +155,13 @@ public class DeviceLocation implements LocationListener {
 
         if (age > 5 * 1000) { //more than 5 seconds
             Log.d(TAG, "Location is old");
-            oldLocationList.add(location);
+            track.reject(LocationTrack.Rejection.OLD);
             return false;
         }
 
         if (location.getAccuracy() <= 0) {
             Log.d(TAG, "Latitidue and longitude values are invalid.");
-            noAccuracyLocationList.add(location);
+            track.reject(LocationTrack.Rejection.NO_ACCURACY);
             return false;
         }
 
@@ -181,7 +169,7 @@ public class DeviceLocation implements LocationListener {
         float horizontalAccuracy = location.getAccuracy();
         if (horizontalAccuracy > getMinimumAccuracy()) { // 10meter filter
             Log.d(TAG, "Accuracy is too low.");
-            inaccurateLocationList.add(location);
+            track.reject(LocationTrack.Rejection.INACCURATE);
             return false;
         }
 
@@ -201,10 +189,8 @@ public class DeviceLocation implements LocationListener {
         double predictedLat = kalmanFilter.get_lat();
         double predictedLng = kalmanFilter.get_lng();
 
-        Location predictedLocation = new Location("");//provider name is unecessary
-        predictedLocation.setLatitude(predictedLat);//your coords of course
-        predictedLocation.setLongitude(predictedLng);
-        float predictedDeltaInMeters = predictedLocation.distanceTo(location);
+        Location.distanceBetween(predictedLat, predictedLng, location.getLatitude(), location.getLongitude(), predictedDelta);
+        float predictedDeltaInMeters = predictedDelta[0];
 
         if (predictedDeltaInMeters > 60) {
             Log.d(TAG, "Kalman Filter detects mal GPS, we should probably remove this from track");
@@ -214,7 +200,7 @@ public class DeviceLocation implements LocationListener {
                 kalmanFilter = new KalmanLatLong(3); //reset Kalman Filter if it rejects more than 3 times in raw.
             }
 
-            kalmanNGLocationList.add(location);
+            track.reject(LocationTrack.Rejection.KALMAN);
             return false;
         } else {
             kalmanFilter.consecutiveRejectCount = 0;
@@ -222,9 +208,13 @@ public class DeviceLocation implements LocationListener {
 
 
         Log.d(TAG, "Location quality is good enough.");
+        // A new location per accepted fix, the markers cache their distance by the location instance
+        Location predictedLocation = new Location("");//provider name is unecessary
+        predictedLocation.setLatitude(predictedLat);//your coords of course
+        predictedLocation.setLongitude(predictedLng);
         currentBestLocation = predictedLocation;
         currentSpeed = location.getSpeed();
-        locationList.add(location);
+        track.add(locationTimeInMillis, location.getLatitude(), location.getLongitude(), location.getAccuracy(), location.getSpeed());
 
         performLocationEvents();
 
@@ -241,6 +231,13 @@ public class DeviceLocation implements LocationListener {
         return currentBestLocation;
     }
 
+    /**
+     * Accepted fixes of the session, times in elapsed realtime milliseconds.
+     */
+    public LocationTrack getTrack() {
+        return track;
+    }
+
 
     public void setLocationEvent(Runnable event) {
         locationEvents = event;
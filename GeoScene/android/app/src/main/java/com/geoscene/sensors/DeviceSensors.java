@@ -3,10 +3,13 @@ package com.geoscene.sensors;
 import android.hardware.GeomagneticField;
 import android.location.Location;
 
+import com.geoscene.geography.LocationTrack;
+
 import org.javatuples.Pair;
 
 public interface DeviceSensors {
     Location getDeviceLocation();
+    LocationTrack getLocationTrack();
     double getDeviceAltitude();
     Pair<Integer, Integer> getDeviceOrientation();
     float getOrientation();
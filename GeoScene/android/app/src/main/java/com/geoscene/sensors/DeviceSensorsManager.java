@@ -6,6 +6,8 @@ import android.hardware.SensorEventListener;
 import android.location.Location;
 import android.location.LocationListener;
 
+import com.geoscene.geography.LocationTrack;
+
 import org.javatuples.Pair;
 
 public class DeviceSensorsManager implements DeviceSensors {
@@ -35,6 +37,11 @@ public class DeviceSensorsManager implements DeviceSensors {
         return location.getDeviceLocation();
     }
 
+    @Override
+    public LocationTrack getLocationTrack() {
+        return location.getTrack();
+    }
+
     @Override
     public double getDeviceAltitude() {
         Double altitude = location.getAltitude();
@@ -0,0 +1,29 @@
+package com.geoscene.tracing;
+
+import android.os.Debug;
+
+/*
+Reads the traced resource counters from the Android runtime.
+ART only counts allocations for the whole process, so stages running concurrently share their allocation figures.
+ */
+public class AndroidResourceProbe implements ResourceProbe {
+    private static final String BYTES_ALLOCATED_STAT = "art.gc.bytes-allocated";
+
+    @Override
+    public long threadCpuTimeNanos() {
+        return Debug.threadCpuTimeNanos();
+    }
+
+    @Override
+    public long allocatedBytes() {
+        String allocated = Debug.getRuntimeStat(BYTES_ALLOCATED_STAT);
+        if (allocated == null) {
+            return UNAVAILABLE;
+        }
+        try {
+            return Long.parseLong(allocated);
+        } catch (NumberFormatException e) {
+            return UNAVAILABLE;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.geoscene.tracing.modules;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.geoscene.tracing.Tracer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class TracingModule extends ReactContextBaseJavaModule {
+
+    private static final String TAG = "Tracing";
+    private static final String EXPORT_PREFIX = "geoscene-traces-";
+    private final ReactApplicationContext reactContext;
+
+    public TracingModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return TAG;
+    }
+
+    /**
+     * Resolves the buffered load stage traces as a JSON string of {capacity, dropped, traces}.
+     */
+    @ReactMethod
+    public void getTraces(Promise promise) {
+        promise.resolve(Tracer.getBuffer().toJson());
+    }
+
+    @ReactMethod
+    public void clearTraces() {
+        Tracer.getBuffer().clear();
+    }
+
+    /**
+     * Resolves the AR frame time histograms as a JSON string of {frames, work}, the intervals between frames
+     * and the time spent on the work scheduled on them, in milliseconds.
+     */
+    @ReactMethod
+    public void getFrameTimes(Promise promise) {
+        promise.resolve(Tracer.frameTimesToJson());
+    }
+
+    @ReactMethod
+    public void clearFrameTimes() {
+        Tracer.clearFrameTimes();
+    }
+
+    /**
+     * Writes the buffered traces to a JSON file in the app files directory and resolves its path.
+     */
+    @ReactMethod
+    public void exportTraces(Promise promise) {
+        File directory = reactContext.getExternalFilesDir(null);
+        File file = new File(directory != null ? directory : reactContext.getFilesDir(), EXPORT_PREFIX + System.currentTimeMillis() + ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+            writer.write(Tracer.getBuffer().toJson());
+            promise.resolve(file.getAbsolutePath());
+        } catch (IOException e) {
+            promise.reject(TAG, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.geoscene.tracing.modules;
+
+import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.uimanager.ViewManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@SuppressWarnings("unused")
+public class TracingPackage implements ReactPackage {
+
+    public TracingPackage() {
+    }
+
+    /**
+     * @param reactContext react application context that can be used to create modules
+     * @return list of native modules to register with the newly created catalyst instance
+     */
+    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
+        List<NativeModule> modules = new ArrayList<>();
+        modules.add(new TracingModule(reactContext));
+        return modules;
+    }
+
+    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.geoscene.viewshed;
+
+import android.location.Location;
+import android.util.Log;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.sensors.DeviceLocationChanged;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+/*
+Feeds filtered device locations into an IncrementalViewShed on the computation scheduler.
+Bursts of location updates are debounced so only the settled position is traced, and the
+listener is called on the main thread only when the viewshed actually changed, with the result
+of an analysis of the updated raster that also runs on the computation scheduler.
+ */
+public class ViewShedService implements DeviceLocationChanged {
+    public static final String TAG = "VIEWSHED_SERVICE";
+    public static final int DEBOUNCE_MS = 1500;
+
+    private final IncrementalViewShed incrementalViewShed;
+    private final PublishSubject<Location> locations;
+    private Disposable disposable;
+
+    public ViewShedService(Raster raster, double observerLat, double observerLon) {
+        incrementalViewShed = new IncrementalViewShed(raster, raster.getViewshed(), observerLat, observerLon);
+        locations = PublishSubject.create();
+    }
+
+    public <T> void start(Function<Raster, T> analyze, Consumer<T> onViewshedChanged) {
+        stop();
+        disposable = locations
+                .debounce(DEBOUNCE_MS, TimeUnit.MILLISECONDS, Schedulers.computation())
+                .observeOn(Schedulers.computation())
+                .concatMapMaybe(location -> tryUpdate(location, analyze))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(onViewshedChanged, e -> Log.e(TAG, "Viewshed update failed: " + e.getMessage()));
+    }
+
+    /**
+     * Updates the viewshed and analyzes the raster, empty when the observer stayed in its cell.
+     * A failure or a null analysis is logged and skipped so the stream keeps serving the next locations.
+     */
+    private <T> Maybe<T> tryUpdate(Location location, Function<Raster, T> analyze) {
+        try {
+            if (!incrementalViewShed.update(location.getLatitude(), location.getLongitude())) {
+                return Maybe.empty();
+            }
+            T result = analyze.apply(incrementalViewShed.getRaster());
+            if (result == null) {
+                Log.w(TAG, "Viewshed analysis returned no result");
+                return Maybe.empty();
+            }
+            return Maybe.just(result);
+        } catch (Throwable e) {
+            Log.e(TAG, "Viewshed update failed: " + e.getMessage());
+            return Maybe.empty();
+        }
+    }
+
+    @Override
+    public void onChange(Location location) {
+        if (location != null) {
+            locations.onNext(location);
+        }
+    }
+
+    public void stop() {
+        if (disposable != null && !disposable.isDisposed()) {
+            disposable.dispose();
+        }
+        disposable = null;
+    }
+
+    public IncrementalViewShed getIncrementalViewShed() {
+        return incrementalViewShed;
+    }
+}
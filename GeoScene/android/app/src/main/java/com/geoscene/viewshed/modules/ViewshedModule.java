@@ -0,0 +1,109 @@
+package com.geoscene.viewshed.modules;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.geoscene.data_access.CacheManager;
+import com.geoscene.data_access.PersistLocationObject;
+import com.geoscene.elevation.Elevation;
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.viewshed.CumulativeViewShed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class ViewshedModule extends ReactContextBaseJavaModule {
+
+    private static final String TAG = "Viewshed";
+    private final ReactApplicationContext reactContext;
+    private final CompositeDisposable disposable;
+
+    public ViewshedModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.disposable = new CompositeDisposable();
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return TAG;
+    }
+
+    /**
+     * Cumulative viewshed of several lookout points over the area around a center.
+     * Expects {latitude, longitude, radius, observers: [{latitude, longitude}]} and resolves
+     * the visible cell count of each observer and how many cells are seen by 1..N observers.
+     */
+    @ReactMethod
+    public void cumulativeViewshed(ReadableMap data, Promise promise) {
+        Coordinate center = new Coordinate(data.getDouble("latitude"), data.getDouble("longitude"));
+        int radiusKM = data.getInt("radius");
+        ReadableArray observersData = data.getArray("observers");
+        List<Coordinate> observers = new ArrayList<>();
+        if (observersData != null) {
+            for (int i = 0; i < observersData.size(); ++i) {
+                ReadableMap observer = observersData.getMap(i);
+                observers.add(new Coordinate(observer.getDouble("latitude"), observer.getDouble("longitude")));
+            }
+        }
+
+        BoundingBoxCenter bbox = new BoundingBoxCenter(center, radiusKM);
+        PersistLocationObject cachedLocationInfo = CacheManager.fetchFromCache(bbox);
+        Single<Raster> raster = cachedLocationInfo != null ?
+                Single.fromCallable(() -> cachedLocationInfo.getRaster(reactContext)) :
+                new Elevation().fetchElevationRaster(center, radiusKM, false);
+
+        disposable.add(raster
+                .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.computation())
+                .map(r -> CumulativeViewShed.calculate(r, observers))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        cumulative -> promise.resolve(toWritableMap(cumulative)),
+                        throwable -> promise.reject(TAG, throwable.getMessage())
+                ));
+    }
+
+    private static WritableMap toWritableMap(CumulativeViewShed cumulative) {
+        WritableArray visibleCells = Arguments.createArray();
+        for (int observer = 0; observer < cumulative.getObserverCount(); ++observer) {
+            visibleCells.pushInt(cumulative.getVisibleCellCount(observer));
+        }
+        int[] overlap = new int[cumulative.getObserverCount() + 1];
+        for (int count : cumulative.getCounts()) {
+            ++overlap[count];
+        }
+        WritableArray cellsByObserverCount = Arguments.createArray();
+        for (int count = 1; count < overlap.length; ++count) {
+            cellsByObserverCount.pushInt(overlap[count]);
+        }
+        WritableMap response = Arguments.createMap();
+        response.putInt("cols", cumulative.getCols());
+        response.putInt("rows", cumulative.getRows());
+        response.putInt("coveredCells", cumulative.getCoveredCellCount());
+        response.putArray("visibleCells", visibleCells);
+        response.putArray("cellsByObserverCount", cellsByObserverCount);
+        return response;
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        disposable.dispose();
+    }
+}
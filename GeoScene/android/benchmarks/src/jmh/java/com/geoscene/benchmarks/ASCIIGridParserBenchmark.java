@@ -0,0 +1,38 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.ASCIIGridParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ASCIIGridParserBenchmark {
+    @Param({"raster10.asc", "raster11.asc", "raster4.asc"})
+    public String raster;
+
+    // The response body is read up front so only parsing is measured and not the disk
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = Fixtures.readRasterBytes(raster);
+    }
+
+    @Benchmark
+    public Raster parse() throws IOException {
+        return ASCIIGridParser.parseASCIIGrid(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,39 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.viewshed.Cell;
+import com.geoscene.viewshed.algorithms.BresenhamCircle;
+import com.geoscene.viewshed.algorithms.BresenhamLine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BresenhamBenchmark {
+    // Radius in cells of the perimeter traced by the viewshed, a 1000x1000 raster has a radius of ~500
+    @Param({"100", "500"})
+    public int radius;
+
+    @Benchmark
+    public List<Cell> circle() {
+        return BresenhamCircle.calculateBresenhamCircle(radius, radius, 2 * radius + 1, 2 * radius + 1, radius);
+    }
+
+    @Benchmark
+    public void perimeterLines(Blackhole blackhole) {
+        // Every line of a viewshed, from the center to each perimeter cell
+        for (Cell cell : BresenhamCircle.calculateBresenhamCircle(radius, radius, 2 * radius + 1, 2 * radius + 1, radius)) {
+            blackhole.consume(BresenhamLine.calculateBresenhamLine(radius, radius, (int) cell.getX(), (int) cell.getY()));
+        }
+    }
+}
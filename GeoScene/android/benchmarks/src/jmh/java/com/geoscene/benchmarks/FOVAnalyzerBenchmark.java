@@ -0,0 +1,59 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.places.fov_analyzer.FOVAnalyzer;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.viewshed.ViewShed;
+
+import org.javatuples.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FOVAnalyzerBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int places;
+
+    private Raster raster;
+    private Raster rasterWithoutViewshed;
+    private PlaceList placeList;
+    private Map<String, HashSet<String>> placesTypes;
+
+    @Setup
+    public void setUp() throws IOException {
+        raster = Fixtures.loadRaster("raster10.asc");
+        raster.setBoundingBox(Fixtures.getBoundingBox(raster));
+        Coordinate observer = Fixtures.getCenter(raster);
+        raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, observer.getLat(), observer.getLon()));
+        rasterWithoutViewshed = Fixtures.loadRaster("raster10.asc");
+        rasterWithoutViewshed.setBoundingBox(raster.getBbox());
+        placeList = Fixtures.createPlaces(raster.getBbox(), places);
+        placesTypes = Fixtures.createPlacesTypes();
+    }
+
+    @Benchmark
+    public List<Pair<Place, Coordinate>> visiblePlaces() {
+        return FOVAnalyzer.intersectVisiblePlaces(raster, placeList, placesTypes, true, false);
+    }
+
+    @Benchmark
+    public List<Pair<Place, Coordinate>> placesWithoutViewshed() {
+        return FOVAnalyzer.intersectVisiblePlaces(rasterWithoutViewshed, placeList, placesTypes, true, false);
+    }
+}
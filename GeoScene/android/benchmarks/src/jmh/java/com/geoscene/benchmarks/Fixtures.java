@@ -0,0 +1,109 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.ASCIIGridParser;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.places.poi.PlaceList;
+import com.google.gson.Gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/*
+Shared inputs of the benchmarks: the .asc rasters of ViewShed-Visualize and synthetic Overpass responses.
+The fixture directory is passed by the build through the geoscene.fixtures system property.
+ */
+final class Fixtures {
+    static final String FIXTURES_PROPERTY = "geoscene.fixtures";
+    static final long SEED = 42;
+
+    static final String[] PLACES = {"city", "town", "village", "hamlet"};
+    static final String[] NATURAL = {"peak", "hill", "volcano", "ridge", "valley"};
+    static final String[] HISTORIC = {"castle", "ruins", "monument", "archaeological_site"};
+
+    private Fixtures() { }
+
+    static byte[] readRasterBytes(String name) throws IOException {
+        String directory = System.getProperty(FIXTURES_PROPERTY, "../../ViewShed-Visualize/viewshed_visualize2");
+        return Files.readAllBytes(new File(directory, name).toPath());
+    }
+
+    static Raster loadRaster(String name) throws IOException {
+        return ASCIIGridParser.parseASCIIGrid(new ByteArrayInputStream(readRasterBytes(name)));
+    }
+
+    static Coordinate getCenter(Raster raster) {
+        double cellSize = raster.getCellSize();
+        return new Coordinate(raster.getyLowerLeftCorner() + raster.getRows() * cellSize / 2,
+                raster.getxLowerLeftCorner() + raster.getCols() * cellSize / 2);
+    }
+
+    /**
+     * Bounding box of the raster around its center, as set by the app after fetching the elevation data.
+     */
+    static BoundingBoxCenter getBoundingBox(Raster raster) {
+        double halfSideKm = raster.getRows() * raster.getCellSize() * 111.32 / 2;
+        return new BoundingBoxCenter(getCenter(raster), halfSideKm);
+    }
+
+    /**
+     * Overpass API JSON response of nodes and ways with bounds, spread uniformly over the bounding box.
+     */
+    static String createOverpassJson(BoundingBoxCenter bbox, int count) {
+        Random random = new Random(SEED);
+        double latSpan = bbox.getNorth() - bbox.getSouth();
+        double lonSpan = bbox.getEast() - bbox.getWest();
+        StringBuilder json = new StringBuilder("{\"version\":0.6,\"elements\":[");
+        for (int i = 0; i < count; ++i) {
+            double lat = bbox.getSouth() + random.nextDouble() * latSpan;
+            double lon = bbox.getWest() + random.nextDouble() * lonSpan;
+            boolean way = random.nextInt(4) == 0;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"type\":\"").append(way ? "way" : "node").append("\",\"id\":").append(i);
+            if (way) {
+                double extent = random.nextDouble() * latSpan / 20;
+                json.append(String.format(Locale.US, ",\"bounds\":{\"minlat\":%.7f,\"minlon\":%.7f,\"maxlat\":%.7f,\"maxlon\":%.7f}",
+                        lat - extent, lon - extent, lat + extent, lon + extent));
+            } else {
+                json.append(String.format(Locale.US, ",\"lat\":%.7f,\"lon\":%.7f", lat, lon));
+            }
+            json.append(",\"tags\":{\"name\":\"Place ").append(i).append('"');
+            switch (random.nextInt(3)) {
+                case 0:
+                    json.append(",\"place\":\"").append(PLACES[random.nextInt(PLACES.length)]).append('"');
+                    break;
+                case 1:
+                    json.append(",\"natural\":\"").append(NATURAL[random.nextInt(NATURAL.length)]).append('"');
+                    break;
+                default:
+                    json.append(",\"historic\":\"").append(HISTORIC[random.nextInt(HISTORIC.length)]).append('"');
+                    break;
+            }
+            json.append("}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static PlaceList createPlaces(BoundingBoxCenter bbox, int count) {
+        return new Gson().fromJson(createOverpassJson(bbox, count), PlaceList.class);
+    }
+
+    static Map<String, HashSet<String>> createPlacesTypes() {
+        Map<String, HashSet<String>> types = new HashMap<>();
+        types.put("place", new HashSet<>(Arrays.asList(PLACES)));
+        types.put("natural", new HashSet<>(Arrays.asList(NATURAL)));
+        types.put("historic", new HashSet<>(Arrays.asList(HISTORIC)));
+        return types;
+    }
+}
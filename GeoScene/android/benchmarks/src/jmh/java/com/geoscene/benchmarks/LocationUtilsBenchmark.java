@@ -0,0 +1,56 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.geography.LocationUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocationUtilsBenchmark {
+    private static final int POINTS = 1024;
+
+    private final double[] lats = new double[POINTS];
+    private final double[] lons = new double[POINTS];
+    private final double[] elevations = new double[POINTS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 0; i < POINTS; ++i) {
+            lats[i] = 31.5 + random.nextDouble();
+            lons[i] = 34.5 + random.nextDouble();
+            elevations[i] = random.nextDouble() * 1000;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double distance() {
+        double total = 0;
+        for (int i = 1; i < POINTS; ++i) {
+            total += LocationUtils.distance(lats[i - 1], lats[i], lons[i - 1], lons[i], elevations[i - 1], elevations[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double aerialDistance() {
+        double total = 0;
+        for (int i = 1; i < POINTS; ++i) {
+            total += LocationUtils.aerialDistance(lats[i - 1], lats[i], lons[i - 1], lons[i]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,76 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.geography.Coordinate;
+import com.geoscene.triangulation.Triangulation;
+import com.geoscene.triangulation.TriangulationSolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TriangulationBenchmark {
+    private static final int PAIRS = 64;
+
+    // Pairs of observers a few kilometres apart looking at a common target, {lat0, lon0, azi0, lat1, lon1, azi1}
+    private final double[][] rays = new double[PAIRS][];
+    // The second ray of every pair stored in a solver, triangulated against the first observer's ray
+    private final TriangulationSolver solver = new TriangulationSolver();
+    private final double[] intersections = new double[2 * PAIRS];
+    private final int[] intersected = new int[PAIRS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 0; i < PAIRS; ++i) {
+            double lat0 = 31.5 + random.nextDouble(), lon0 = 34.5 + random.nextDouble();
+            double lat1 = lat0 + (random.nextDouble() - 0.5) * 0.05, lon1 = lon0 + (random.nextDouble() - 0.5) * 0.05;
+            double targetLat = lat0 + (random.nextDouble() - 0.5) * 0.3, targetLon = lon0 + (random.nextDouble() - 0.5) * 0.3;
+            rays[i] = new double[]{lat0, lon0, azimuth(lat0, lon0, targetLat, targetLon), lat1, lon1, azimuth(lat1, lon1, targetLat, targetLon)};
+        }
+        double[] lats = new double[PAIRS], lons = new double[PAIRS], azimuths = new double[PAIRS];
+        for (int i = 0; i < PAIRS; ++i) {
+            lats[i] = rays[i][3];
+            lons[i] = rays[i][4];
+            azimuths[i] = rays[i][5];
+        }
+        solver.setRays(lats, lons, azimuths);
+    }
+
+    private static double azimuth(double lat0, double lon0, double lat1, double lon1) {
+        double dx = (lon1 - lon0) * Math.cos(Math.toRadians(lat0));
+        return Math.toDegrees(Math.atan2(dx, lat1 - lat0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void triangulate(Blackhole blackhole) {
+        for (double[] ray : rays) {
+            Coordinate target = Triangulation.triangulate(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]);
+            blackhole.consume(target);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int triangulateAll() {
+        return solver.triangulateAll(rays[0][0], rays[0][1], rays[0][2], intersections);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int triangulateNearby() {
+        return solver.triangulateNearby(rays[0][0], rays[0][1], rays[0][2], intersected, intersections);
+    }
+}
@@ -0,0 +1,52 @@
+package com.geoscene.benchmarks;
+
+import com.geoscene.elevation.ElevationInterpolation;
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.viewshed.ViewShed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ViewShedBenchmark {
+    @Param({"raster10.asc", "raster4.asc", "raster12.asc"})
+    public String raster;
+
+    private Raster elevations;
+    private Coordinate observer;
+
+    @Setup
+    public void setUp() throws IOException {
+        elevations = Fixtures.loadRaster(raster);
+        observer = Fixtures.getCenter(elevations);
+    }
+
+    @Benchmark
+    public CellType[][] legacy() {
+        return ViewShed.calculateViewshed(elevations, observer.getLat(), observer.getLon());
+    }
+
+    @Benchmark
+    public CellType[][] bilinear() {
+        return ViewShed.calculateViewshed(elevations, observer.getLat(), observer.getLon(), ElevationInterpolation.BILINEAR,
+                ViewShed.CURVATURE_CORRECTION, ViewShed.OBSERVER_HEIGHT, ViewShed.TARGET_HEIGHT);
+    }
+
+    @Benchmark
+    public CellType[][] adaptive() {
+        return ViewShed.calculateAdaptiveViewshed(elevations, observer.getLat(), observer.getLon());
+    }
+}
@@ -0,0 +1,234 @@
+package com.geoscene.cli;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.ASCIIGridParser;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.logging.Log;
+import com.geoscene.logging.Logger;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.region.RegionPackage;
+import com.geoscene.region.VisibilityIndex;
+import com.google.gson.Gson;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/*
+Command line batch tool that precomputes a region package from local files, with no network access.
+Reads an ASCII grid DEM and an Overpass JSON dump of the region, runs the viewshed and field of view
+analysis from a grid (or list) of observer points in parallel and writes a package the app imports.
+ */
+public class RegionPrecompute {
+    public static final String TAG = "REGION_PRECOMPUTE";
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: geoscene-precompute --dem <area.asc> --pois <overpass.json> --out <area" + RegionPackage.FILE_EXTENSION + "> [options]",
+            "  --name <name>              name of the stored location (default: output file name)",
+            "  --description <text>       description of the stored location",
+            "  --stride <cells>           spacing of the observer grid in raster cells (default " + VisibilityIndex.DEFAULT_STRIDE_CELLS + ")",
+            "  --observers <file>         observer points, one 'lat,lon' per line, instead of the grid",
+            "  --center <lat,lon>         center of the region (default: raster center)",
+            "  --radius-km <km>           side of the region in km as used by the app (default: raster extent)",
+            "  --types <key=a,b;key=c>    place types to index (default: the app categories)",
+            "  --no-app-places            do not index places created in GeoScene",
+            "  --threads <n>              worker threads (default: available processors)",
+            "  --verbose                  log the core messages");
+
+    // Place types the app queries from Overpass
+    static final Map<String, HashSet<String>> DEFAULT_PLACES_TYPES = VisibilityIndex.createDefaultPlacesTypes();
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            System.err.println("Precompute failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static int run(String[] args) throws IOException, InterruptedException, ExecutionException {
+        Map<String, String> options = parseOptions(args);
+        if (options.containsKey("help")) {
+            System.out.println(USAGE);
+            return 0;
+        }
+        File dem = new File(require(options, "dem"));
+        File pois = new File(require(options, "pois"));
+        File out = new File(require(options, "out"));
+        if (options.containsKey("verbose")) {
+            Log.setLogger(Logger.CONSOLE);
+        }
+
+        long start = System.currentTimeMillis();
+        Raster raster;
+        try (InputStream stream = new FileInputStream(dem)) {
+            raster = ASCIIGridParser.parseASCIIGrid(stream);
+        }
+        PlaceList places;
+        try (Reader reader = new InputStreamReader(new FileInputStream(pois), UTF_8)) {
+            places = new Gson().fromJson(reader, PlaceList.class);
+        }
+        if (places == null || places.elements == null) {
+            throw new IOException("No Overpass elements in " + pois);
+        }
+        BoundingBoxCenter bbox = getBoundingBox(raster, options);
+        raster.setBoundingBox(bbox);
+        Map<String, HashSet<String>> placesTypes = options.containsKey("types") ? parseTypes(options.get("types")) : DEFAULT_PLACES_TYPES;
+        boolean showPlacesApp = !options.containsKey("no-app-places");
+        System.out.printf(Locale.US, "Loaded %dx%d raster and %d places in %d ms%n",
+                raster.getCols(), raster.getRows(), places.elements.size(), System.currentTimeMillis() - start);
+
+        int threads = options.containsKey("threads") ? parsePositive(options.get("threads"), "threads") : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        start = System.currentTimeMillis();
+        VisibilityIndex index;
+        try {
+            // Parallel streams of the core run in the pool they are started from
+            if (options.containsKey("observers")) {
+                int[][] cells = readObservers(new File(options.get("observers")), raster);
+                index = pool.submit(() -> VisibilityIndex.build(raster, places, placesTypes, showPlacesApp, cells[0], cells[1])).get();
+            } else {
+                int stride = options.containsKey("stride") ? parsePositive(options.get("stride"), "stride") : VisibilityIndex.DEFAULT_STRIDE_CELLS;
+                index = pool.submit(() -> VisibilityIndex.buildGrid(raster, places, placesTypes, showPlacesApp, stride)).get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.printf(Locale.US, "Analyzed %d observers on %d threads in %d ms (%.1f ms per observer)%n",
+                index.getObserverCount(), threads, elapsed, (double) elapsed / Math.max(1, index.getObserverCount()));
+
+        String name = options.getOrDefault("name", out.getName().replaceFirst("\\.[^.]*$", ""));
+        RegionPackage region = new RegionPackage(name, options.get("description"), bbox, raster, places, placesTypes, showPlacesApp, index);
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(out))) {
+            region.write(stream);
+        }
+        System.out.printf(Locale.US, "Wrote %s (%d KB)%n", out, Files.size(out.toPath()) / 1024);
+        return 0;
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            String key = args[i].substring(2);
+            boolean flag = key.equals("help") || key.equals("verbose") || key.equals("no-app-places");
+            if (flag) {
+                options.put(key, "");
+            } else if (i + 1 < args.length) {
+                options.put(key, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value of --" + key);
+            }
+        }
+        return options;
+    }
+
+    private static String require(Map<String, String> options, String key) {
+        String value = options.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + key);
+        }
+        return value;
+    }
+
+    private static int parsePositive(String value, String name) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("--" + name + " must be a positive integer");
+    }
+
+    private static Coordinate parseCoordinate(String value) {
+        String[] latLon = value.split(",");
+        if (latLon.length != 2) {
+            throw new IllegalArgumentException("Expected 'lat,lon' but got " + value);
+        }
+        return new Coordinate(Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim()));
+    }
+
+    /**
+     * Region of the app for the raster, the app fetches a raster spanning radiusKM around the observer.
+     */
+    static BoundingBoxCenter getBoundingBox(Raster raster, Map<String, String> options) {
+        double cellSize = raster.getCellSize();
+        Coordinate center = options.containsKey("center") ? parseCoordinate(options.get("center")) :
+                new Coordinate(raster.getyLowerLeftCorner() + raster.getRows() * cellSize / 2, raster.getxLowerLeftCorner() + raster.getCols() * cellSize / 2);
+        double radiusKM = options.containsKey("radius-km") ? Double.parseDouble(options.get("radius-km")) : raster.getRows() * cellSize * KM_PER_DEGREE;
+        return new BoundingBoxCenter(center, radiusKM);
+    }
+
+    static Map<String, HashSet<String>> parseTypes(String value) {
+        Map<String, HashSet<String>> types = new HashMap<>();
+        for (String key : DEFAULT_PLACES_TYPES.keySet()) {
+            types.put(key, new HashSet<>());
+        }
+        for (String entry : value.split(";")) {
+            String[] keyValues = entry.split("=", 2);
+            if (keyValues.length != 2 || !types.containsKey(keyValues[0].trim())) {
+                throw new IllegalArgumentException("Place types are 'place=..;natural=..;historic=..' but got " + entry);
+            }
+            for (String type : keyValues[1].split(",")) {
+                types.get(keyValues[0].trim()).add(type.trim());
+            }
+        }
+        return types;
+    }
+
+    private static int[][] readObservers(File file, Raster raster) throws IOException {
+        List<int[]> cells = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Coordinate observer = parseCoordinate(line);
+                int x = (int) Math.round(raster.getFractionalCol(observer.getLon()));
+                int y = (int) Math.round(raster.getFractionalRow(observer.getLat()));
+                if (x < 0 || y < 0 || x >= raster.getCols() || y >= raster.getRows()) {
+                    throw new IllegalArgumentException("Observer " + line + " is outside the raster");
+                }
+                cells.add(new int[]{x, y});
+            }
+        }
+        int[][] observers = new int[2][cells.size()];
+        for (int i = 0; i < cells.size(); ++i) {
+            observers[0][i] = cells.get(i)[0];
+            observers[1][i] = cells.get(i)[1];
+        }
+        return observers;
+    }
+}
@@ -0,0 +1,7 @@
+package com.geoscene.elevation;
+
+public enum ElevationInterpolation {
+    NEAREST,
+    BILINEAR,
+    BICUBIC
+}
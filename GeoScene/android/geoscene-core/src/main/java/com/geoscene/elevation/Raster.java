@@ -0,0 +1,331 @@
+package com.geoscene.elevation;
+
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+
+import org.javatuples.Pair;
+
+public class Raster {
+
+    private int cols;
+    private int rows;
+    private double xLowerLeftCorner;
+    private double yLowerLeftCorner;
+    private double cellSize;
+    BoundingBoxCenter bbox;
+
+    private int[][] elevations;
+    private volatile CellType[][] viewshed;
+
+    // Cell center latitude per row and longitude per column, so hot loops avoid Coordinate allocations.
+    // Cell (x, y) spans [x, x + 1) columns east of the lower left corner and [y, y + 1) rows south of the top edge,
+    // its center is the integer position (x, y) of the fractional transforms
+    private double[] rowLatitudes;
+    private double[] colLongitudes;
+
+    // Max-pooled pyramid, level 0 is the raster itself and each level halves the resolution
+    public static final int MAX_PYRAMID_LEVELS = 6;
+    private int[][][] pyramid;
+
+    public Raster(int cols, int rows, double xLowerLeftCorner, double yLowerLeftCorner, double cellSize, int[][] elevations) {
+        this.cols = cols;
+        this.rows = rows;
+        this.xLowerLeftCorner = xLowerLeftCorner;
+        this.yLowerLeftCorner = yLowerLeftCorner;
+        this.cellSize = cellSize;
+        this.elevations = elevations;
+        initCoordinateTables();
+    }
+
+    private void initCoordinateTables() {
+        rowLatitudes = new double[rows];
+        colLongitudes = new double[cols];
+        for (int y = 0; y < rows; ++y) {
+            rowLatitudes[y] = (rows - y - 0.5) * cellSize + yLowerLeftCorner;
+        }
+        for (int x = 0; x < cols; ++x) {
+            colLongitudes[x] = (x + 0.5) * cellSize + xLowerLeftCorner;
+        }
+    }
+
+    public int getElevationByCoordinate(Coordinate coordinate) {
+        return getElevationByCoordinate(coordinate.getLat(), coordinate.getLon());
+    }
+
+    public int getElevationByCoordinate(double latitude, double longitude) {
+        return getElevation(getColByLongitude(longitude), getRowByLatitude(latitude));
+    }
+
+    public Pair<Integer, Integer> getRowColByCoordinates(Coordinate coordinate) {
+        return new Pair<>(getColByLongitude(coordinate.getLon()), getRowByLatitude(coordinate.getLat()));
+    }
+
+    public int getRowByLatitude(double latitude) {
+        return clampRow((int) Math.floor(getFractionalRow(latitude) + 0.5));
+    }
+
+    public int getColByLongitude(double longitude) {
+        return clampCol((int) Math.floor(getFractionalCol(longitude) + 0.5));
+    }
+
+    /**
+     * Packs the (x, y) cell of a coordinate into a single long, x in the high 32 bits.
+     * Use {@link #getPackedX(long)} and {@link #getPackedY(long)} to unpack.
+     */
+    public long getPackedRowColByCoordinates(double latitude, double longitude) {
+        return packRowCol(getColByLongitude(longitude), getRowByLatitude(latitude));
+    }
+
+    public static long packRowCol(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int getPackedX(long rowCol) {
+        return (int) (rowCol >>> 32);
+    }
+
+    public static int getPackedY(long rowCol) {
+        return (int) rowCol;
+    }
+
+    public Coordinate getCoordinateByRowCol(int x, int y) {
+        return new Coordinate(getLatitudeByRow(y), getLongitudeByCol(x));
+    }
+
+    /**
+     * Writes the cell center as [latitude, longitude] into the caller supplied array.
+     */
+    public void getCoordinateByRowCol(int x, int y, double[] latLon) {
+        latLon[0] = getLatitudeByRow(y);
+        latLon[1] = getLongitudeByCol(x);
+    }
+
+    public double getLatitudeByRow(int y) {
+        return rowLatitudes[y];
+    }
+
+    public double getLongitudeByCol(int x) {
+        return colLongitudes[x];
+    }
+
+    /**
+     * Fractional column of a longitude, cell centers lie on integer positions.
+     */
+    public double getFractionalCol(double longitude) {
+        return (longitude - xLowerLeftCorner) / cellSize - 0.5;
+    }
+
+    /**
+     * Fractional row of a latitude, cell centers lie on integer positions (row 0 is the northern edge).
+     */
+    public double getFractionalRow(double latitude) {
+        return rows - (latitude - yLowerLeftCorner) / cellSize - 0.5;
+    }
+
+    public double getInterpolatedElevation(double latitude, double longitude, ElevationInterpolation interpolation) {
+        return getInterpolatedElevationByRowCol(getFractionalCol(longitude), getFractionalRow(latitude), interpolation);
+    }
+
+    /**
+     * Samples the elevation at a sub-cell position, positions outside the raster are clamped to its edge.
+     *
+     * @param x - fractional column
+     * @param y - fractional row
+     * @param interpolation - sampling method
+     * @return elevation in metres
+     */
+    public double getInterpolatedElevationByRowCol(double x, double y, ElevationInterpolation interpolation) {
+        switch (interpolation) {
+            case BILINEAR:
+                return bilinear(x, y);
+            case BICUBIC:
+                return bicubic(x, y);
+            default:
+                return elevations[clampRow((int) Math.round(y))][clampCol((int) Math.round(x))];
+        }
+    }
+
+    /**
+     * Samples count evenly spaced elevations from (x0, y0) to (x1, y1) in fractional cell space.
+     * Intended for line of sight rays, out is filled from index 0 and must hold at least count values.
+     */
+    public void sampleElevationsAlongRay(double x0, double y0, double x1, double y1, int count, ElevationInterpolation interpolation, double[] out) {
+        sampleElevationsAlongRay(x0, y0, x1, y1, count, count, interpolation, out);
+    }
+
+    /**
+     * Samples only the first limit of the count evenly spaced elevations, at the same positions as the whole ray.
+     */
+    public void sampleElevationsAlongRay(double x0, double y0, double x1, double y1, int count, int limit, ElevationInterpolation interpolation, double[] out) {
+        if (count == 1) {
+            out[0] = getInterpolatedElevationByRowCol(x0, y0, interpolation);
+            return;
+        }
+        double stepX = (x1 - x0) / (count - 1);
+        double stepY = (y1 - y0) / (count - 1);
+        if (interpolation == ElevationInterpolation.BILINEAR) {
+            for (int i = 0; i < limit; ++i) {
+                out[i] = bilinear(x0 + stepX * i, y0 + stepY * i);
+            }
+        } else {
+            for (int i = 0; i < limit; ++i) {
+                out[i] = getInterpolatedElevationByRowCol(x0 + stepX * i, y0 + stepY * i, interpolation);
+            }
+        }
+    }
+
+    private double bilinear(double x, double y) {
+        x = Math.min(Math.max(x, 0), cols - 1);
+        y = Math.min(Math.max(y, 0), rows - 1);
+        int x0 = (int) x;
+        int y0 = (int) y;
+        int x1 = Math.min(x0 + 1, cols - 1);
+        int y1 = Math.min(y0 + 1, rows - 1);
+        double fx = x - x0;
+        double fy = y - y0;
+        int[] row0 = elevations[y0];
+        int[] row1 = elevations[y1];
+        double top = row0[x0] + (row0[x1] - row0[x0]) * fx;
+        double bottom = row1[x0] + (row1[x1] - row1[x0]) * fx;
+        return top + (bottom - top) * fy;
+    }
+
+    private double bicubic(double x, double y) {
+        x = Math.min(Math.max(x, 0), cols - 1);
+        y = Math.min(Math.max(y, 0), rows - 1);
+        int x1 = (int) x;
+        int y1 = (int) y;
+        double fx = x - x1;
+        double fy = y - y1;
+        int x0 = clampCol(x1 - 1), x2 = clampCol(x1 + 1), x3 = clampCol(x1 + 2);
+        double v0 = cubicRow(elevations[clampRow(y1 - 1)], x0, x1, x2, x3, fx);
+        double v1 = cubicRow(elevations[y1], x0, x1, x2, x3, fx);
+        double v2 = cubicRow(elevations[clampRow(y1 + 1)], x0, x1, x2, x3, fx);
+        double v3 = cubicRow(elevations[clampRow(y1 + 2)], x0, x1, x2, x3, fx);
+        return catmullRom(v0, v1, v2, v3, fy);
+    }
+
+    private static double cubicRow(int[] row, int x0, int x1, int x2, int x3, double t) {
+        return catmullRom(row[x0], row[x1], row[x2], row[x3], t);
+    }
+
+    // Catmull-Rom spline between p1 and p2
+    private static double catmullRom(double p0, double p1, double p2, double p3, double t) {
+        return p1 + 0.5 * t * (p2 - p0 + t * (2 * p0 - 5 * p1 + 4 * p2 - p3 + t * (3 * (p1 - p2) + p3 - p0)));
+    }
+
+    private int clampCol(int x) {
+        return x >= cols ? cols - 1 : Math.max(x, 0);
+    }
+
+    private int clampRow(int y) {
+        return y >= rows ? rows - 1 : Math.max(y, 0);
+    }
+
+    /**
+     * Elevation grid of a pyramid level, built lazily. Each cell of level n holds the maximum of
+     * the 2x2 cells of level n - 1 beneath it, so coarse levels never hide a ridge that occludes.
+     *
+     * @param level - 0 for full resolution, clamped to {@link #getPyramidLevelCount()} - 1
+     * @return elevations of the level indexed [y][x]
+     */
+    public int[][] getPyramidLevel(int level) {
+        if (level <= 0) {
+            return elevations;
+        }
+        synchronized (this) {
+            if (pyramid == null) {
+                buildPyramid();
+            }
+        }
+        return pyramid[Math.min(level, pyramid.length - 1)];
+    }
+
+    public int getPyramidLevelCount() {
+        synchronized (this) {
+            if (pyramid == null) {
+                buildPyramid();
+            }
+        }
+        return pyramid.length;
+    }
+
+    /**
+     * Elevation of the pyramid cell covering the full resolution cell (x, y).
+     */
+    public int getPyramidElevation(int level, int x, int y) {
+        int[][] grid = getPyramidLevel(level);
+        return grid[Math.min(y >> level, grid.length - 1)][Math.min(x >> level, grid[0].length - 1)];
+    }
+
+    private void buildPyramid() {
+        int levels = 1;
+        while (levels < MAX_PYRAMID_LEVELS && (cols >> levels) > 0 && (rows >> levels) > 0) {
+            ++levels;
+        }
+        int[][][] levelGrids = new int[levels][][];
+        levelGrids[0] = elevations;
+        for (int level = 1; level < levels; ++level) {
+            int[][] fine = levelGrids[level - 1];
+            int fineRows = fine.length;
+            int fineCols = fine[0].length;
+            int[][] coarse = new int[(fineRows + 1) / 2][(fineCols + 1) / 2];
+            for (int y = 0; y < coarse.length; ++y) {
+                int[] top = fine[2 * y];
+                int[] bottom = fine[Math.min(2 * y + 1, fineRows - 1)];
+                int[] row = coarse[y];
+                for (int x = 0; x < row.length; ++x) {
+                    int x0 = 2 * x;
+                    int x1 = Math.min(x0 + 1, fineCols - 1);
+                    row[x] = Math.max(Math.max(top[x0], top[x1]), Math.max(bottom[x0], bottom[x1]));
+                }
+            }
+            levelGrids[level] = coarse;
+        }
+        pyramid = levelGrids;
+    }
+
+    public int getElevation(int x, int y) {
+        return elevations[y][x];
+    }
+
+    public int[][] getElevations() {
+        return elevations;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public double getxLowerLeftCorner() {
+        return xLowerLeftCorner;
+    }
+
+    public double getyLowerLeftCorner() {
+        return yLowerLeftCorner;
+    }
+
+    public CellType[][] getViewshed() {
+        return viewshed;
+    }
+
+    public BoundingBoxCenter getBbox() {
+        return bbox;
+    }
+
+    public void setViewshed(CellType[][] viewshed) {
+        this.viewshed = viewshed;
+    }
+    public void setBoundingBox(BoundingBoxCenter bbox) {
+        this.bbox = bbox;
+    }
+}
@@ -1,6 +1,7 @@
 package com.geoscene.elevation.open_topography;
 
 import com.geoscene.elevation.Raster;
+import com.geoscene.logging.Log;
 
 import java.io.*;
 import java.util.Arrays;
@@ -8,6 +9,7 @@ import java.util.Arrays;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class ASCIIGridParser {
+    private static final String TAG = "ASCII_GRID_PARSER";
     private static final int HEADERS_LEN = 6;
 
     public static Raster parseASCIIGrid(InputStream stream) throws IOException {
@@ -50,6 +52,7 @@ public class ASCIIGridParser {
                 int[] data = Arrays.stream(line.trim().split(" ")).mapToInt(Integer::parseInt).toArray();
                 elevations[i++] = data;
             }
+            Log.d(TAG, "Parsed " + cols + "x" + rows + " grid in " + (System.currentTimeMillis() - debugTime) + "ms");
             return new Raster(cols, rows, xll_corner, yll_corner, cellsize, elevations);
         }
     }
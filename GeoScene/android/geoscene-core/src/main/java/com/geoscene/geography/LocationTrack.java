@@ -0,0 +1,166 @@
+package com.geoscene.geography;
+
+import java.util.Arrays;
+
+/*
+Track of the accepted location fixes in a fixed capacity ring of primitive arrays, the oldest fix is overwritten
+once it is full, so a session of any length holds the same memory. Fixes are indexed from the oldest to the latest
+and are expected in time order. Also counts the fixes rejected by the location filter by reason.
+Written by the location callbacks and read from any thread.
+ */
+public class LocationTrack {
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    public enum Rejection {
+        OLD,
+        NO_ACCURACY,
+        INACCURATE,
+        KALMAN
+    }
+
+    private final long[] times;
+    private final double[] lats;
+    private final double[] lons;
+    private final float[] accuracies;
+    private final float[] speeds;
+    private final long[] rejections = new long[Rejection.values().length];
+    private int next;
+    private int size;
+    private long accepted;
+
+    public LocationTrack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LocationTrack(int capacity) {
+        capacity = Math.max(1, capacity);
+        times = new long[capacity];
+        lats = new double[capacity];
+        lons = new double[capacity];
+        accuracies = new float[capacity];
+        speeds = new float[capacity];
+    }
+
+    /**
+     * Adds an accepted fix, time in milliseconds, accuracy in meters and speed in meters per second.
+     */
+    public synchronized void add(long time, double lat, double lon, float accuracy, float speed) {
+        times[next] = time;
+        lats[next] = lat;
+        lons[next] = lon;
+        accuracies[next] = accuracy;
+        speeds[next] = speed;
+        next = (next + 1) % times.length;
+        size = Math.min(size + 1, times.length);
+        ++accepted;
+    }
+
+    public synchronized void reject(Rejection reason) {
+        ++rejections[reason.ordinal()];
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        accepted = 0;
+        Arrays.fill(rejections, 0);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return times.length;
+    }
+
+    /**
+     * Fixes accepted since the track was cleared, including the ones overwritten.
+     */
+    public synchronized long getAcceptedCount() {
+        return accepted;
+    }
+
+    public synchronized long getRejectedCount(Rejection reason) {
+        return rejections[reason.ordinal()];
+    }
+
+    public synchronized long getTime(int fix) {
+        return times[slot(fix)];
+    }
+
+    public synchronized double getLatitude(int fix) {
+        return lats[slot(fix)];
+    }
+
+    public synchronized double getLongitude(int fix) {
+        return lons[slot(fix)];
+    }
+
+    public synchronized float getAccuracy(int fix) {
+        return accuracies[slot(fix)];
+    }
+
+    public synchronized float getSpeed(int fix) {
+        return speeds[slot(fix)];
+    }
+
+    /**
+     * Index of the first fix at or after the time, size() when every fix is older.
+     */
+    public synchronized int indexSince(long time) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[slot(middle)] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copies the fixes at or after the time into the arrays from the oldest, up to their length, and returns the count copied.
+     */
+    public synchronized int copySince(long time, long[] times, double[] lats, double[] lons) {
+        int first = indexSince(time);
+        int count = Math.min(size - first, Math.min(times.length, Math.min(lats.length, lons.length)));
+        for (int i = 0; i < count; ++i) {
+            int slot = slot(first + i);
+            times[i] = this.times[slot];
+            lats[i] = this.lats[slot];
+            lons[i] = this.lons[slot];
+        }
+        return count;
+    }
+
+    /**
+     * Extrapolates the position at the time from the mean velocity over the fixes of the last window milliseconds.
+     * Writes {lat, lon} and returns false when the window holds fewer than two fixes apart in time.
+     */
+    public synchronized boolean predict(long time, long window, double[] position) {
+        if (size < 2) {
+            return false;
+        }
+        int last = size - 1;
+        int first = Math.min(indexSince(getTime(last) - window), last);
+        long elapsed = getTime(last) - getTime(first);
+        if (elapsed <= 0) {
+            return false;
+        }
+        // Linear in degrees, the distances covered over a window are far too short for the curvature to matter
+        double ahead = (double) (time - getTime(last)) / elapsed;
+        position[0] = getLatitude(last) + (getLatitude(last) - getLatitude(first)) * ahead;
+        position[1] = getLongitude(last) + (getLongitude(last) - getLongitude(first)) * ahead;
+        return true;
+    }
+
+    private int slot(int fix) {
+        if (fix < 0 || fix >= size) {
+            throw new IndexOutOfBoundsException("Fix " + fix + " of " + size);
+        }
+        return (next - size + fix + times.length) % times.length;
+    }
+}
@@ -0,0 +1,174 @@
+package com.geoscene.location_markers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+Places marker labels on the screen so they do not overlap, the nearest labels keep their place.
+Labels are screen rectangles standing on their anchor point, farther labels are lifted above the labels
+they collide with or hidden when they cannot be placed. Placed rectangles are bucketed in a uniform grid so
+each label is only tested against the labels around it.
+Screen coordinates are in pixels with y growing downwards, lifts are in pixels upwards.
+ */
+public class LabelPlacement {
+    public static final float CELL_SIZE = 96;
+    // Pixels kept between a lifted label and the label under it
+    public static final float GAP = 4;
+
+    private int count;
+    private float[] x = new float[0];
+    private float[] y = new float[0];
+    private float[] width = new float[0];
+    private float[] height = new float[0];
+    private float[] distance = new float[0];
+    private float[] lift = new float[0];
+    private boolean[] hidden = new boolean[0];
+    private final Map<Long, int[]> grid = new HashMap<>();
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Adds a label standing on the anchor (x, y) and returns its index.
+     */
+    public int add(float x, float y, float width, float height, float distance) {
+        if (count == this.x.length) {
+            int capacity = Math.max(16, count * 2);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.width = Arrays.copyOf(this.width, capacity);
+            this.height = Arrays.copyOf(this.height, capacity);
+            this.distance = Arrays.copyOf(this.distance, capacity);
+            lift = Arrays.copyOf(lift, capacity);
+            hidden = Arrays.copyOf(hidden, capacity);
+        }
+        this.x[count] = x;
+        this.y[count] = y;
+        this.width[count] = width;
+        this.height[count] = height;
+        this.distance[count] = distance;
+        return count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Resolves the overlaps of the added labels, nearest first.
+     *
+     * @param offset  lift colliding labels above the labels under them, by at most maxLift pixels
+     * @param remove  hide the labels that still collide
+     */
+    public void place(boolean offset, boolean remove, float maxLift) {
+        grid.clear();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Float.compare(distance[i], distance[j]));
+        for (int i : order) {
+            lift[i] = 0;
+            hidden[i] = false;
+            int blocker = findOverlap(i);
+            // Every lift clears one more label, so there are at most as many lifts as labels
+            for (int lifts = 0; offset && blocker != -1 && lifts < count; ++lifts) {
+                float lifted = y[i] - (y[blocker] - lift[blocker] - height[blocker] - GAP);
+                if (lifted > maxLift) {
+                    break;
+                }
+                lift[i] = lifted;
+                blocker = findOverlap(i);
+            }
+            if (blocker != -1) {
+                if (remove) {
+                    lift[i] = 0;
+                    hidden[i] = true;
+                    continue;
+                }
+                if (offset) {
+                    lift[i] = 0; // Could not be lifted clear, stays on its anchor
+                }
+            }
+            insert(i);
+        }
+    }
+
+    public float getLift(int label) {
+        return lift[label];
+    }
+
+    public boolean isHidden(int label) {
+        return hidden[label];
+    }
+
+    private float top(int label) {
+        return y[label] - lift[label] - height[label];
+    }
+
+    private float bottom(int label) {
+        return y[label] - lift[label];
+    }
+
+    private float left(int label) {
+        return x[label] - width[label] / 2;
+    }
+
+    private float right(int label) {
+        return x[label] + width[label] / 2;
+    }
+
+    /**
+     * A placed label overlapping the label at its current lift, the one standing highest, or -1.
+     */
+    private int findOverlap(int label) {
+        int found = -1;
+        int minCellX = cell(left(label)), maxCellX = cell(right(label));
+        int minCellY = cell(top(label)), maxCellY = cell(bottom(label));
+        for (int cellY = minCellY; cellY <= maxCellY; ++cellY) {
+            for (int cellX = minCellX; cellX <= maxCellX; ++cellX) {
+                int[] labels = grid.get(key(cellX, cellY));
+                if (labels == null) {
+                    continue;
+                }
+                for (int j = 1; j <= labels[0]; ++j) {
+                    int other = labels[j];
+                    if (left(other) < right(label) && left(label) < right(other) && top(other) < bottom(label) && top(label) < bottom(other)
+                            && (found == -1 || top(other) < top(found))) {
+                        found = other;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void insert(int label) {
+        int minCellX = cell(left(label)), maxCellX = cell(right(label));
+        int minCellY = cell(top(label)), maxCellY = cell(bottom(label));
+        for (int cellY = minCellY; cellY <= maxCellY; ++cellY) {
+            for (int cellX = minCellX; cellX <= maxCellX; ++cellX) {
+                long key = key(cellX, cellY);
+                // First entry of a cell is the number of labels in it
+                int[] labels = grid.get(key);
+                if (labels == null) {
+                    labels = new int[4];
+                } else if (labels[0] + 1 == labels.length) {
+                    labels = Arrays.copyOf(labels, labels.length * 2);
+                }
+                labels[++labels[0]] = label;
+                grid.put(key, labels);
+            }
+        }
+    }
+
+    private static int cell(float coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+}
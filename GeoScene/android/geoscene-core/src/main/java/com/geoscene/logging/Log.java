@@ -0,0 +1,35 @@
+package com.geoscene.logging;
+
+/*
+Logging facade of the core module with the same calls as android.util.Log.
+Messages are dropped until a logger is set, so the algorithms stay silent on the JVM and in benchmarks.
+ */
+public final class Log {
+    private static volatile Logger logger = Logger.NONE;
+
+    private Log() { }
+
+    public static void setLogger(Logger logger) {
+        Log.logger = logger != null ? logger : Logger.NONE;
+    }
+
+    public static Logger getLogger() {
+        return logger;
+    }
+
+    public static void d(String tag, String message) {
+        logger.debug(tag, message);
+    }
+
+    public static void i(String tag, String message) {
+        logger.info(tag, message);
+    }
+
+    public static void w(String tag, String message) {
+        logger.warn(tag, message);
+    }
+
+    public static void e(String tag, String message) {
+        logger.error(tag, message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.geoscene.logging;
+
+/*
+Destination of the core log messages, the app forwards them to android.util.Log.
+ */
+public interface Logger {
+    Logger NONE = new Logger() {
+        @Override
+        public void debug(String tag, String message) { }
+
+        @Override
+        public void info(String tag, String message) { }
+
+        @Override
+        public void warn(String tag, String message) { }
+
+        @Override
+        public void error(String tag, String message) { }
+    };
+
+    Logger CONSOLE = new Logger() {
+        @Override
+        public void debug(String tag, String message) {
+            System.out.println("D/" + tag + ": " + message);
+        }
+
+        @Override
+        public void info(String tag, String message) {
+            System.out.println("I/" + tag + ": " + message);
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+            System.err.println("W/" + tag + ": " + message);
+        }
+
+        @Override
+        public void error(String tag, String message) {
+            System.err.println("E/" + tag + ": " + message);
+        }
+    };
+
+    void debug(String tag, String message);
+
+    void info(String tag, String message);
+
+    void warn(String tag, String message);
+
+    void error(String tag, String message);
+}
@@ -0,0 +1,327 @@
+package com.geoscene.places.fov_analyzer;
+
+import com.geoscene.geography.LocationUtils;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.places.poi.Place;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.elevation.Raster;
+
+import org.javatuples.Pair;
+
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.places.poi.PlaceTags;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class FOVAnalyzer {
+
+    private static final String TAG = "FOVAnalyzer";
+
+    public static List<Pair<Place, Coordinate>> intersectVisiblePlaces(Raster raster, PlaceList placesResult, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, boolean showCenter) {
+        CellType[][] viewshed = raster.getViewshed();
+        BoundingBoxCenter bbox = raster.getBbox();
+
+        if (viewshed == null) {
+            Set<String> places = new HashSet<>();
+            List<Pair<Place, Coordinate>> nodes = placesResult.elements.stream().filter(element ->
+                    (element.type.equals("node")
+                            && element.tags.name != null
+                            && bbox.isBoundingBoxContains(element.lat, element.lon))
+                            && (placesTypes.get("place").contains(element.tags.place) ||
+                            placesTypes.get("historic").contains(element.tags.historic) ||
+                            placesTypes.get("natural").contains(element.tags.natural) ||
+                            (showPlacesApp && element.tags.createdBy != null && element.tags.createdBy.equals("GeoScene"))))
+                    .map(element -> {
+                                places.add(element.tags.name);
+                                if (element.tags.nameHeb != null) {
+                                    places.add(element.tags.nameHeb);
+                                }
+                                return new Pair<>(element, new Coordinate(element.lat, element.lon));
+                            }
+                    ).collect(Collectors.toList());
+
+            List<Pair<Place, Coordinate>> ways = placesResult.elements.stream().filter(element -> {
+                if(!element.type.equals("way")) {
+                    return false;
+                }
+                Pair<Coordinate, Coordinate> upperLeftLowerRight = bbox.getSecondaryCorners();
+                BoundingBoxCenter wayBbox = new BoundingBoxCenter(new Pair<>(
+                        new Coordinate(element.bounds.minlat, element.bounds.minlon),
+                        new Coordinate(element.bounds.maxlat, element.bounds.maxlon)));
+                return (element.tags.name != null
+                        && !places.contains(element.tags.name) && !places.contains(element.tags.nameHeb)
+                        && (wayBbox.isBoundingBoxContains(upperLeftLowerRight.getValue0().getLat(), upperLeftLowerRight.getValue0().getLon()) ||
+                        wayBbox.isBoundingBoxContains(upperLeftLowerRight.getValue1().getLat(), upperLeftLowerRight.getValue1().getLon()) ||
+                        wayBbox.isBoundingBoxContains(bbox.getSouth(), bbox.getWest()) ||
+                        wayBbox.isBoundingBoxContains(bbox.getNorth(), bbox.getEast()) ||
+                        bbox.isBoundingBoxContains((element.bounds.minlat + element.bounds.maxlat) / 2, (element.bounds.minlon + element.bounds.maxlon) / 2)))
+                        && (placesTypes.get("place").contains(element.tags.place) ||
+                        placesTypes.get("historic").contains(element.tags.historic) ||
+                        placesTypes.get("natural").contains(element.tags.natural));
+            })
+                    .map(element -> new Pair<>(element, new Coordinate(
+                            (element.bounds.minlat + element.bounds.maxlat) / 2,
+                            (element.bounds.minlon + element.bounds.maxlon) / 2))
+                    ).collect(Collectors.toList());
+
+            return Stream.concat(nodes.stream(), ways.stream()).collect(Collectors.toList());
+        }
+
+        return resolveVisiblePlaces(raster, placesResult, placesTypes, showPlacesApp, showCenter, true).stream()
+                .map(location -> new Pair<>(location.element, location.coordinate))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Visible places of the raster's viewshed in intersectVisiblePlaces order, keeping the nodes a visible way of their name hides.
+     * A narrower selection of place types is answered by filtering these and passing the rest through {@link #hideNamesakes(List)}.
+     */
+    public static List<VisibleLocation> resolveVisiblePlaces(Raster raster, PlaceList placesResult, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, boolean showCenter) {
+        return resolveVisiblePlaces(raster, placesResult, placesTypes, showPlacesApp, showCenter, false);
+    }
+
+    /**
+     * Drops the nodes sharing the name of a visible way of their category, the order of the locations is kept.
+     */
+    public static List<VisibleLocation> hideNamesakes(List<VisibleLocation> locations) {
+        Map<Category, Set<String>> visibleWayNames = getVisibleWayNames(locations);
+        return locations.stream()
+                .filter(location -> location.way || !visibleWayNames.getOrDefault(location.category, Collections.emptySet()).contains(getDisplayName(location.element)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<VisibleLocation> resolveVisiblePlaces(Raster raster, PlaceList placesResult, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp,
+                                                              boolean showCenter, boolean hideNamesakes) {
+        BoundingBoxCenter bbox = raster.getBbox();
+        Map<String, Place> nodePlaceElements = new HashMap<>();
+        List<ClassifiedElement> wayElements = new ArrayList<>();
+        List<ClassifiedElement> nodeElements = new ArrayList<>();
+        classifyElements(placesResult.elements, placesTypes, showPlacesApp, nodePlaceElements, wayElements, nodeElements);
+
+        // Ways are resolved first since a visible way hides the nodes sharing its name in the same category
+        List<VisibleLocation> visibleWays = wayElements.parallelStream()
+                .map(way -> resolveVisibleWay(raster, way, nodePlaceElements, showCenter))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        Map<Category, Set<String>> visibleWayNames = hideNamesakes ? getVisibleWayNames(visibleWays) : Collections.emptyMap();
+        List<VisibleLocation> visibleNodes = nodeElements.parallelStream()
+                .filter(node -> !visibleWayNames.getOrDefault(node.category, Collections.emptySet()).contains(getDisplayName(node.element)))
+                .map(node -> resolveVisibleNode(raster, bbox, node))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        // Stable sort keeps the element order inside each category (places, natural, historic, app created)
+        return Stream.concat(visibleWays.stream(), visibleNodes.stream())
+                .sorted(Comparator.comparingInt(VisibleLocation::getRank))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Category, Set<String>> getVisibleWayNames(List<VisibleLocation> locations) {
+        return locations.parallelStream()
+                .filter(location -> location.way && location.category != Category.PLACE)
+                .collect(Collectors.groupingByConcurrent(location -> location.category,
+                        Collectors.mapping(location -> getDisplayName(location.element), Collectors.toSet())));
+    }
+
+    private static void classifyElements(List<Place> elements, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp,
+                                         Map<String, Place> nodePlaceElements, List<ClassifiedElement> wayElements, List<ClassifiedElement> nodeElements) {
+        HashSet<String> places = placesTypes.get("place");
+        HashSet<String> natural = placesTypes.get("natural");
+        HashSet<String> historic = placesTypes.get("historic");
+        for (Place element : elements) {
+            PlaceTags tags = element.tags;
+            if (element.type.equals("way")) {
+                if (tags.place != null && places.contains(tags.place))
+                    wayElements.add(new ClassifiedElement(Category.PLACE, element, true));
+                if (tags.name == null)
+                    continue;
+                if (tags.natural != null && natural.contains(tags.natural))
+                    wayElements.add(new ClassifiedElement(Category.NATURAL, element, true));
+                if (tags.historic != null && historic.contains(tags.historic))
+                    wayElements.add(new ClassifiedElement(Category.HISTORIC, element, true));
+            } else {
+                if (tags.name == null)
+                    continue;
+                if (tags.place != null)
+                    nodePlaceElements.putIfAbsent(tags.name, element);
+                if (tags.natural != null && natural.contains(tags.natural))
+                    nodeElements.add(new ClassifiedElement(Category.NATURAL, element, false));
+                if (tags.historic != null && historic.contains(tags.historic))
+                    nodeElements.add(new ClassifiedElement(Category.HISTORIC, element, false));
+                if (showPlacesApp && tags.createdBy != null && tags.createdBy.equals("GeoScene"))
+                    nodeElements.add(new ClassifiedElement(Category.APP_CREATED, element, false));
+            }
+        }
+    }
+
+    private static VisibleLocation resolveVisibleWay(Raster raster, ClassifiedElement way, Map<String, Place> nodePlaceElements, boolean showCenter) {
+        Place element = way.element;
+        Coordinate bboxCenter = new Coordinate(
+                (element.bounds.minlat + element.bounds.maxlat) / 2,
+                (element.bounds.minlon + element.bounds.maxlon) / 2);
+        if (way.category != Category.PLACE) {
+            Coordinate visibleCoordinate = checkIfViewshed(element, raster, bboxCenter, showCenter);
+            return visibleCoordinate != null ? new VisibleLocation(way, element, visibleCoordinate) : null;
+        }
+        if (element.tags.name != null) {
+            Place nodeElement = nodePlaceElements.get(element.tags.name);
+            Coordinate centerCoordinate = nodeElement != null ? new Coordinate(nodeElement.lat, nodeElement.lon) : bboxCenter;
+            Coordinate visibleCoordinate = checkIfViewshed(element, raster, centerCoordinate, showCenter);
+            return visibleCoordinate != null ? new VisibleLocation(way, element, showCenter ? bboxCenter : visibleCoordinate) : null;
+        }
+        double currentDistance = Double.MAX_VALUE;
+        Place placeNode = null;
+        for (Place nodeElement : nodePlaceElements.values()) {
+            if (nodeElement.lat >= element.bounds.minlat && nodeElement.lat <= element.bounds.maxlat && nodeElement.lon >= element.bounds.minlon && nodeElement.lon <= element.bounds.maxlon) {
+                double distance = LocationUtils.distance(nodeElement.lat, bboxCenter.getLat(), nodeElement.lon, bboxCenter.getLon(), 0, 0);
+                if (distance < currentDistance) {
+                    currentDistance = distance;
+                    placeNode = nodeElement;
+                }
+            }
+        }
+        if (placeNode == null)
+            return null;
+        Coordinate nodeCoordinate = new Coordinate(placeNode.lat, placeNode.lon);
+        Coordinate visibleCoordinate = checkIfViewshed(element, raster, nodeCoordinate, showCenter);
+        return visibleCoordinate != null ? new VisibleLocation(way, placeNode, showCenter ? nodeCoordinate : visibleCoordinate) : null;
+    }
+
+    private static VisibleLocation resolveVisibleNode(Raster raster, BoundingBoxCenter bbox, ClassifiedElement node) {
+        Place element = node.element;
+        if (!bbox.isBoundingBoxContains(element.lat, element.lon))
+            return null;
+        int x = raster.getColByLongitude(element.lon);
+        int y = raster.getRowByLatitude(element.lat);
+        return raster.getViewshed()[y][x] == CellType.VIEWSHED ? new VisibleLocation(node, element, new Coordinate(element.lat, element.lon)) : null;
+    }
+
+    private static String getDisplayName(Place element) {
+        return element.tags.nameEng != null ? element.tags.nameEng : element.tags.name;
+    }
+
+    private static Coordinate checkIfViewshed(Place element, Raster raster, Coordinate centerCoordinate, boolean showCenter) {
+
+        BoundingBoxCenter bbox = raster.getBbox();
+        int minNodeX = raster.getColByLongitude(element.bounds.minlon);
+        int minNodeY = raster.getRowByLatitude(element.bounds.minlat);
+        int maxNodeX = raster.getColByLongitude(element.bounds.maxlon);
+        int maxNodeY = raster.getRowByLatitude(element.bounds.maxlat);
+
+        CellType[][] viewshed = raster.getViewshed();
+        // Rows grow southward, so the northern bound has the smaller row
+        int dx = Math.abs(maxNodeX - minNodeX) + 1;
+        int dy = Math.abs(maxNodeY - minNodeY) + 1;
+
+        int minY = Math.min(minNodeY, maxNodeY);
+        int minX = Math.min(minNodeX, maxNodeX);
+
+        double centerLat = centerCoordinate.getLat(), centerLon = centerCoordinate.getLon();
+        int showX = -1, showY = -1;
+        double currentDistance = Double.MAX_VALUE;
+        for (int y = minY; y < minY + dy; ++y) {
+            double cellLat = raster.getLatitudeByRow(y);
+            for (int x = minX; x < minX + dx; ++x) {
+                if (viewshed[y][x] == CellType.VIEWSHED) {
+                    double cellLon = raster.getLongitudeByCol(x);
+                    if (bbox.isBoundingBoxContains(cellLat, cellLon)) {
+                        if (showCenter)
+                            return centerCoordinate;
+                        else {
+                            double distanceCenter = LocationUtils.distance(cellLat, centerLat, cellLon, centerLon, 0, 0);
+                            if (showX == -1 || distanceCenter < currentDistance) {
+                                currentDistance = distanceCenter;
+                                showX = x;
+                                showY = y;
+                            }
+                        }
+                    }
+                }
+
+            }
+        }
+        return showX != -1 ? raster.getCoordinateByRowCol(showX, showY) : null;
+    }
+
+    public enum Category {
+        PLACE,
+        NATURAL,
+        HISTORIC,
+        APP_CREATED
+    }
+
+    private static class ClassifiedElement {
+        private final Category category;
+        private final Place element;
+        private final boolean way;
+
+        public ClassifiedElement(Category category, Place element, boolean way) {
+            this.category = category;
+            this.element = element;
+            this.way = way;
+        }
+    }
+
+    /**
+     * A visible place with the element that classified it, which differs for an unnamed place way shown as its place node.
+     */
+    public static class VisibleLocation {
+        private final Category category;
+        private final boolean way;
+        private final Place source;
+        private final Place element;
+        private final Coordinate coordinate;
+
+        public VisibleLocation(Category category, boolean way, Place source, Place element, Coordinate coordinate) {
+            this.category = category;
+            this.way = way;
+            this.source = source;
+            this.element = element;
+            this.coordinate = coordinate;
+        }
+
+        private VisibleLocation(ClassifiedElement classified, Place element, Coordinate coordinate) {
+            this(classified.category, classified.way, classified.element, element, coordinate);
+        }
+
+        public Category getCategory() {
+            return category;
+        }
+
+        public boolean isWay() {
+            return way;
+        }
+
+        public Place getSource() {
+            return source;
+        }
+
+        public Place getElement() {
+            return element;
+        }
+
+        public Coordinate getCoordinate() {
+            return coordinate;
+        }
+
+        // Ways of a category are listed before its nodes
+        public int getRank() {
+            return category.ordinal() * 2 + (way ? 0 : 1);
+        }
+    }
+}
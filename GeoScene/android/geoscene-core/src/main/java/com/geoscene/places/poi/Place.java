@@ -0,0 +1,27 @@
+package com.geoscene.places.poi;
+
+import com.google.gson.annotations.SerializedName;
+
+/*
+Plain Overpass element, a node with a coordinate or a way with its bounds.
+The app keeps its Realm persisted elements and converts them to places for the core algorithms.
+ */
+public class Place {
+    @SerializedName("type")
+    public String type;
+
+    @SerializedName("id")
+    public long id;
+
+    @SerializedName("lat")
+    public double lat;
+
+    @SerializedName("lon")
+    public double lon;
+
+    @SerializedName("bounds")
+    public PlaceBounds bounds;
+
+    @SerializedName("tags")
+    public PlaceTags tags = new PlaceTags();
+}
@@ -0,0 +1,26 @@
+package com.geoscene.places.poi;
+
+import com.google.gson.annotations.SerializedName;
+
+public class PlaceBounds {
+    @SerializedName("minlat")
+    public double minlat;
+
+    @SerializedName("minlon")
+    public double minlon;
+
+    @SerializedName("maxlat")
+    public double maxlat;
+
+    @SerializedName("maxlon")
+    public double maxlon;
+
+    public PlaceBounds() { }
+
+    public PlaceBounds(double minlat, double minlon, double maxlat, double maxlon) {
+        this.minlat = minlat;
+        this.minlon = minlon;
+        this.maxlat = maxlat;
+        this.maxlon = maxlon;
+    }
+}
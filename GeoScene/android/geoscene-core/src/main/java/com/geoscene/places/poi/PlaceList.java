@@ -0,0 +1,20 @@
+package com.geoscene.places.poi;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Elements of an Overpass API response, parses directly from the JSON of an out bb query.
+ */
+public class PlaceList {
+    @SerializedName("elements")
+    public List<Place> elements = new ArrayList<>();
+
+    public PlaceList() { }
+
+    public PlaceList(List<Place> elements) {
+        this.elements = elements;
+    }
+}
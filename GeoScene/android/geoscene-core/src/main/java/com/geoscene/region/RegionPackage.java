@@ -0,0 +1,275 @@
+package com.geoscene.region;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceBounds;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.places.poi.PlaceTags;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+Offline package of a region: its elevation raster, points of interest and an optional precomputed
+visibility index. Written by the batch precompute tool and imported by the app into its local storage.
+The format is a gzip compressed stream of big endian primitives:
+  magic, version, name, description, bounding box center and radius,
+  raster header and elevations (16 bit when every value fits),
+  places with their tags, the place types of the index, and the visibility index.
+ */
+public class RegionPackage {
+    public static final int MAGIC = 0x47535250; // "GSRP"
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".gsrp";
+
+    private static final byte ELEVATIONS_SHORT = 0;
+    private static final byte ELEVATIONS_INT = 1;
+    private static final byte TYPE_NODE = 0;
+    private static final byte TYPE_WAY = 1;
+    private static final byte TYPE_OTHER = 2;
+
+    private final String name;
+    private final String description;
+    private final BoundingBoxCenter bbox;
+    private final Raster raster;
+    private final PlaceList places;
+    private final Map<String, HashSet<String>> placesTypes;
+    private final boolean showPlacesApp;
+    private final VisibilityIndex visibilityIndex;
+
+    public RegionPackage(String name, String description, BoundingBoxCenter bbox, Raster raster, PlaceList places,
+                         Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, VisibilityIndex visibilityIndex) {
+        this.name = name;
+        this.description = description;
+        this.bbox = bbox;
+        this.raster = raster;
+        this.places = places;
+        this.placesTypes = placesTypes;
+        this.showPlacesApp = showPlacesApp;
+        this.visibilityIndex = visibilityIndex;
+        raster.setBoundingBox(bbox);
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(stream, 1 << 16);
+        DataOutputStream out = new DataOutputStream(gzip);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, name);
+        writeString(out, description);
+        out.writeDouble(bbox.getCenter().getLat());
+        out.writeDouble(bbox.getCenter().getLon());
+        out.writeDouble(bbox.getRadiusKM());
+        writeRaster(out, raster);
+        out.writeInt(places.elements.size());
+        for (Place place : places.elements) {
+            writePlace(out, place);
+        }
+        out.writeInt(placesTypes.size());
+        for (Map.Entry<String, HashSet<String>> types : placesTypes.entrySet()) {
+            out.writeUTF(types.getKey());
+            out.writeInt(types.getValue().size());
+            for (String type : types.getValue()) {
+                out.writeUTF(type);
+            }
+        }
+        out.writeBoolean(showPlacesApp);
+        out.writeBoolean(visibilityIndex != null);
+        if (visibilityIndex != null) {
+            visibilityIndex.write(out);
+        }
+        out.flush();
+        gzip.finish();
+    }
+
+    public static RegionPackage read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(stream, 1 << 16));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a region package");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported region package version " + version);
+        }
+        String name = readString(in);
+        String description = readString(in);
+        Coordinate center = new Coordinate(in.readDouble(), in.readDouble());
+        BoundingBoxCenter bbox = new BoundingBoxCenter(center, in.readDouble());
+        Raster raster = readRaster(in);
+        int placeCount = in.readInt();
+        List<Place> places = new ArrayList<>(placeCount);
+        for (int i = 0; i < placeCount; ++i) {
+            places.add(readPlace(in));
+        }
+        int typeCount = in.readInt();
+        Map<String, HashSet<String>> placesTypes = new HashMap<>();
+        for (int i = 0; i < typeCount; ++i) {
+            String key = in.readUTF();
+            int valueCount = in.readInt();
+            HashSet<String> values = new HashSet<>();
+            for (int j = 0; j < valueCount; ++j) {
+                values.add(in.readUTF());
+            }
+            placesTypes.put(key, values);
+        }
+        boolean showPlacesApp = in.readBoolean();
+        VisibilityIndex visibilityIndex = in.readBoolean() ? VisibilityIndex.read(in) : null;
+        return new RegionPackage(name, description, bbox, raster, new PlaceList(places), placesTypes, showPlacesApp, visibilityIndex);
+    }
+
+    private static void writeRaster(DataOutputStream out, Raster raster) throws IOException {
+        out.writeInt(raster.getCols());
+        out.writeInt(raster.getRows());
+        out.writeDouble(raster.getxLowerLeftCorner());
+        out.writeDouble(raster.getyLowerLeftCorner());
+        out.writeDouble(raster.getCellSize());
+        int[][] elevations = raster.getElevations();
+        boolean fitsShort = true;
+        for (int[] row : elevations) {
+            for (int elevation : row) {
+                fitsShort &= elevation >= Short.MIN_VALUE && elevation <= Short.MAX_VALUE;
+            }
+        }
+        out.writeByte(fitsShort ? ELEVATIONS_SHORT : ELEVATIONS_INT);
+        for (int[] row : elevations) {
+            for (int elevation : row) {
+                if (fitsShort) {
+                    out.writeShort(elevation);
+                } else {
+                    out.writeInt(elevation);
+                }
+            }
+        }
+    }
+
+    private static Raster readRaster(DataInputStream in) throws IOException {
+        int cols = in.readInt();
+        int rows = in.readInt();
+        double xLowerLeftCorner = in.readDouble();
+        double yLowerLeftCorner = in.readDouble();
+        double cellSize = in.readDouble();
+        boolean shorts = in.readByte() == ELEVATIONS_SHORT;
+        int[][] elevations = new int[rows][cols];
+        for (int y = 0; y < rows; ++y) {
+            for (int x = 0; x < cols; ++x) {
+                elevations[y][x] = shorts ? in.readShort() : in.readInt();
+            }
+        }
+        return new Raster(cols, rows, xLowerLeftCorner, yLowerLeftCorner, cellSize, elevations);
+    }
+
+    private static void writePlace(DataOutputStream out, Place place) throws IOException {
+        if ("node".equals(place.type)) {
+            out.writeByte(TYPE_NODE);
+        } else if ("way".equals(place.type)) {
+            out.writeByte(TYPE_WAY);
+        } else {
+            out.writeByte(TYPE_OTHER);
+            writeString(out, place.type);
+        }
+        out.writeLong(place.id);
+        out.writeDouble(place.lat);
+        out.writeDouble(place.lon);
+        out.writeBoolean(place.bounds != null);
+        if (place.bounds != null) {
+            out.writeDouble(place.bounds.minlat);
+            out.writeDouble(place.bounds.minlon);
+            out.writeDouble(place.bounds.maxlat);
+            out.writeDouble(place.bounds.maxlon);
+        }
+        PlaceTags tags = place.tags != null ? place.tags : new PlaceTags();
+        for (String tag : new String[]{tags.type, tags.amenity, tags.place, tags.natural, tags.historic, tags.createdBy, tags.landuse,
+                tags.name, tags.nameHeb, tags.nameEng, tags.nameAr, tags.image, tags.phone, tags.contactEmail, tags.website,
+                tags.addressCity, tags.addressPostCode, tags.addressStreet, tags.addressHouseNumber}) {
+            writeString(out, tag);
+        }
+    }
+
+    private static Place readPlace(DataInputStream in) throws IOException {
+        Place place = new Place();
+        byte type = in.readByte();
+        place.type = type == TYPE_NODE ? "node" : type == TYPE_WAY ? "way" : readString(in);
+        place.id = in.readLong();
+        place.lat = in.readDouble();
+        place.lon = in.readDouble();
+        if (in.readBoolean()) {
+            place.bounds = new PlaceBounds(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+        }
+        PlaceTags tags = place.tags;
+        tags.type = readString(in);
+        tags.amenity = readString(in);
+        tags.place = readString(in);
+        tags.natural = readString(in);
+        tags.historic = readString(in);
+        tags.createdBy = readString(in);
+        tags.landuse = readString(in);
+        tags.name = readString(in);
+        tags.nameHeb = readString(in);
+        tags.nameEng = readString(in);
+        tags.nameAr = readString(in);
+        tags.image = readString(in);
+        tags.phone = readString(in);
+        tags.contactEmail = readString(in);
+        tags.website = readString(in);
+        tags.addressCity = readString(in);
+        tags.addressPostCode = readString(in);
+        tags.addressStreet = readString(in);
+        tags.addressHouseNumber = readString(in);
+        return place;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BoundingBoxCenter getBoundingBox() {
+        return bbox;
+    }
+
+    public Raster getRaster() {
+        return raster;
+    }
+
+    public PlaceList getPlaces() {
+        return places;
+    }
+
+    public Map<String, HashSet<String>> getPlacesTypes() {
+        return placesTypes;
+    }
+
+    public boolean isShowPlacesApp() {
+        return showPlacesApp;
+    }
+
+    public VisibilityIndex getVisibilityIndex() {
+        return visibilityIndex;
+    }
+}
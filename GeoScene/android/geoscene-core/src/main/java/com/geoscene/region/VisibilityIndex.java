@@ -0,0 +1,353 @@
+package com.geoscene.region;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.places.fov_analyzer.FOVAnalyzer;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.places.poi.PlaceTags;
+import com.geoscene.viewshed.ViewShed;
+
+import org.javatuples.Pair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/*
+Places visible from a set of observer cells of a region, precomputed so that loading the region
+is a lookup of the nearest observer instead of a viewshed and field of view analysis.
+Each observer keeps the FOVAnalyzer visible places, the nodes hidden by a way of their name included, as varint encoded
+entries of (source index << 4 | rank << 1 | shown elsewhere, [shown place index], cell). The source is the element that was
+classified, the rank its category and way flag, and cell 0 stands for the place's own coordinate and c > 0 for the center of
+raster cell c - 1. Lookups filter the entries to the selected place types before hiding the names, as a live analysis would.
+ */
+public class VisibilityIndex {
+    // 2 moved the row centers a cell south, indices of version 1 address the old cells
+    // 3 keeps the hidden namesakes and the category of each entry
+    public static final int VERSION = 3;
+    public static final int DEFAULT_STRIDE_CELLS = 20;
+    // Farthest a lookup may be from an observer, covers every cell of a default grid
+    public static final double MAX_LOOKUP_DISTANCE_CELLS = DEFAULT_STRIDE_CELLS * 0.75;
+
+    public interface ProgressListener {
+        /**
+         * Called from the building threads each time an observer is done, done counts up to total.
+         */
+        void onProgress(int done, int total);
+    }
+
+    private final int cols;
+    private final int rows;
+    private final int[] observerX;
+    private final int[] observerY;
+    private final byte[][] entries;
+
+    private VisibilityIndex(int cols, int rows, int[] observerX, int[] observerY, byte[][] entries) {
+        this.cols = cols;
+        this.rows = rows;
+        this.observerX = observerX;
+        this.observerY = observerY;
+        this.entries = entries;
+    }
+
+    /**
+     * Every place type the app queries, indices built over it can be filtered down to any selection on lookup.
+     */
+    public static Map<String, HashSet<String>> createDefaultPlacesTypes() {
+        Map<String, HashSet<String>> placesTypes = new HashMap<>();
+        placesTypes.put("place", new HashSet<>(Arrays.asList("city", "town", "village", "island", "farm")));
+        placesTypes.put("natural", new HashSet<>(Arrays.asList("sand", "wood", "peak", "hill", "valley", "volcano", "cliff", "dune")));
+        placesTypes.put("historic", new HashSet<>(Arrays.asList("archaeological_site", "battlefield", "aircraft", "building", "castle", "fort", "ruins", "tomb")));
+        return placesTypes;
+    }
+
+    /**
+     * Index over a regular grid of observer cells, strideCells apart and centered in the raster.
+     */
+    public static VisibilityIndex buildGrid(Raster raster, PlaceList places, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, int strideCells) {
+        return buildGrid(raster, places, placesTypes, showPlacesApp, strideCells, null);
+    }
+
+    public static VisibilityIndex buildGrid(Raster raster, PlaceList places, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, int strideCells,
+                                            ProgressListener progress) {
+        int stride = Math.max(1, strideCells);
+        int cols = raster.getCols(), rows = raster.getRows();
+        int gridCols = (cols - 1) / stride + 1, gridRows = (rows - 1) / stride + 1;
+        int offsetX = (cols - 1 - (gridCols - 1) * stride) / 2, offsetY = (rows - 1 - (gridRows - 1) * stride) / 2;
+        int[] observerX = new int[gridCols * gridRows];
+        int[] observerY = new int[gridCols * gridRows];
+        for (int gy = 0; gy < gridRows; ++gy) {
+            for (int gx = 0; gx < gridCols; ++gx) {
+                observerX[gy * gridCols + gx] = offsetX + gx * stride;
+                observerY[gy * gridCols + gx] = offsetY + gy * stride;
+            }
+        }
+        return build(raster, places, placesTypes, showPlacesApp, observerX, observerY, progress);
+    }
+
+    /**
+     * Runs the app viewshed and field of view analysis from every observer cell in parallel.
+     * The raster needs its bounding box set, its own viewshed is left untouched.
+     */
+    public static VisibilityIndex build(Raster raster, PlaceList places, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, int[] observerX, int[] observerY) {
+        return build(raster, places, placesTypes, showPlacesApp, observerX, observerY, null);
+    }
+
+    public static VisibilityIndex build(Raster raster, PlaceList places, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, int[] observerX, int[] observerY,
+                                        ProgressListener progress) {
+        Map<Place, Integer> placeIndices = new IdentityHashMap<>(places.elements.size());
+        for (int i = 0; i < places.elements.size(); ++i) {
+            placeIndices.put(places.elements.get(i), i);
+        }
+        byte[][] entries = new byte[observerX.length][];
+        AtomicInteger done = new AtomicInteger();
+
+        IntStream.range(0, observerX.length).parallel().forEach(observer -> {
+            double lat = raster.getLatitudeByRow(observerY[observer]);
+            double lon = raster.getLongitudeByCol(observerX[observer]);
+            CellType[][] viewshed = ViewShed.calculateAdaptiveViewshed(raster, lat, lon);
+            // Lightweight view of the shared elevations carrying this observer's viewshed
+            Raster observerRaster = new Raster(raster.getCols(), raster.getRows(), raster.getxLowerLeftCorner(), raster.getyLowerLeftCorner(),
+                    raster.getCellSize(), raster.getElevations());
+            observerRaster.setBoundingBox(raster.getBbox());
+            observerRaster.setViewshed(viewshed);
+            List<FOVAnalyzer.VisibleLocation> visible = FOVAnalyzer.resolveVisiblePlaces(observerRaster, places, placesTypes, showPlacesApp, false);
+            entries[observer] = encode(raster, visible, placeIndices);
+            if (progress != null) {
+                progress.onProgress(done.incrementAndGet(), observerX.length);
+            }
+        });
+        return new VisibilityIndex(raster.getCols(), raster.getRows(), observerX, observerY, entries);
+    }
+
+    private static byte[] encode(Raster raster, List<FOVAnalyzer.VisibleLocation> visible, Map<Place, Integer> placeIndices) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(visible.size() * 4 + 2);
+        writeVarInt(out, visible.size());
+        for (FOVAnalyzer.VisibleLocation location : visible) {
+            Place place = location.getElement();
+            boolean shownElsewhere = place != location.getSource();
+            writeVarInt(out, placeIndices.get(location.getSource()) << 4 | location.getRank() << 1 | (shownElsewhere ? 1 : 0));
+            if (shownElsewhere) {
+                writeVarInt(out, placeIndices.get(place));
+            }
+            writeVarInt(out, encodeCoordinate(raster, place, location.getCoordinate()));
+        }
+        return out.toByteArray();
+    }
+
+    private List<FOVAnalyzer.VisibleLocation> decode(int observer, Raster raster, PlaceList places) {
+        byte[] encoded = entries[observer];
+        int[] position = {0};
+        int count = readVarInt(encoded, position);
+        List<FOVAnalyzer.VisibleLocation> visible = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            int key = readVarInt(encoded, position);
+            Place source = places.elements.get(key >>> 4);
+            Place place = (key & 1) != 0 ? places.elements.get(readVarInt(encoded, position)) : source;
+            int cell = readVarInt(encoded, position);
+            Coordinate coordinate = cell == 0 ? getOwnCoordinate(place) : raster.getCoordinateByRowCol((cell - 1) % cols, (cell - 1) / cols);
+            int rank = (key >>> 1) & 7;
+            visible.add(new FOVAnalyzer.VisibleLocation(FOVAnalyzer.Category.values()[rank >> 1], (rank & 1) == 0, source, place, coordinate));
+        }
+        return visible;
+    }
+
+    private static int encodeCoordinate(Raster raster, Place place, Coordinate coordinate) {
+        Coordinate own = getOwnCoordinate(place);
+        if (own.getLat() == coordinate.getLat() && own.getLon() == coordinate.getLon()) {
+            return 0;
+        }
+        int x = raster.getColByLongitude(coordinate.getLon());
+        int y = raster.getRowByLatitude(coordinate.getLat());
+        return y * raster.getCols() + x + 1;
+    }
+
+    private static Coordinate getOwnCoordinate(Place place) {
+        if (place.bounds != null && "way".equals(place.type)) {
+            return new Coordinate((place.bounds.minlat + place.bounds.maxlat) / 2, (place.bounds.minlon + place.bounds.maxlon) / 2);
+        }
+        return new Coordinate(place.lat, place.lon);
+    }
+
+    public int getObserverCount() {
+        return entries.length;
+    }
+
+    public int getObserverX(int observer) {
+        return observerX[observer];
+    }
+
+    public int getObserverY(int observer) {
+        return observerY[observer];
+    }
+
+    /**
+     * Observer closest to the coordinate, or -1 if the index has no observer within maxDistanceCells.
+     */
+    public int getNearestObserver(Raster raster, double latitude, double longitude, double maxDistanceCells) {
+        // Distances are taken to the coordinates the observers were traced from
+        double cellSize = raster.getCellSize();
+        double maxDistanceSquared = maxDistanceCells * maxDistanceCells;
+        int nearest = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int observer = 0; observer < entries.length; ++observer) {
+            double dx = (raster.getLongitudeByCol(observerX[observer]) - longitude) / cellSize;
+            double dy = (raster.getLatitudeByRow(observerY[observer]) - latitude) / cellSize;
+            double distance = dx * dx + dy * dy;
+            if (distance < nearestDistance && distance <= maxDistanceSquared) {
+                nearestDistance = distance;
+                nearest = observer;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Indices into the indexed place list of every place stored for the observer, in FOVAnalyzer order.
+     * The nodes a visible way of their name hides are included.
+     */
+    public int[] getVisiblePlaceIndices(int observer) {
+        byte[] encoded = entries[observer];
+        int[] position = {0};
+        int[] indices = new int[readVarInt(encoded, position)];
+        for (int i = 0; i < indices.length; ++i) {
+            int key = readVarInt(encoded, position);
+            indices[i] = (key & 1) != 0 ? readVarInt(encoded, position) : key >>> 4;
+            readVarInt(encoded, position);
+        }
+        return indices;
+    }
+
+    /**
+     * Places visible from the observer with their marker coordinates, as FOVAnalyzer.intersectVisiblePlaces
+     * returns them. The places must be the list the index was built from.
+     */
+    public List<Pair<Place, Coordinate>> getVisiblePlaces(int observer, Raster raster, PlaceList places) {
+        List<Pair<Place, Coordinate>> visible = new ArrayList<>();
+        for (FOVAnalyzer.VisibleLocation location : FOVAnalyzer.hideNamesakes(decode(observer, raster, places))) {
+            visible.add(new Pair<>(location.getElement(), location.getCoordinate()));
+        }
+        return visible;
+    }
+
+    /**
+     * Visible places restricted to the selected place types, for indices built over a wider selection.
+     * With showCenter the markers are placed on the places' own coordinates as FOVAnalyzer places them.
+     */
+    public List<Pair<Place, Coordinate>> getVisiblePlaces(int observer, Raster raster, PlaceList places,
+                                                          Map<String, HashSet<String>> placesTypes, boolean showPlacesApp, boolean showCenter) {
+        List<FOVAnalyzer.VisibleLocation> selected = new ArrayList<>();
+        for (FOVAnalyzer.VisibleLocation location : decode(observer, raster, places)) {
+            if (isSelected(location, placesTypes, showPlacesApp)) {
+                selected.add(location);
+            }
+        }
+        // Names are hidden among the selected places only, a way of an unselected type hides nothing
+        List<Pair<Place, Coordinate>> visible = new ArrayList<>(selected.size());
+        for (FOVAnalyzer.VisibleLocation location : FOVAnalyzer.hideNamesakes(selected)) {
+            Place place = location.getElement();
+            visible.add(new Pair<>(place, showCenter ? getOwnCoordinate(place) : location.getCoordinate()));
+        }
+        return visible;
+    }
+
+    // Selection is decided on the classified element, as FOVAnalyzer classifies it
+    private static boolean isSelected(FOVAnalyzer.VisibleLocation location, Map<String, HashSet<String>> placesTypes, boolean showPlacesApp) {
+        PlaceTags tags = location.getSource().tags;
+        switch (location.getCategory()) {
+            case PLACE:
+                return tags.place != null && placesTypes.get("place").contains(tags.place);
+            case NATURAL:
+                return tags.natural != null && placesTypes.get("natural").contains(tags.natural);
+            case HISTORIC:
+                return tags.historic != null && placesTypes.get("historic").contains(tags.historic);
+            default:
+                return showPlacesApp;
+        }
+    }
+
+    public boolean matches(Raster raster) {
+        return raster.getCols() == cols && raster.getRows() == rows;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(cols);
+        out.writeInt(rows);
+        out.writeInt(entries.length);
+        for (int observer = 0; observer < entries.length; ++observer) {
+            out.writeShort(observerX[observer]);
+            out.writeShort(observerY[observer]);
+            out.writeInt(entries[observer].length);
+            out.write(entries[observer]);
+        }
+    }
+
+    public static VisibilityIndex read(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported visibility index version " + version);
+        }
+        int cols = in.readInt();
+        int rows = in.readInt();
+        int observers = in.readInt();
+        int[] observerX = new int[observers];
+        int[] observerY = new int[observers];
+        byte[][] entries = new byte[observers][];
+        for (int observer = 0; observer < observers; ++observer) {
+            observerX[observer] = in.readUnsignedShort();
+            observerY[observer] = in.readUnsignedShort();
+            entries[observer] = new byte[in.readInt()];
+            in.readFully(entries[observer]);
+        }
+        return new VisibilityIndex(cols, rows, observerX, observerY, entries);
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static VisibilityIndex fromByteArray(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
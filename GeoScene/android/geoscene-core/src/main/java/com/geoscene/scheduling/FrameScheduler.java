@@ -0,0 +1,126 @@
+package com.geoscene.scheduling;
+
+import com.geoscene.logging.Log;
+import com.geoscene.tracing.FrameTimeHistogram;
+
+import java.util.ArrayDeque;
+
+/*
+Cooperative scheduler of the work done on the AR frame thread. Tasks are queued by priority and run once per frame
+until the frame budget is spent, the remaining tasks are deferred to the next frames in their order.
+The most urgent task of a frame always runs, so every frame makes progress even when a single task exceeds the budget.
+Used from the frame thread only, the histograms may be read from any thread.
+ */
+public class FrameScheduler {
+    private static final String TAG = "FRAME_SCHEDULER";
+    // Work per frame that leaves a 60 Hz frame enough time to render
+    public static final long DEFAULT_BUDGET = 4_000_000;
+
+    // In order of urgency
+    public enum Priority {
+        SETUP,
+        ANCHOR_PLACEMENT,
+        LABEL_TEXT,
+        COLLISION
+    }
+
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private final ArrayDeque<Runnable>[] queues;
+    // Tasks of each queue runnable in the running frame, the tasks posted while running wait for the next frame
+    private final int[] runnable;
+    private final long budget;
+    private final Clock clock;
+    private final FrameTimeHistogram frameTimes;
+    private final FrameTimeHistogram workTimes;
+    private long frameStart;
+    private boolean running;
+    private long deferred;
+
+    public FrameScheduler(long budget, FrameTimeHistogram frameTimes, FrameTimeHistogram workTimes) {
+        this(budget, frameTimes, workTimes, System::nanoTime);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public FrameScheduler(long budget, FrameTimeHistogram frameTimes, FrameTimeHistogram workTimes, Clock clock) {
+        this.budget = budget;
+        this.frameTimes = frameTimes;
+        this.workTimes = workTimes;
+        this.clock = clock;
+        queues = new ArrayDeque[Priority.values().length];
+        for (int i = 0; i < queues.length; ++i) {
+            queues[i] = new ArrayDeque<>();
+        }
+        runnable = new int[queues.length];
+    }
+
+    public void post(Priority priority, Runnable task) {
+        queues[priority.ordinal()].add(task);
+    }
+
+    /**
+     * Runs the queued tasks by priority until the budget of the frame is spent.
+     *
+     * @param frameInterval nanoseconds since the previous frame, recorded in the frame time histogram when positive
+     */
+    public void runFrame(long frameInterval) {
+        if (frameInterval > 0) {
+            frameTimes.record(frameInterval);
+        }
+        frameStart = clock.nanoTime();
+        running = true;
+        for (int i = 0; i < queues.length; ++i) {
+            runnable[i] = queues[i].size();
+        }
+        boolean ran = false;
+        for (int i = 0; i < queues.length; ++i) {
+            for (; runnable[i] > 0; --runnable[i]) {
+                if (ran && !hasBudget()) {
+                    break;
+                }
+                Runnable task = queues[i].poll();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Frame task failed: " + e);
+                }
+                ran = true;
+            }
+            deferred += runnable[i];
+        }
+        running = false;
+        workTimes.record(clock.nanoTime() - frameStart);
+    }
+
+    /**
+     * Whether the running frame has budget left, for tasks that split their own work. Always true between frames.
+     */
+    public boolean hasBudget() {
+        return !running || clock.nanoTime() - frameStart < budget;
+    }
+
+    public int getPending() {
+        int pending = 0;
+        for (ArrayDeque<Runnable> queue : queues) {
+            pending += queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Times a task was carried over to a later frame.
+     */
+    public long getDeferredCount() {
+        return deferred;
+    }
+
+    public FrameTimeHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public FrameTimeHistogram getWorkTimes() {
+        return workTimes;
+    }
+}
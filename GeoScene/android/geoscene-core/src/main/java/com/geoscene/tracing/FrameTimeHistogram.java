@@ -0,0 +1,96 @@
+package com.geoscene.tracing;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/*
+Histogram of frame times in fixed buckets around the display refresh intervals, cheap enough to record every frame.
+Recorded on the frame thread and read from the bridge thread.
+ */
+public class FrameTimeHistogram {
+    // Upper bounds of the buckets in milliseconds, the last bucket holds the longer frames
+    public static final double[] BUCKET_BOUNDS = {2, 4, 8, 12, 16.7, 20, 25, 33.4, 50, 66.7, 100, 250};
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long[] counts = new long[BUCKET_BOUNDS.length + 1];
+    private long count;
+    private long total;
+    private long max;
+
+    public synchronized void record(long nanos) {
+        double millis = nanos / NANOS_PER_MILLI;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && millis > BUCKET_BOUNDS[bucket]) {
+            ++bucket;
+        }
+        ++counts[bucket];
+        ++count;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long[] getCounts() {
+        return counts.clone();
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : total / NANOS_PER_MILLI / count;
+    }
+
+    public synchronized double getMax() {
+        return max / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Upper bound in milliseconds of the bucket holding the given fraction of the frames, the longest frame for the last bucket.
+     */
+    public synchronized double getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_BOUNDS.length; ++bucket) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS[bucket], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = 0;
+        }
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    public synchronized JsonObject toJsonTree() {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", count);
+        json.addProperty("mean", getMean());
+        json.addProperty("max", getMax());
+        json.addProperty("p50", getPercentile(0.5));
+        json.addProperty("p95", getPercentile(0.95));
+        json.addProperty("p99", getPercentile(0.99));
+        JsonArray buckets = new JsonArray();
+        for (int i = 0; i < counts.length; ++i) {
+            JsonObject bucket = new JsonObject();
+            // The overflow bucket has no upper bound, JSON has no infinity to write for it
+            if (i < BUCKET_BOUNDS.length) {
+                bucket.addProperty("le", BUCKET_BOUNDS[i]);
+            }
+            bucket.addProperty("count", counts[i]);
+            buckets.add(bucket);
+        }
+        json.add("buckets", buckets);
+        return json;
+    }
+}
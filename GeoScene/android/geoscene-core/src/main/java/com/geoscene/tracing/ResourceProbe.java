@@ -0,0 +1,25 @@
+package com.geoscene.tracing;
+
+/*
+Per thread resource counters sampled at the start and end of a traced stage.
+The app reads them from android.os.Debug, on the JVM they are reported as unavailable.
+ */
+public interface ResourceProbe {
+    long UNAVAILABLE = -1;
+
+    ResourceProbe NONE = new ResourceProbe() {
+        @Override
+        public long threadCpuTimeNanos() {
+            return UNAVAILABLE;
+        }
+
+        @Override
+        public long allocatedBytes() {
+            return UNAVAILABLE;
+        }
+    };
+
+    long threadCpuTimeNanos();
+
+    long allocatedBytes();
+}
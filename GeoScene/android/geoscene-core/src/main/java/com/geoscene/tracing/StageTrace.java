@@ -0,0 +1,33 @@
+package com.geoscene.tracing;
+
+/*
+Measurements of one stage of a traced load, counters that were not available are -1.
+ */
+public class StageTrace {
+    public final int session;
+    public final String stage;
+    public final String thread;
+    public final long startMillis;
+    public final long wallNanos;
+    public final long cpuNanos;
+    public final long allocatedBytes;
+    public final long bytes;
+    public final long cells;
+    public final long items;
+    public final boolean success;
+
+    public StageTrace(int session, String stage, String thread, long startMillis, long wallNanos, long cpuNanos,
+                      long allocatedBytes, long bytes, long cells, long items, boolean success) {
+        this.session = session;
+        this.stage = stage;
+        this.thread = thread;
+        this.startMillis = startMillis;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.bytes = bytes;
+        this.cells = cells;
+        this.items = items;
+        this.success = success;
+    }
+}
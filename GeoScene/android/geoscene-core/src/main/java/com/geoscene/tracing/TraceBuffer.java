@@ -0,0 +1,71 @@
+package com.geoscene.tracing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Fixed size ring of the latest stage traces, the oldest trace is overwritten once it is full.
+ */
+public class TraceBuffer {
+    private final StageTrace[] traces;
+    private int next;
+    private int size;
+    private long recorded;
+
+    public TraceBuffer(int capacity) {
+        traces = new StageTrace[Math.max(1, capacity)];
+    }
+
+    public synchronized void add(StageTrace trace) {
+        traces[next] = trace;
+        next = (next + 1) % traces.length;
+        size = Math.min(size + 1, traces.length);
+        ++recorded;
+    }
+
+    /**
+     * Buffered traces from the oldest to the latest.
+     */
+    public synchronized List<StageTrace> snapshot() {
+        List<StageTrace> snapshot = new ArrayList<>(size);
+        int first = (next - size + traces.length) % traces.length;
+        for (int i = 0; i < size; ++i) {
+            snapshot.add(traces[(first + i) % traces.length]);
+        }
+        return snapshot;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < traces.length; ++i) {
+            traces[i] = null;
+        }
+        next = 0;
+        size = 0;
+        recorded = 0;
+    }
+
+    public int getCapacity() {
+        return traces.length;
+    }
+
+    public synchronized long getDroppedCount() {
+        return recorded - size;
+    }
+
+    public String toJson() {
+        Gson gson = new Gson();
+        JsonObject json = new JsonObject();
+        JsonArray traces = new JsonArray();
+        for (StageTrace trace : snapshot()) {
+            traces.add(gson.toJsonTree(trace));
+        }
+        json.addProperty("capacity", getCapacity());
+        json.addProperty("dropped", getDroppedCount());
+        json.add("traces", traces);
+        return gson.toJson(json);
+    }
+}
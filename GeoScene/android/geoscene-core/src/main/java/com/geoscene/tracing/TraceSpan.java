@@ -0,0 +1,73 @@
+package com.geoscene.tracing;
+
+/*
+A stage being measured, recorded into the trace buffer when closed.
+Spans closed on another thread than they began on, such as network requests, report no CPU time or allocations.
+ */
+public class TraceSpan implements AutoCloseable {
+    private final TraceBuffer buffer;
+    private final ResourceProbe probe;
+    private final int session;
+    private final String stage;
+    private final Thread thread;
+    private final long startMillis;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private long bytes = ResourceProbe.UNAVAILABLE;
+    private long cells = ResourceProbe.UNAVAILABLE;
+    private long items = ResourceProbe.UNAVAILABLE;
+    private boolean success = true;
+    private boolean closed;
+
+    TraceSpan(TraceBuffer buffer, ResourceProbe probe, int session, String stage) {
+        this.buffer = buffer;
+        this.probe = probe;
+        this.session = session;
+        this.stage = stage;
+        thread = Thread.currentThread();
+        startMillis = System.currentTimeMillis();
+        startCpuNanos = probe.threadCpuTimeNanos();
+        startAllocatedBytes = probe.allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    public TraceSpan setBytes(long bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    public TraceSpan setCells(long cells) {
+        this.cells = cells;
+        return this;
+    }
+
+    public TraceSpan setItems(long items) {
+        this.items = items;
+        return this;
+    }
+
+    public TraceSpan fail() {
+        success = false;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        long wallNanos = System.nanoTime() - startNanos;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        boolean sameThread = Thread.currentThread() == thread;
+        long cpuNanos = sameThread ? delta(startCpuNanos, probe.threadCpuTimeNanos()) : ResourceProbe.UNAVAILABLE;
+        long allocatedBytes = sameThread ? delta(startAllocatedBytes, probe.allocatedBytes()) : ResourceProbe.UNAVAILABLE;
+        buffer.add(new StageTrace(session, stage, thread.getName(), startMillis, wallNanos, cpuNanos, allocatedBytes, bytes, cells, items, success));
+    }
+
+    private static long delta(long start, long end) {
+        return start == ResourceProbe.UNAVAILABLE || end == ResourceProbe.UNAVAILABLE ? ResourceProbe.UNAVAILABLE : end - start;
+    }
+}
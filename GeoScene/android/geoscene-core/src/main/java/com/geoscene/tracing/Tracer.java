@@ -0,0 +1,64 @@
+package com.geoscene.tracing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Structured timing of the load pipeline, the counterpart of the logging facade for measurements.
+Stages are grouped in sessions, one per load, and kept in a ring buffer that can be exported as JSON.
+The AR frame intervals and the work scheduled on the frames are kept as histograms.
+ */
+public final class Tracer {
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final TraceBuffer buffer = new TraceBuffer(DEFAULT_CAPACITY);
+    private static final FrameTimeHistogram frameTimes = new FrameTimeHistogram();
+    private static final FrameTimeHistogram frameWorkTimes = new FrameTimeHistogram();
+    private static final AtomicInteger sessions = new AtomicInteger();
+    private static volatile ResourceProbe probe = ResourceProbe.NONE;
+    private static volatile int session;
+
+    private Tracer() { }
+
+    public static void setResourceProbe(ResourceProbe probe) {
+        Tracer.probe = probe != null ? probe : ResourceProbe.NONE;
+    }
+
+    /**
+     * Starts a new session, the stages that begin after it are attributed to it.
+     */
+    public static int startSession() {
+        session = sessions.incrementAndGet();
+        return session;
+    }
+
+    public static TraceSpan begin(String stage) {
+        return new TraceSpan(buffer, probe, session, stage);
+    }
+
+    public static TraceBuffer getBuffer() {
+        return buffer;
+    }
+
+    public static FrameTimeHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public static FrameTimeHistogram getFrameWorkTimes() {
+        return frameWorkTimes;
+    }
+
+    public static String frameTimesToJson() {
+        JsonObject json = new JsonObject();
+        json.add("frames", frameTimes.toJsonTree());
+        json.add("work", frameWorkTimes.toJsonTree());
+        return new Gson().toJson(json);
+    }
+
+    public static void clearFrameTimes() {
+        frameTimes.clear();
+        frameWorkTimes.clear();
+    }
+}
@@ -0,0 +1,208 @@
+package com.geoscene.triangulation;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicData;
+import net.sf.geographiclib.GeodesicLine;
+import net.sf.geographiclib.GeodesicMask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Geodesic arcs drawn on a web mercator map, cached per origin, azimuth and zoom level.
+An arc is sampled at a step relative to the ground size of a pixel at the zoom level and simplified with
+Douglas-Peucker on the mercator plane, so it keeps only the points that move it by more than a pixel.
+The returned point lists are shared between callers and must not be modified.
+Not thread safe, each thread drawing arcs keeps its own cache.
+ */
+public class GeodesicArcCache<P> {
+    private static final Geodesic GEODESIC = Geodesic.WGS84;
+    public static final int DEFAULT_CAPACITY = 256;
+    // Mercator meters per pixel of a 256 pixel tile at zoom level 0
+    private static final double MERCATOR_METERS_PER_PIXEL = 2 * Math.PI * 6378137 / 256;
+    private static final double TOLERANCE_PIXELS = 1;
+    private static final double SAMPLES_PER_TOLERANCE = 4;
+    private static final double MIN_SAMPLE_INTERVAL = 50;
+    private static final double MAX_SAMPLE_INTERVAL = 1000;
+    // Keys are quantized so nearly equal lines of sight share an arc, 1e-6 degrees is about 10 centimeters
+    private static final double COORDINATE_QUANTUM = 1e-6;
+    private static final double AZIMUTH_QUANTUM = 1e-2;
+
+    public interface PointFactory<P> {
+        P create(double lat, double lon);
+    }
+
+    private final PointFactory<P> pointFactory;
+    private final Map<ArcKey, List<P>> arcs;
+    private int hits;
+    private int misses;
+
+    public GeodesicArcCache(PointFactory<P> pointFactory) {
+        this(pointFactory, DEFAULT_CAPACITY);
+    }
+
+    public GeodesicArcCache(PointFactory<P> pointFactory, int capacity) {
+        this.pointFactory = pointFactory;
+        arcs = new LinkedHashMap<ArcKey, List<P>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ArcKey, List<P>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Zoom levels are whole map zoom levels, arcs drawn at a fractional zoom use the finer level below it.
+     */
+    public static int getLevel(double zoom) {
+        return (int) Math.max(0, Math.floor(zoom));
+    }
+
+    public List<P> getArc(double lat, double lon, double azimuth, double distance, double zoom) {
+        ArcKey key = new ArcKey(Math.round(lat / COORDINATE_QUANTUM), Math.round(lon / COORDINATE_QUANTUM),
+                Math.round((((azimuth % 360) + 360) % 360) / AZIMUTH_QUANTUM), distance, getLevel(zoom));
+        List<P> arc = arcs.get(key);
+        if (arc != null) {
+            ++hits;
+            return arc;
+        }
+        ++misses;
+        double tolerance = getMercatorTolerance(key.level);
+        double[] points = sampleArc(key.lat * COORDINATE_QUANTUM, key.lon * COORDINATE_QUANTUM, key.azimuth * AZIMUTH_QUANTUM, distance,
+                getSampleInterval(tolerance, lat));
+        boolean[] keep = simplify(points, tolerance);
+        List<P> simplified = new ArrayList<>();
+        for (int i = 0; i < keep.length; ++i) {
+            if (keep[i]) {
+                simplified.add(pointFactory.create(points[2 * i], points[2 * i + 1]));
+            }
+        }
+        arc = Collections.unmodifiableList(simplified);
+        arcs.put(key, arc);
+        return arc;
+    }
+
+    public int getHitCount() {
+        return hits;
+    }
+
+    public int getMissCount() {
+        return misses;
+    }
+
+    public void clear() {
+        arcs.clear();
+    }
+
+    static double getMercatorTolerance(int level) {
+        return MERCATOR_METERS_PER_PIXEL / (1L << Math.min(level, 30)) * TOLERANCE_PIXELS;
+    }
+
+    private static double getSampleInterval(double mercatorTolerance, double lat) {
+        // Mercator meters shrink to ground meters by the cosine of the latitude
+        double groundTolerance = mercatorTolerance * Math.cos(Math.toRadians(lat));
+        return Math.min(MAX_SAMPLE_INTERVAL, Math.max(MIN_SAMPLE_INTERVAL, groundTolerance * SAMPLES_PER_TOLERANCE));
+    }
+
+    /**
+     * The arc's {lat, lon} pairs every interval meters, both ends included.
+     */
+    static double[] sampleArc(double lat, double lon, double azimuth, double distance, double interval) {
+        GeodesicLine line = GEODESIC.Line(lat, lon, azimuth);
+        line.SetDistance(distance);
+        int pointCount = Math.max(1, (int) Math.ceil(line.Distance() / interval));
+        double da = line.Arc() / pointCount;
+        double[] points = new double[2 * (pointCount + 1)];
+        for (int i = 0; i <= pointCount; ++i) {
+            GeodesicData g = line.ArcPosition(i * da, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+            points[2 * i] = g.lat2;
+            points[2 * i + 1] = g.lon2;
+        }
+        return points;
+    }
+
+    /**
+     * Douglas-Peucker over the {lat, lon} pairs projected on the mercator plane, marks the points kept
+     * so no dropped point is farther than tolerance mercator meters from the simplified line.
+     */
+    static boolean[] simplify(double[] points, double tolerance) {
+        int count = points.length / 2;
+        double[] x = new double[count], y = new double[count];
+        for (int i = 0; i < count; ++i) {
+            double latRadians = Math.toRadians(Math.max(-85, Math.min(85, points[2 * i])));
+            // Longitudes are unwrapped along the arc so it stays continuous across the antimeridian
+            double lon = points[2 * i + 1];
+            if (i > 0) {
+                double previous = Math.toDegrees(x[i - 1] / 6378137);
+                lon = previous + ((((lon - previous) % 360) + 540) % 360 - 180);
+            }
+            x[i] = 6378137 * Math.toRadians(lon);
+            y[i] = 6378137 * Math.log(Math.tan(Math.PI / 4 + latRadians / 2));
+        }
+        boolean[] keep = new boolean[count];
+        keep[0] = keep[count - 1] = true;
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top], first = stack[--top];
+            double dx = x[last] - x[first], dy = y[last] - y[first];
+            double length = Math.hypot(dx, dy);
+            double farthest = tolerance;
+            int farthestIndex = -1;
+            for (int i = first + 1; i < last; ++i) {
+                double distance = length == 0 ? Math.hypot(x[i] - x[first], y[i] - y[first]) :
+                        Math.abs(dx * (y[first] - y[i]) - dy * (x[first] - x[i])) / length;
+                if (distance > farthest) {
+                    farthest = distance;
+                    farthestIndex = i;
+                }
+            }
+            if (farthestIndex >= 0) {
+                keep[farthestIndex] = true;
+                stack[top++] = first;
+                stack[top++] = farthestIndex;
+                stack[top++] = farthestIndex;
+                stack[top++] = last;
+            }
+        }
+        return keep;
+    }
+
+    private static class ArcKey {
+        private final long lat;
+        private final long lon;
+        private final long azimuth;
+        private final double distance;
+        private final int level;
+
+        private ArcKey(long lat, long lon, long azimuth, double distance, int level) {
+            this.lat = lat;
+            this.lon = lon;
+            this.azimuth = azimuth;
+            this.distance = distance;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ArcKey)) return false;
+            ArcKey key = (ArcKey) o;
+            return lat == key.lat && lon == key.lon && azimuth == key.azimuth && distance == key.distance && level == key.level;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(lat);
+            result = 31 * result + Long.hashCode(lon);
+            result = 31 * result + Long.hashCode(azimuth);
+            result = 31 * result + Double.hashCode(distance);
+            return 31 * result + level;
+        }
+    }
+}
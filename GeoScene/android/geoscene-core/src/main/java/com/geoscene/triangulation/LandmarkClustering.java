@@ -0,0 +1,110 @@
+package com.geoscene.triangulation;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicMask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Groups the shared rays met by the observer's ray into the landmarks they observe, so each landmark is fixed once from
+all of its observations. Two rays are linked when their intersections with the observer's ray are within a few azimuth
+errors of each other as seen from the rays' origins. A group is only fixed together when the fix explains every ray,
+each ray passing within a few azimuth errors of it and the rms azimuth error staying small.
+ */
+public class LandmarkClustering {
+    private static final Geodesic GEODESIC = Geodesic.WGS84;
+    // Azimuth errors a ray of the landmark may be off, for linking intersections and for the rays of a fix
+    public static final double CLUSTER_SIGMAS = 3;
+    // Azimuth errors the rms error of a fix may reach before its rays are taken to observe different points
+    public static final double MAX_RMS_SIGMAS = 2;
+
+    private final LeastSquaresTriangulation solver;
+    private final double azimuthSigma;
+
+    public LandmarkClustering() {
+        this(LeastSquaresTriangulation.DEFAULT_AZIMUTH_SIGMA);
+    }
+
+    public LandmarkClustering(double azimuthSigma) {
+        solver = new LeastSquaresTriangulation(azimuthSigma);
+        this.azimuthSigma = azimuthSigma;
+    }
+
+    /**
+     * Single linkage groups of the candidates, indices into the arrays, in order of their first candidate.
+     * Ray i starts at (lats[i], lons[i]) and meets the observer's ray at (intersections[2i], intersections[2i + 1]).
+     */
+    public List<List<Integer>> cluster(List<Integer> candidates, double[] lats, double[] lons, double[] intersections) {
+        int count = candidates.size();
+        double[] ranges = new double[count];
+        for (int k = 0; k < count; ++k) {
+            int i = candidates.get(k);
+            ranges[k] = distance(lats[i], lons[i], intersections[2 * i], intersections[2 * i + 1]);
+        }
+        double tolerance = Math.toRadians(CLUSTER_SIGMAS * azimuthSigma);
+        int[] groupOf = new int[count];
+        Arrays.fill(groupOf, -1);
+        List<List<Integer>> groups = new ArrayList<>();
+        for (int first = 0; first < count; ++first) {
+            if (groupOf[first] != -1) {
+                continue;
+            }
+            List<Integer> members = new ArrayList<>();
+            members.add(first);
+            groupOf[first] = groups.size();
+            for (int m = 0; m < members.size(); ++m) {
+                int a = members.get(m), i = candidates.get(a);
+                for (int b = first + 1; b < count; ++b) {
+                    int j = candidates.get(b);
+                    if (groupOf[b] == -1 && distance(intersections[2 * i], intersections[2 * i + 1], intersections[2 * j], intersections[2 * j + 1])
+                            <= tolerance * Math.hypot(ranges[a], ranges[b])) {
+                        groupOf[b] = groups.size();
+                        members.add(b);
+                    }
+                }
+            }
+            members.sort(null);
+            List<Integer> group = new ArrayList<>(members.size());
+            for (int k : members) {
+                group.add(candidates.get(k));
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Fix of the group's rays together with the observer's ray, or null when they do not observe a single point.
+     */
+    public TriangulationFix fix(double lat0, double lon0, double azi0, List<Integer> group, double[] lats, double[] lons, double[] azimuths) {
+        int count = group.size() + 1;
+        double[] rayLats = new double[count], rayLons = new double[count], rayAzimuths = new double[count];
+        rayLats[0] = lat0;
+        rayLons[0] = lon0;
+        rayAzimuths[0] = azi0;
+        for (int k = 1; k < count; ++k) {
+            int i = group.get(k - 1);
+            rayLats[k] = lats[i];
+            rayLons[k] = lons[i];
+            rayAzimuths[k] = azimuths[i];
+        }
+        TriangulationFix fix = solver.solve(rayLats, rayLons, rayAzimuths, count);
+        if (fix == null || fix.rmsError > MAX_RMS_SIGMAS * azimuthSigma) {
+            return null;
+        }
+        for (int k = 0; k < count; ++k) {
+            double azimuth = GEODESIC.Inverse(rayLats[k], rayLons[k], fix.lat, fix.lon, GeodesicMask.AZIMUTH).azi1;
+            double residual = Math.abs(((azimuth - rayAzimuths[k]) % 360 + 540) % 360 - 180);
+            if (residual > CLUSTER_SIGMAS * azimuthSigma) {
+                return null;
+            }
+        }
+        return fix;
+    }
+
+    private static double distance(double lat1, double lon1, double lat2, double lon2) {
+        return GEODESIC.Inverse(lat1, lon1, lat2, lon2, GeodesicMask.DISTANCE).s12;
+    }
+}
@@ -0,0 +1,171 @@
+package com.geoscene.triangulation;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicData;
+import net.sf.geographiclib.GeodesicMask;
+import net.sf.geographiclib.Gnomonic;
+import net.sf.geographiclib.GnomonicData;
+
+import java.util.List;
+
+/*
+Fixes a target from all the rays observed toward it by minimizing the azimuth errors of the rays.
+Each iteration projects the rays on a gnomonic plane about the current estimate, where the rays are nearly straight
+lines, and solves the 2x2 normal equations of the rays' perpendicular offsets weighted by the inverse squared range,
+so an offset is weighed as the angle it subtends at the ray origin. Rays whose angular error exceeds the Huber threshold
+are downweighted so a single bad compass reading does not drag the fix. Every iteration is linear in the ray count.
+ */
+public class LeastSquaresTriangulation {
+    private static final Geodesic GEODESIC = Geodesic.WGS84;
+    static final int MAX_ITERATIONS = 20;
+    // Meters the estimate may still move by once converged
+    static final double CONVERGENCE = 1e-2;
+    // A priori azimuth error of a shared observation, a phone compass is good to a few degrees
+    public static final double DEFAULT_AZIMUTH_SIGMA = 3;
+    // Angular residuals beyond this many sigmas are downweighted
+    private static final double HUBER_THRESHOLD = 1.345;
+    private static final double MIN_RANGE = 1;
+
+    private final Gnomonic gnomonic = new Gnomonic(GEODESIC);
+    private final double azimuthSigma;
+
+    public LeastSquaresTriangulation() {
+        this(DEFAULT_AZIMUTH_SIGMA);
+    }
+
+    public LeastSquaresTriangulation(double azimuthSigma) {
+        this.azimuthSigma = Math.toRadians(azimuthSigma);
+    }
+
+    public TriangulationFix solve(List<TriangulationData> rays) {
+        int count = rays.size();
+        double[] lats = new double[count], lons = new double[count], azimuths = new double[count];
+        for (int i = 0; i < count; ++i) {
+            TriangulationData ray = rays.get(i);
+            lats[i] = ray.getLat();
+            lons[i] = ray.getLon();
+            azimuths[i] = ray.getAzimuth();
+        }
+        return solve(lats, lons, azimuths, count);
+    }
+
+    /**
+     * The point closest in azimuth to the first count rays, or null for fewer than two rays, rays that do not
+     * constrain a point or a point behind any of the rays.
+     */
+    public TriangulationFix solve(double[] lats, double[] lons, double[] azimuths, int count) {
+        if (count < 2) {
+            return null;
+        }
+        double[] estimate = new double[2];
+        if (!solvePlanar(lats, lons, azimuths, count, estimate)) {
+            return null;
+        }
+        double lat = estimate[0], lon = estimate[1];
+        // Normal matrix {a, b; b, c}, right hand side {d, e} and weighted squared angular residuals of the last iteration
+        double a = 0, b = 0, c = 0, squaredResiduals = 0, weights = 0;
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < MAX_ITERATIONS && !converged) {
+            ++iteration;
+            a = b = c = squaredResiduals = weights = 0;
+            double d = 0, e = 0;
+            for (int i = 0; i < count; ++i) {
+                double range = Math.max(MIN_RANGE, GEODESIC.Inverse(lats[i], lons[i], lat, lon, GeodesicMask.DISTANCE).s12);
+                GeodesicData ahead = GEODESIC.Direct(lats[i], lons[i], azimuths[i], range, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+                GnomonicData origin = gnomonic.Forward(lat, lon, lats[i], lons[i]);
+                GnomonicData target = gnomonic.Forward(lat, lon, ahead.lat2, ahead.lon2);
+                double dx = target.x - origin.x, dy = target.y - origin.y;
+                double length = Math.hypot(dx, dy);
+                if (Double.isNaN(length) || length == 0) {
+                    return null;
+                }
+                // Unit normal of the projected ray, the estimate at the plane origin is offset from the ray by -n.o
+                double nx = dy / length, ny = -dx / length;
+                double offset = nx * origin.x + ny * origin.y;
+                double angle = offset / range;
+                double weight = huberWeight(angle / azimuthSigma) / (range * range);
+                a += weight * nx * nx;
+                b += weight * nx * ny;
+                c += weight * ny * ny;
+                d += weight * nx * offset;
+                e += weight * ny * offset;
+                squaredResiduals += angle * angle;
+                weights += weight * offset * offset;
+            }
+            double determinant = a * c - b * b;
+            if (determinant <= 0 || Double.isNaN(determinant)) {
+                return null; // All rays parallel on the plane
+            }
+            double x = (c * d - b * e) / determinant, y = (a * e - b * d) / determinant;
+            GnomonicData moved = gnomonic.Reverse(lat, lon, x, y);
+            if (Double.isNaN(moved.lat)) {
+                return null;
+            }
+            lat = moved.lat;
+            lon = moved.lon;
+            converged = Math.hypot(x, y) < CONVERGENCE;
+        }
+        for (int i = 0; i < count; ++i) {
+            if (!isAhead(lats[i], lons[i], azimuths[i], lat, lon)) {
+                return null;
+            }
+        }
+        return getFix(lat, lon, a, b, c, weights, squaredResiduals, count, iteration);
+    }
+
+    /**
+     * Linear least squares start on an equirectangular plane about the first ray origin with equal weights.
+     */
+    private static boolean solvePlanar(double[] lats, double[] lons, double[] azimuths, int count, double[] estimate) {
+        double cos0 = Math.cos(Math.toRadians(lats[0]));
+        double a = 0, b = 0, c = 0, d = 0, e = 0;
+        for (int i = 0; i < count; ++i) {
+            double ox = (lons[i] - lons[0]) * cos0, oy = lats[i] - lats[0];
+            double nx = Math.cos(Math.toRadians(azimuths[i])), ny = -Math.sin(Math.toRadians(azimuths[i]));
+            double offset = nx * ox + ny * oy;
+            a += nx * nx;
+            b += nx * ny;
+            c += ny * ny;
+            d += nx * offset;
+            e += ny * offset;
+        }
+        double determinant = a * c - b * b;
+        if (Math.abs(determinant) < 1e-12) {
+            return false;
+        }
+        double x = (c * d - b * e) / determinant, y = (a * e - b * d) / determinant;
+        estimate[0] = lats[0] + y;
+        estimate[1] = lons[0] + x / cos0;
+        return Math.abs(estimate[0]) < 90;
+    }
+
+    private TriangulationFix getFix(double lat, double lon, double a, double b, double c,
+                                    double weightedSquaredOffsets, double squaredResiduals, int count, int iterations) {
+        // The a priori azimuth variance unless the rays disagree by more, with two rays the fit is always exact
+        double variance = azimuthSigma * azimuthSigma;
+        if (count > 2) {
+            variance = Math.max(variance, weightedSquaredOffsets / (count - 2));
+        }
+        // Covariance is the variance times the inverse normal matrix, its eigenvalues are the squared ellipse axes
+        double determinant = a * c - b * b;
+        double sxx = variance * c / determinant, syy = variance * a / determinant, sxy = -variance * b / determinant;
+        double mean = (sxx + syy) / 2, spread = Math.hypot((sxx - syy) / 2, sxy);
+        double semiMajor = Math.sqrt(mean + spread), semiMinor = Math.sqrt(Math.max(0, mean - spread));
+        // Major axis direction on the plane, x east and y north, as an azimuth folded into [0, 180)
+        double theta = 0.5 * Math.atan2(2 * sxy, sxx - syy);
+        double orientation = ((90 - Math.toDegrees(theta)) % 180 + 180) % 180;
+        double rmsError = Math.toDegrees(Math.sqrt(squaredResiduals / count));
+        return new TriangulationFix(lat, lon, semiMajor, semiMinor, orientation, rmsError, count, iterations);
+    }
+
+    private static double huberWeight(double normalizedResidual) {
+        double residual = Math.abs(normalizedResidual);
+        return residual <= HUBER_THRESHOLD ? 1 : HUBER_THRESHOLD / residual;
+    }
+
+    private static boolean isAhead(double lat0, double lon0, double azi0, double lat, double lon) {
+        double dx = (lon - lon0) * Math.cos(Math.toRadians(lat0)), dy = lat - lat0;
+        return dx * Math.sin(Math.toRadians(azi0)) + dy * Math.cos(Math.toRadians(azi0)) > 0;
+    }
+}
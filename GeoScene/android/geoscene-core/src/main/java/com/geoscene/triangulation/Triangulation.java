@@ -0,0 +1,69 @@
+package com.geoscene.triangulation;
+
+import com.geoscene.geography.Coordinate;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicData;
+import net.sf.geographiclib.GeodesicLine;
+import net.sf.geographiclib.GeodesicMask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Triangulation {
+
+    private static final Geodesic GEODESIC = Geodesic.WGS84;
+    public static final double MAX_TRIANGULATION_DISTANCE = 1e5;
+    // Keeps no state between calls, shared by the single pair triangulations
+    private static final TriangulationSolver SOLVER = new TriangulationSolver();
+
+    public static Coordinate triangulate(double lat0, double lon0, double azi0, double lat1, double lon1, double azi1) {
+        return SOLVER.triangulate(lat0, lon0, azi0, lat1, lon1, azi1);
+    }
+
+    public static List<Coordinate> getGeodesicArc(double intervalMeter, double distance, double lat, double lon, double azi) {
+        List<Coordinate> arcCoordinates = new ArrayList<>();
+
+        GeodesicLine line = GEODESIC.Line(lat, lon, azi);
+        line.SetDistance(distance);
+        int pointCount = (int)(Math.ceil(line.Distance() / intervalMeter));
+        double da = line.Arc() / pointCount;
+        for (int i = 0; i <= pointCount; ++i) {
+            GeodesicData g = line.ArcPosition(i * da,
+                    GeodesicMask.LATITUDE |
+                            GeodesicMask.LONGITUDE);
+            arcCoordinates.add(new Coordinate(g.lat2, g.lon2));
+        }
+        return arcCoordinates;
+    }
+
+    private static Coordinate filterViewDirection(double lat0, double lon0, double b0, double lat1, double lon1, double b1, double lat, double lon) {
+        double bearing0 = Math.toDegrees(Math.atan2(lat - lat0, lon - lon0));
+        double bearing1 = Math.toDegrees(Math.atan2(lat - lat1, lon - lon1));
+        return quadrant(b0) == quadrant(bearing0) && quadrant(b1) == quadrant(bearing1) ?
+                new Coordinate(lat, lon) : null;
+    }
+
+    private static int quadrant(double angle) {
+        return (int)(Math.floor((angle % 360) / 90) + 4) % 4;
+    }
+
+    public static Coordinate triangulatePlanar(double lat0, double lon0, double b0, double lat1, double lon1, double b1) {
+        if ((((b0 - b1) % 180) + 180) % 180 == 0) return null; // Parallel
+        if (((b0 % 180) + 180) % 180 == 90) {
+            // vertical line at x = x0
+            double lat = Math.tan(Math.toRadians(b1)) * (lon0 - lon1) + lat1;
+            return filterViewDirection(lat0, lon0, b0, lat1, lon1, b1, lat, lon0);
+        }
+        else if (((b1 % 180) + 180) % 180 == 90) {
+            // vertical line at x = x1
+            double lat = Math.tan(Math.toRadians(b0)) * (lon1 - lon0) + lat0;
+            return filterViewDirection(lat0, lon0, b0, lat1, lon1, b1, lat, lon1);
+        }
+        double m0 = Math.tan(Math.toRadians(b0)); // Line 0: y = m0 (x - x0) + y0
+        double m1 = Math.tan(Math.toRadians(b1)); // Line 1: y = m1 (x - x1) + y1
+        double lon = (m0 * lon0 - m1 * lon1 - (lat0 - lat1)) / (m0 - m1);
+        double lat = m0 * (lon - lon0) + lat0;
+        return filterViewDirection(lat0, lon0, b0, lat1, lon1, b1, lat, lon);
+    }
+}
@@ -2,14 +2,11 @@ package com.geoscene.triangulation;
 
 import com.geoscene.geography.Coordinate;
 
-import java.util.List;
-
 public class TriangulationData {
     public String id;
     public String name;
     public String description;
     public Coordinate coordinate;
-    public List<Coordinate> triangulationArc;
     public double azimuth;
 
     public TriangulationData(String id, String name, String description, double lat, double lon, double azimuth) {
@@ -36,14 +33,6 @@ public class TriangulationData {
         return azimuth;
     }
 
-    public List<Coordinate> getTriangulationArc() {
-        return triangulationArc;
-    }
-
-    public void setTriangulationArc(List<Coordinate> triangulationArc) {
-        this.triangulationArc = triangulationArc;
-    }
-
     public String toString() {
         return String.format("[lat: %.6f, lon: %.6f, azimuth: %.3f]", coordinate.getLat(), coordinate.getLon(), azimuth);
     }
@@ -0,0 +1,42 @@
+package com.geoscene.triangulation;
+
+import com.geoscene.geography.Coordinate;
+
+/*
+Point fixed from several rays with its one sigma error ellipse, axes in meters and the major axis
+orientation in degrees clockwise from north.
+ */
+public class TriangulationFix {
+    // Scales the one sigma ellipse to the 95% confidence ellipse of a two dimensional normal error
+    public static final double CONFIDENCE_95_SCALE = 2.4477;
+
+    public final double lat;
+    public final double lon;
+    public final double semiMajor;
+    public final double semiMinor;
+    public final double orientation;
+    public final double rmsError;
+    public final int rayCount;
+    public final int iterations;
+
+    public TriangulationFix(double lat, double lon, double semiMajor, double semiMinor, double orientation,
+                            double rmsError, int rayCount, int iterations) {
+        this.lat = lat;
+        this.lon = lon;
+        this.semiMajor = semiMajor;
+        this.semiMinor = semiMinor;
+        this.orientation = orientation;
+        this.rmsError = rmsError;
+        this.rayCount = rayCount;
+        this.iterations = iterations;
+    }
+
+    public Coordinate getCoordinate() {
+        return new Coordinate(lat, lon);
+    }
+
+    public String toString() {
+        return String.format("[lat: %.6f, lon: %.6f, ellipse: %.1fm x %.1fm at %.1f, rms: %.3f, rays: %d]",
+                lat, lon, semiMajor, semiMinor, orientation, rmsError, rayCount);
+    }
+}
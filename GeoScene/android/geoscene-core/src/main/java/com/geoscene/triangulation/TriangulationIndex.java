@@ -0,0 +1,175 @@
+package com.geoscene.triangulation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+Candidate rays that can meet an observer's line of sight within a range of the observer.
+Rays are bucketed by the grid cell of their origin, and the rays around an observer position are bucketed
+again by the sectors of headings under which the observer sees them, so a heading looks up its candidates
+directly. Sectors are rebuilt only once the observer moved past a tolerance they include.
+Geometry is on a local equirectangular plane with a margin on every distance, so the candidates are a superset.
+ */
+public class TriangulationIndex {
+    public static final double CELL_DEGREES = 1.0;
+    public static final int SECTORS = 72;
+    public static final double RESECTOR_DISTANCE = 250;
+    private static final double SECTOR_DEGREES = 360.0 / SECTORS;
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double DISTANCE_MARGIN = 1.05;
+    private static final double DISTANCE_SLACK = 1000;
+    // Rays passing closer than this to the observer can be seen under any heading
+    private static final double NEAR_DISTANCE = 2000;
+    private static final int[] EMPTY = new int[0];
+
+    private final double range;
+    private final double reach;
+    private final double[] lat;
+    private final double[] lon;
+    private final double[] azimuth;
+    private final Map<Long, int[]> cells;
+
+    private final int[][] sectors;
+    private final int[] sectorSizes;
+    private double sectorLat = Double.NaN;
+    private double sectorLon = Double.NaN;
+
+    /**
+     * @param range farthest intersection from the observer that is looked for
+     * @param reach farthest intersection from a ray origin that is looked for
+     */
+    public TriangulationIndex(double[] lats, double[] lons, double[] azimuths, double range, double reach) {
+        this.range = range;
+        this.reach = reach;
+        lat = lats;
+        lon = lons;
+        azimuth = azimuths;
+        Map<Long, int[]> cellRays = new HashMap<>();
+        Map<Long, Integer> cellSizes = new HashMap<>();
+        for (int i = 0; i < lats.length; ++i) {
+            long cell = getCell(lats[i], lons[i]);
+            int size = cellSizes.getOrDefault(cell, 0);
+            int[] rays = cellRays.get(cell);
+            if (rays == null || rays.length == size) {
+                rays = rays == null ? new int[4] : Arrays.copyOf(rays, size * 2);
+                cellRays.put(cell, rays);
+            }
+            rays[size] = i;
+            cellSizes.put(cell, size + 1);
+        }
+        cells = new HashMap<>(cellRays.size());
+        for (Map.Entry<Long, int[]> entry : cellRays.entrySet()) {
+            cells.put(entry.getKey(), Arrays.copyOf(entry.getValue(), cellSizes.get(entry.getKey())));
+        }
+        sectors = new int[SECTORS][];
+        sectorSizes = new int[SECTORS];
+    }
+
+    /**
+     * Rays that may meet the observer's ray within range, as indices into the indexed rays.
+     */
+    public int[] getCandidates(double observerLat, double observerLon, double observerAzimuth) {
+        if (Double.isNaN(sectorLat) || planarDistance(sectorLat, sectorLon, observerLat, observerLon) > RESECTOR_DISTANCE) {
+            buildSectors(observerLat, observerLon);
+        }
+        return sectors[getSector(observerAzimuth)];
+    }
+
+    private void buildSectors(double observerLat, double observerLon) {
+        Arrays.fill(sectors, null);
+        Arrays.fill(sectorSizes, 0);
+        sectorLat = observerLat;
+        sectorLon = observerLon;
+        double cos = Math.cos(Math.toRadians(observerLat));
+        double disc = range * DISTANCE_MARGIN + DISTANCE_SLACK + RESECTOR_DISTANCE;
+        double rayReach = reach * DISTANCE_MARGIN + DISTANCE_SLACK;
+        double extentLat = (disc + rayReach) / METERS_PER_DEGREE;
+        double extentLon = extentLat / Math.max(cos, 1e-6);
+        // Geodesics turn against the plane's meridians by about the longitude they span times sin(latitude)
+        double convergence = Math.min(90, extentLon * Math.abs(Math.sin(Math.toRadians(observerLat))));
+        int minLatCell = (int) Math.floor((observerLat - extentLat) / CELL_DEGREES), maxLatCell = (int) Math.floor((observerLat + extentLat) / CELL_DEGREES);
+        int minLonCell = (int) Math.floor((observerLon - extentLon) / CELL_DEGREES), maxLonCell = (int) Math.floor((observerLon + extentLon) / CELL_DEGREES);
+        for (int latCell = minLatCell; latCell <= maxLatCell; ++latCell) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; ++lonCell) {
+                int[] rays = cells.get(getCell(latCell, lonCell));
+                if (rays == null) {
+                    continue;
+                }
+                for (int ray : rays) {
+                    addToSectors(ray, (lon[ray] - observerLon) * cos * METERS_PER_DEGREE, (lat[ray] - observerLat) * METERS_PER_DEGREE, disc, rayReach, convergence);
+                }
+            }
+        }
+        for (int sector = 0; sector < SECTORS; ++sector) {
+            sectors[sector] = sectors[sector] == null ? EMPTY : Arrays.copyOf(sectors[sector], sectorSizes[sector]);
+        }
+    }
+
+    /**
+     * Adds the ray to the sectors of the bearings, from the observer, of its part inside the range disc.
+     */
+    private void addToSectors(int ray, double px, double py, double disc, double rayReach, double convergence) {
+        double dx = Math.sin(Math.toRadians(azimuth[ray])), dy = Math.cos(Math.toRadians(azimuth[ray]));
+        // Ray points P + t d inside the disc solve t^2 + 2 t (P.d) + |P|^2 - r^2 <= 0
+        double pd = px * dx + py * dy;
+        double discriminant = pd * pd - (px * px + py * py) + disc * disc;
+        if (discriminant < 0) {
+            return;
+        }
+        double root = Math.sqrt(discriminant);
+        double t1 = Math.max(0, -pd - root), t2 = Math.min(rayReach, -pd + root);
+        if (t1 > t2) {
+            return;
+        }
+        double closestT = Math.min(Math.max(-pd, t1), t2);
+        double closest = Math.hypot(px + closestT * dx, py + closestT * dy);
+        if (closest < NEAR_DISTANCE) {
+            for (int sector = 0; sector < SECTORS; ++sector) {
+                addToSector(sector, ray);
+            }
+            return;
+        }
+        double bearing1 = Math.toDegrees(Math.atan2(px + t1 * dx, py + t1 * dy));
+        double bearing2 = Math.toDegrees(Math.atan2(px + t2 * dx, py + t2 * dy));
+        // The clipped ray misses the observer so its bearings span the short way between its end points
+        double span = ((bearing2 - bearing1) % 360 + 540) % 360 - 180;
+        double start = span >= 0 ? bearing1 : bearing1 + span;
+        // Bearings shift by up to asin(tolerance / closest distance) until the sectors are rebuilt
+        double margin = Math.toDegrees(Math.asin(Math.min(1, RESECTOR_DISTANCE / closest))) + convergence + SECTOR_DEGREES;
+        int first = (int) Math.floor((start - margin) / SECTOR_DEGREES);
+        int last = (int) Math.floor((start + Math.abs(span) + margin) / SECTOR_DEGREES);
+        for (int sector = first; sector <= Math.min(last, first + SECTORS - 1); ++sector) {
+            addToSector(Math.floorMod(sector, SECTORS), ray);
+        }
+    }
+
+    private void addToSector(int sector, int ray) {
+        int[] rays = sectors[sector];
+        int size = sectorSizes[sector];
+        if (rays == null || rays.length == size) {
+            rays = rays == null ? new int[8] : Arrays.copyOf(rays, size * 2);
+            sectors[sector] = rays;
+        }
+        rays[size] = ray;
+        sectorSizes[sector] = size + 1;
+    }
+
+    private static int getSector(double azimuth) {
+        return Math.floorMod((int) Math.floor(azimuth / SECTOR_DEGREES), SECTORS);
+    }
+
+    private static long getCell(double lat, double lon) {
+        return getCell((int) Math.floor(lat / CELL_DEGREES), (int) Math.floor(lon / CELL_DEGREES));
+    }
+
+    private static long getCell(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    private static double planarDistance(double lat0, double lon0, double lat1, double lon1) {
+        double dx = (lon1 - lon0) * Math.cos(Math.toRadians(lat0)) * METERS_PER_DEGREE;
+        double dy = (lat1 - lat0) * METERS_PER_DEGREE;
+        return Math.hypot(dx, dy);
+    }
+}
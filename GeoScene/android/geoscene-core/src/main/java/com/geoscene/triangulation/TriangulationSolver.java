@@ -0,0 +1,181 @@
+package com.geoscene.triangulation;
+
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.LocationUtils;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicData;
+import net.sf.geographiclib.GeodesicMask;
+import net.sf.geographiclib.Gnomonic;
+import net.sf.geographiclib.GnomonicData;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+Intersects geodesic rays with Karney's gnomonic method: both rays are projected about the current estimate,
+where geodesics are nearly straight lines, intersected in the plane and the estimate is moved to the intersection.
+The planar intersection of the rays is the starting estimate, which converges in a few iterations.
+Stored rays keep their far end point so triangulating an observer against them solves no direct geodesic per ray,
+and are indexed by the headings they are seen under so only the rays near the observer's heading are solved.
+ */
+public class TriangulationSolver {
+    private static final Geodesic GEODESIC = Geodesic.WGS84;
+    static final int MAX_ITERATIONS = 10;
+    static final double MAX_TRIANGULATION_ARC_DISTANCE = 1e6;
+    // Degrees, about a centimeter on the ground
+    static final double CONVERGENCE = 1e-7;
+    private static final int PARALLEL_RAY_COUNT = 256;
+    // Intersections are looked for up to the drawn length of the stored rays
+    static final double MAX_RAY_REACH = Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5;
+
+    private final Gnomonic gnomonic = new Gnomonic(GEODESIC);
+
+    private double[] rayLat = new double[0];
+    private double[] rayLon = new double[0];
+    private double[] rayAzimuth = new double[0];
+    private double[] rayEndLat = new double[0];
+    private double[] rayEndLon = new double[0];
+    private TriangulationIndex index = new TriangulationIndex(rayLat, rayLon, rayAzimuth, Triangulation.MAX_TRIANGULATION_DISTANCE, MAX_RAY_REACH);
+
+    /**
+     * Stores the rays triangulateAll intersects the observer ray with, replacing the previous rays.
+     */
+    public void setRays(double[] lats, double[] lons, double[] azimuths) {
+        int count = lats.length;
+        rayLat = lats.clone();
+        rayLon = lons.clone();
+        rayAzimuth = azimuths.clone();
+        rayEndLat = new double[count];
+        rayEndLon = new double[count];
+        for (int i = 0; i < count; ++i) {
+            GeodesicData end = GEODESIC.Direct(lats[i], lons[i], azimuths[i], MAX_TRIANGULATION_ARC_DISTANCE, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+            rayEndLat[i] = end.lat2;
+            rayEndLon[i] = end.lon2;
+        }
+        index = new TriangulationIndex(rayLat, rayLon, rayAzimuth, Triangulation.MAX_TRIANGULATION_DISTANCE, MAX_RAY_REACH);
+    }
+
+    public void setRays(List<TriangulationData> triangulations) {
+        int count = triangulations.size();
+        double[] lats = new double[count], lons = new double[count], azimuths = new double[count];
+        for (int i = 0; i < count; ++i) {
+            TriangulationData triangulation = triangulations.get(i);
+            lats[i] = triangulation.getLat();
+            lons[i] = triangulation.getLon();
+            azimuths[i] = triangulation.getAzimuth();
+        }
+        setRays(lats, lons, azimuths);
+    }
+
+    public int getRayCount() {
+        return rayLat.length;
+    }
+
+    /**
+     * Intersections of the observer ray with every stored ray, written as {lat, lon} pairs into intersections
+     * (at least twice the ray count long), NaN where the rays do not meet ahead of both origins.
+     * Returns the number of rays intersected.
+     */
+    public int triangulateAll(double lat0, double lon0, double azi0, double[] intersections) {
+        GeodesicData end = GEODESIC.Direct(lat0, lon0, azi0, MAX_TRIANGULATION_ARC_DISTANCE, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+        double endLat = end.lat2, endLon = end.lon2;
+        IntStream rays = IntStream.range(0, rayLat.length);
+        if (rayLat.length >= PARALLEL_RAY_COUNT) {
+            rays = rays.parallel();
+        }
+        return (int) rays.filter(i -> solve(lat0, lon0, azi0, endLat, endLon,
+                rayLat[i], rayLon[i], rayAzimuth[i], rayEndLat[i], rayEndLon[i], intersections, 2 * i)).count();
+    }
+
+    /**
+     * Intersections of the observer ray with the stored rays it meets closer than MAX_TRIANGULATION_DISTANCE to the observer
+     * and MAX_RAY_REACH to the stored ray origin. Only the indexed candidates of the observer's heading are solved.
+     * Writes the intersected ray indices into rays and their {lat, lon} pairs into intersections, both sized for every
+     * stored ray, and returns the number of intersections.
+     */
+    public int triangulateNearby(double lat0, double lon0, double azi0, int[] rays, double[] intersections) {
+        int[] candidates = index.getCandidates(lat0, lon0, azi0);
+        if (candidates.length == 0) {
+            return 0;
+        }
+        GeodesicData end = GEODESIC.Direct(lat0, lon0, azi0, MAX_TRIANGULATION_ARC_DISTANCE, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+        int count = 0;
+        for (int i : candidates) {
+            if (solve(lat0, lon0, azi0, end.lat2, end.lon2, rayLat[i], rayLon[i], rayAzimuth[i], rayEndLat[i], rayEndLon[i], intersections, 2 * count)
+                    && LocationUtils.aerialDistance(lat0, intersections[2 * count], lon0, intersections[2 * count + 1]) < Triangulation.MAX_TRIANGULATION_DISTANCE
+                    && LocationUtils.aerialDistance(rayLat[i], intersections[2 * count], rayLon[i], intersections[2 * count + 1]) <= MAX_RAY_REACH) {
+                rays[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    public Coordinate triangulate(double lat0, double lon0, double azi0, double lat1, double lon1, double azi1) {
+        GeodesicData end0 = GEODESIC.Direct(lat0, lon0, azi0, MAX_TRIANGULATION_ARC_DISTANCE, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+        GeodesicData end1 = GEODESIC.Direct(lat1, lon1, azi1, MAX_TRIANGULATION_ARC_DISTANCE, GeodesicMask.LATITUDE | GeodesicMask.LONGITUDE);
+        double[] intersection = new double[2];
+        return solve(lat0, lon0, azi0, end0.lat2, end0.lon2, lat1, lon1, azi1, end1.lat2, end1.lon2, intersection, 0) ?
+                new Coordinate(intersection[0], intersection[1]) : null;
+    }
+
+    private boolean solve(double lat0, double lon0, double azi0, double endLat0, double endLon0,
+                          double lat1, double lon1, double azi1, double endLat1, double endLon1, double[] out, int offset) {
+        out[offset] = out[offset + 1] = Double.NaN;
+        // Warm start from the intersection of the rays on an equirectangular plane around the first origin
+        double cos0 = Math.cos(Math.toRadians(lat0));
+        double dx0 = Math.sin(Math.toRadians(azi0)), dy0 = Math.cos(Math.toRadians(azi0));
+        double dx1 = Math.sin(Math.toRadians(azi1)), dy1 = Math.cos(Math.toRadians(azi1));
+        double denominator = dx0 * dy1 - dy0 * dx1;
+        if (Math.abs(denominator) < 1e-12) {
+            return false; // Parallel
+        }
+        double ox = (lon1 - lon0) * cos0, oy = lat1 - lat0;
+        double t = (ox * dy1 - oy * dx1) / denominator;
+        double lat = lat0 + t * dy0, lon = lon0 + t * dx0 / cos0;
+        if (!isAhead(lat0, lon0, azi0, lat, lon) || !isAhead(lat1, lon1, azi1, lat, lon)) {
+            return false;
+        }
+
+        for (int i = 0; i < MAX_ITERATIONS; ++i) {
+            // See Hartley and Zisserman, Multiple View Geometry, Sec. 2.2.1
+            GnomonicData a1 = gnomonic.Forward(lat, lon, lat0, lon0);
+            GnomonicData a2 = gnomonic.Forward(lat, lon, endLat0, endLon0);
+            GnomonicData b1 = gnomonic.Forward(lat, lon, lat1, lon1);
+            GnomonicData b2 = gnomonic.Forward(lat, lon, endLat1, endLon1);
+            // Homogeneous lines through both projected points, their cross product is the intersection
+            double lax = a1.y - a2.y, lay = a2.x - a1.x, laz = a1.x * a2.y - a2.x * a1.y;
+            double lbx = b1.y - b2.y, lby = b2.x - b1.x, lbz = b1.x * b2.y - b2.x * b1.y;
+            double pz = lax * lby - lay * lbx;
+            if (pz == 0 || Double.isNaN(pz)) {
+                return false;
+            }
+            double px = (lay * lbz - laz * lby) / pz;
+            double py = (laz * lbx - lax * lbz) / pz;
+            GnomonicData projection = gnomonic.Reverse(lat, lon, px, py);
+            if (Double.isNaN(projection.lat)) {
+                return false;
+            }
+            boolean converged = Math.abs(projection.lat - lat) <= CONVERGENCE && Math.abs(projection.lon - lon) <= CONVERGENCE;
+            lat = projection.lat;
+            lon = projection.lon;
+            if (converged) {
+                break;
+            }
+        }
+        if (!isAhead(lat0, lon0, azi0, lat, lon) || !isAhead(lat1, lon1, azi1, lat, lon)) {
+            return false;
+        }
+        out[offset] = lat;
+        out[offset + 1] = lon;
+        return true;
+    }
+
+    /**
+     * Whether the point is in front of the ray origin, less than 90 degrees off its azimuth.
+     */
+    private static boolean isAhead(double lat0, double lon0, double azi0, double lat, double lon) {
+        double dx = (lon - lon0) * Math.cos(Math.toRadians(lat0)), dy = lat - lat0;
+        return dx * Math.sin(Math.toRadians(azi0)) + dy * Math.cos(Math.toRadians(azi0)) > 0;
+    }
+}
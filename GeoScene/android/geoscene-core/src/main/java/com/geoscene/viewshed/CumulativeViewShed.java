@@ -0,0 +1,104 @@
+package com.geoscene.viewshed;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+Viewsheds of several observers on the same raster, computed as one parallel job.
+Visibility of each observer is kept as a bitset over cells (index y * cols + x) and summed into
+a count grid of how many observers see each cell, used to compare and combine lookout points.
+ */
+public class CumulativeViewShed {
+    private final int cols;
+    private final int rows;
+    private final int[] counts;
+    private final BitSet[] visibility;
+
+    private CumulativeViewShed(int cols, int rows, int[] counts, BitSet[] visibility) {
+        this.cols = cols;
+        this.rows = rows;
+        this.counts = counts;
+        this.visibility = visibility;
+    }
+
+    /**
+     * Traces every observer with the app line of sight settings. Observers run in parallel,
+     * each worker thread reuses its own ray buffers.
+     */
+    public static CumulativeViewShed calculate(Raster raster, List<Coordinate> observers) {
+        int cols = raster.getCols();
+        int rows = raster.getRows();
+        int radius = (Math.min(cols, rows) / 2) - 1;
+        ThreadLocal<ViewShed.RayBuffers> buffers = ThreadLocal.withInitial(ViewShed.RayBuffers::new);
+        BitSet[] visibility = new BitSet[observers.size()];
+
+        IntStream.range(0, observers.size()).parallel().forEach(index -> {
+            Coordinate observer = observers.get(index);
+            BitSet visible = new BitSet(cols * rows);
+            ViewShed.traceRays(raster, observer.getLat(), observer.getLon(), radius,
+                    ViewShed.LINE_OF_SIGHT_INTERPOLATION, ViewShed.CURVATURE_CORRECTION, ViewShed.OBSERVER_HEIGHT, ViewShed.TARGET_HEIGHT, buffers.get(),
+                    (x, y) -> visible.set(y * cols + x));
+            visibility[index] = visible;
+        });
+
+        int[] counts = new int[cols * rows];
+        for (BitSet visible : visibility) {
+            for (int cell = visible.nextSetBit(0); cell >= 0; cell = visible.nextSetBit(cell + 1)) {
+                ++counts[cell];
+            }
+        }
+        return new CumulativeViewShed(cols, rows, counts, visibility);
+    }
+
+    public int getCount(int x, int y) {
+        return counts[y * cols + x];
+    }
+
+    /**
+     * Backing count grid, indexed y * cols + x.
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    public boolean isVisible(int observer, int x, int y) {
+        return visibility[observer].get(y * cols + x);
+    }
+
+    public BitSet getVisibility(int observer) {
+        return visibility[observer];
+    }
+
+    public int getObserverCount() {
+        return visibility.length;
+    }
+
+    public int getVisibleCellCount(int observer) {
+        return visibility[observer].cardinality();
+    }
+
+    /**
+     * Number of cells seen by at least one observer.
+     */
+    public int getCoveredCellCount() {
+        int covered = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                ++covered;
+            }
+        }
+        return covered;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,64 @@
+package com.geoscene.viewshed;
+
+import com.geoscene.elevation.Raster;
+
+/*
+Earth curvature and atmospheric refraction correction for line of sight.
+A target at distance d appears lower by d^2 / 2R * (1 - k), where R is the earth radius
+and k the refraction coefficient. Ref: https://en.wikipedia.org/wiki/Atmospheric_refraction#Terrestrial_refraction
+ */
+public class CurvatureCorrection {
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    public static final double STANDARD_REFRACTION = 0.13;
+    public static final CurvatureCorrection STANDARD = new CurvatureCorrection(STANDARD_REFRACTION);
+
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180;
+
+    private final double refraction;
+    private final double dropFactor;
+
+    public CurvatureCorrection(double refraction) {
+        this.refraction = refraction;
+        this.dropFactor = (1 - refraction) / (2 * EARTH_RADIUS_METERS);
+    }
+
+    public double getRefraction() {
+        return refraction;
+    }
+
+    public double getDrop(double distanceMeters) {
+        return distanceMeters * distanceMeters * dropFactor;
+    }
+
+    /**
+     * Drop of each ray step for a step length of one metre, table[i] = i^2 * (1 - k) / 2R.
+     * Scale by the squared step length of a ray to get the drop in metres at step i.
+     */
+    public double[] createStepDropTable(int steps) {
+        double[] table = new double[steps];
+        for (int i = 0; i < steps; ++i) {
+            table[i] = (double) i * i * dropFactor;
+        }
+        return table;
+    }
+
+    /**
+     * North-south extent of a raster cell in metres.
+     */
+    public static double getCellMeters(Raster raster) {
+        return raster.getCellSize() * METERS_PER_DEGREE;
+    }
+
+    /**
+     * Length in metres of one step of a ray covering (dx, dy) cells in the given number of steps.
+     */
+    public static double getStepMeters(Raster raster, double observerLat, double dx, double dy, int steps) {
+        if (steps <= 1) {
+            return 0;
+        }
+        double cellMeters = getCellMeters(raster);
+        double dxMeters = dx * cellMeters * Math.cos(Math.toRadians(observerLat));
+        double dyMeters = dy * cellMeters;
+        return Math.hypot(dxMeters, dyMeters) / (steps - 1);
+    }
+}
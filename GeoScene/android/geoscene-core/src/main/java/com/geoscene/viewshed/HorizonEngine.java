@@ -0,0 +1,106 @@
+package com.geoscene.viewshed;
+
+import com.geoscene.elevation.Raster;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Computes the horizon profile of an observer from the rays of the viewshed, the highest elevation angle
+of the cells that raise a ray's running max slope, per azimuth bin.
+Profiles are computed from the observer cell center and cached per cell.
+ */
+public class HorizonEngine {
+    public static final int DEFAULT_BINS = 3600; // 0.1 degree
+    private static final int CACHE_SIZE = 8;
+
+    private final Raster raster;
+    private final int bins;
+    private final CurvatureCorrection correction;
+    private final double observerHeight;
+    private final Map<Long, HorizonProfile> cache;
+
+    public HorizonEngine(Raster raster) {
+        this(raster, DEFAULT_BINS, ViewShed.CURVATURE_CORRECTION, ViewShed.OBSERVER_HEIGHT);
+    }
+
+    /**
+     * @param correction - curvature and refraction drop, null for a planar horizon
+     * @param observerHeight - eye height above the ground at the observer, in metres
+     */
+    public HorizonEngine(Raster raster, int bins, CurvatureCorrection correction, double observerHeight) {
+        this.raster = raster;
+        this.bins = bins;
+        this.correction = correction;
+        this.observerHeight = observerHeight;
+        this.cache = new LinkedHashMap<Long, HorizonProfile>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, HorizonProfile> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    public synchronized HorizonProfile getHorizon(double observerLat, double observerLon) {
+        int x = ViewShed.getObserverCol(raster, observerLon);
+        int y = ViewShed.getObserverRow(raster, observerLat);
+        long cell = Raster.packRowCol(x, y);
+        HorizonProfile profile = cache.get(cell);
+        if (profile == null) {
+            profile = calculateHorizon(x, y);
+            cache.put(cell, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Traces the viewshed rays from the observer cell center. With no target height the visible cells are
+     * the ones that raise the running max slope of a ray, each of them lifts the horizon of the bins its
+     * cell spans as seen from the observer to its elevation angle.
+     */
+    private HorizonProfile calculateHorizon(int observerX, int observerY) {
+        double observerLat = raster.getLatitudeByRow(observerY);
+        double observerLon = raster.getLongitudeByCol(observerX);
+        double observerElevation = raster.getInterpolatedElevationByRowCol(observerX, observerY, ViewShed.LINE_OF_SIGHT_INTERPOLATION) + observerHeight;
+        float[] angles = new float[bins];
+        float[] distances = new float[bins];
+        Arrays.fill(angles, -90f);
+        double cellMeters = CurvatureCorrection.getCellMeters(raster);
+        double colMeters = cellMeters * Math.cos(Math.toRadians(observerLat));
+        double binSize = 360.0 / bins;
+        int cols = raster.getCols();
+        // Rays share the cells near the observer, each cell is recorded once
+        BitSet recorded = new BitSet(cols * raster.getRows());
+        int radius = (Math.min(cols, raster.getRows()) / 2) - 1;
+
+        ViewShed.traceRays(raster, observerLat, observerLon, radius, ViewShed.LINE_OF_SIGHT_INTERPOLATION, correction, observerHeight, 0, new ViewShed.RayBuffers(), (x, y) -> {
+            int index = y * cols + x;
+            if ((x == observerX && y == observerY) || recorded.get(index)) {
+                return;
+            }
+            recorded.set(index);
+            double dx = (x - observerX) * colMeters;
+            double dy = (observerY - y) * cellMeters;
+            double distance = Math.hypot(dx, dy);
+            double drop = correction != null ? correction.getDrop(distance) : 0;
+            float angle = (float) Math.toDegrees(Math.atan((raster.getElevation(x, y) - drop - observerElevation) / distance));
+            double azimuth = Math.toDegrees(Math.atan2(dx, dy));
+            double halfWidth = Math.toDegrees(Math.atan(0.5 * cellMeters / distance));
+            int last = (int) Math.floor((azimuth + halfWidth) / binSize);
+            for (int bin = (int) Math.floor((azimuth - halfWidth) / binSize); bin <= last; ++bin) {
+                int wrapped = Math.floorMod(bin, bins);
+                if (angle > angles[wrapped]) {
+                    angles[wrapped] = angle;
+                    distances[wrapped] = (float) distance;
+                }
+            }
+        });
+        return new HorizonProfile(angles, distances, observerElevation, correction);
+    }
+
+    public Raster getRaster() {
+        return raster;
+    }
+}
@@ -0,0 +1,84 @@
+package com.geoscene.viewshed;
+
+/*
+Terrain skyline around an observer, the highest elevation angle of the terrain per azimuth bin.
+Bin i covers azimuths [i * binSize, (i + 1) * binSize) degrees clockwise from north.
+Each bin also holds the distance of the terrain forming its horizon, targets nearer than it may be below the
+horizon and still in sight.
+ */
+public class HorizonProfile {
+    private final float[] angles;
+    private final float[] distances;
+    private final double observerElevation;
+    private final CurvatureCorrection correction;
+    private final float binSize;
+
+    /**
+     * @param distances - metres from the observer to the terrain of each bin's horizon
+     * @param observerElevation - elevation of the observer's eye the angles are measured from, in metres
+     * @param correction - curvature and refraction drop the angles were computed with, null for none
+     */
+    public HorizonProfile(float[] angles, float[] distances, double observerElevation, CurvatureCorrection correction) {
+        this.angles = angles;
+        this.distances = distances;
+        this.observerElevation = observerElevation;
+        this.correction = correction;
+        this.binSize = 360f / angles.length;
+    }
+
+    public int getBinCount() {
+        return angles.length;
+    }
+
+    public float getBinSize() {
+        return binSize;
+    }
+
+    /**
+     * Backing array of horizon angles in degrees, not copied.
+     */
+    public float[] getAngles() {
+        return angles;
+    }
+
+    public int getBin(double azimuth) {
+        double normalized = azimuth % 360;
+        if (normalized < 0) {
+            normalized += 360;
+        }
+        return Math.min((int) (normalized / binSize), angles.length - 1);
+    }
+
+    /**
+     * @param azimuth - degrees clockwise from north
+     * @return elevation angle of the horizon in degrees, negative below the observer's horizontal plane
+     */
+    public float getHorizonAngle(double azimuth) {
+        return angles[getBin(azimuth)];
+    }
+
+    public float getHorizonDistance(double azimuth) {
+        return distances[getBin(azimuth)];
+    }
+
+    public double getObserverElevation() {
+        return observerElevation;
+    }
+
+    public boolean isAboveHorizon(double azimuth, double elevationAngle) {
+        return elevationAngle >= angles[getBin(azimuth)];
+    }
+
+    /**
+     * Whether a target is hidden behind the horizon terrain, below the horizon and farther than the terrain forming it.
+     *
+     * @param elevation - elevation of the target in metres
+     * @param distance - metres from the observer to the target
+     */
+    public boolean isOccluded(double azimuth, double elevation, double distance) {
+        int bin = getBin(azimuth);
+        double drop = correction != null ? correction.getDrop(distance) : 0;
+        double elevationAngle = Math.toDegrees(Math.atan2(elevation - drop - observerElevation, distance));
+        return distance > distances[bin] && elevationAngle < angles[bin];
+    }
+}
@@ -0,0 +1,92 @@
+package com.geoscene.viewshed;
+
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+
+/*
+Keeps a raster viewshed current while the observer moves. A move of a few cells only changes
+line of sight noticeably close to the observer, so the near field square is traced again and the far
+field is kept until the accumulated drift from the last full computation exceeds MAX_DRIFT_CELLS.
+Both start the rays at the observer cell of ViewShed.getObserverCol and getObserverRow.
+ */
+public class IncrementalViewShed {
+    public static final int NEAR_FIELD_CELLS = 40;
+    public static final int MAX_DRIFT_CELLS = 3;
+
+    private final Raster raster;
+    private CellType[][] viewshed;
+    private int observerX;
+    private int observerY;
+    // Observer cell of the last full computation
+    private int anchorX;
+    private int anchorY;
+
+    private int nearFieldUpdates;
+    private int fullUpdates;
+
+    public IncrementalViewShed(Raster raster) {
+        this.raster = raster;
+    }
+
+    /**
+     * Starts from an already computed viewshed for the given observer location.
+     */
+    public IncrementalViewShed(Raster raster, CellType[][] viewshed, double observerLat, double observerLon) {
+        this.raster = raster;
+        this.viewshed = viewshed;
+        if (viewshed != null) {
+            observerX = anchorX = ViewShed.getObserverCol(raster, observerLon);
+            observerY = anchorY = ViewShed.getObserverRow(raster, observerLat);
+        }
+    }
+
+    /**
+     * Moves the observer and updates the viewshed if the observer changed cell.
+     * The published viewshed is never modified in place, changed rows are copied first so
+     * readers holding the previous grid are not affected.
+     *
+     * @return true if a new viewshed was computed and set on the raster
+     */
+    public synchronized boolean update(double observerLat, double observerLon) {
+        int x = ViewShed.getObserverCol(raster, observerLon);
+        int y = ViewShed.getObserverRow(raster, observerLat);
+        if (viewshed != null && x == observerX && y == observerY) {
+            return false;
+        }
+        if (viewshed == null || Math.max(Math.abs(x - anchorX), Math.abs(y - anchorY)) > MAX_DRIFT_CELLS) {
+            viewshed = ViewShed.calculateAdaptiveViewshed(raster, observerLat, observerLon);
+            anchorX = x;
+            anchorY = y;
+            ++fullUpdates;
+        } else {
+            CellType[][] updated = viewshed.clone();
+            for (int row = Math.max(y - NEAR_FIELD_CELLS, 0); row <= Math.min(y + NEAR_FIELD_CELLS, updated.length - 1); ++row) {
+                updated[row] = updated[row].clone();
+            }
+            ViewShed.updateNearFieldViewshed(raster, observerLat, observerLon, NEAR_FIELD_CELLS,
+                    ViewShed.LINE_OF_SIGHT_INTERPOLATION, ViewShed.CURVATURE_CORRECTION, ViewShed.OBSERVER_HEIGHT, ViewShed.TARGET_HEIGHT, updated);
+            viewshed = updated;
+            ++nearFieldUpdates;
+        }
+        observerX = x;
+        observerY = y;
+        raster.setViewshed(viewshed);
+        return true;
+    }
+
+    public synchronized CellType[][] getViewshed() {
+        return viewshed;
+    }
+
+    public Raster getRaster() {
+        return raster;
+    }
+
+    public synchronized int getNearFieldUpdates() {
+        return nearFieldUpdates;
+    }
+
+    public synchronized int getFullUpdates() {
+        return fullUpdates;
+    }
+}
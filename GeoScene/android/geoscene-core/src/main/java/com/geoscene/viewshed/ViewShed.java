@@ -0,0 +1,343 @@
+package com.geoscene.viewshed;
+
+import com.geoscene.elevation.ElevationInterpolation;
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.viewshed.algorithms.BresenhamCircle;
+import com.geoscene.viewshed.algorithms.BresenhamLine;
+
+import org.javatuples.Pair;
+
+import java.util.List;
+
+public class ViewShed {
+    public static final String TAG = "VIEWSHED";
+    // Eye height of a standing observer and height above ground a target must reach to count as visible, in metres
+    public static final double OBSERVER_HEIGHT = 1.7;
+    public static final double TARGET_HEIGHT = 0;
+    public static final ElevationInterpolation LINE_OF_SIGHT_INTERPOLATION = ElevationInterpolation.BILINEAR;
+    // Rays use full resolution up to this many cells (~10km of SRTMGL3), then the next pyramid level every doubling of distance
+    public static final int FULL_RESOLUTION_CELLS = 110;
+    // Curvature and refraction drop of the app viewshed, null traces without a correction
+    public static final CurvatureCorrection CURVATURE_CORRECTION = CurvatureCorrection.STANDARD;
+
+    static double calcluateSlope(Cell source, Cell target) {
+        double deltaZ = target.getValue() - source.getValue();
+        double deltaXY = Math.sqrt(Math.pow(target.getX() - source.getX(), 2) + Math.pow(target.getY() - source.getY(), 2));
+        return deltaZ / deltaXY;
+    }
+
+    public static CellType[][] calculateViewshed(Raster raster, double observerLat, double observerLon) {
+        Pair<Integer, Integer> observerLocation = raster.getRowColByCoordinates(new Coordinate(observerLat, observerLon));
+        double observerElevation = raster.getElevation(observerLocation.getValue0(), observerLocation.getValue1());
+        int radius = (Math.min(raster.getCols(), raster.getRows()) / 2) - 1;
+        Cell observerCell = new Cell(observerLocation.getValue0(), observerLocation.getValue1(), observerElevation);
+
+        CellType[][] viewshed = new CellType[raster.getRows()][raster.getCols()];
+        List<Cell> perimeter = BresenhamCircle.calculateBresenhamCircle((int) observerCell.getX(), (int) observerCell.getY(), raster.getCols(), raster.getRows(), radius);
+
+        for (Cell cell : perimeter) {
+            double maxSlope = Double.NEGATIVE_INFINITY;
+            List<Cell> line = BresenhamLine.calculateBresenhamLine((int) observerCell.getX(), (int) observerCell.getY(), (int) cell.getX(), (int) cell.getY());
+            for (int i = 0;  i < line.size(); ++i) {
+                Cell lineCell = line.get(i);
+                double slope = calcluateSlope(observerCell, new Cell((int) lineCell.getX(), (int) lineCell.getY(), raster.getElevation((int) lineCell.getX(), (int) lineCell.getY())));
+                if (slope >= maxSlope) {
+                    maxSlope = slope;
+                    viewshed[(int) lineCell.getY()][(int) lineCell.getX()] = CellType.VIEWSHED;
+                }
+            }
+        }
+        return viewshed;
+    }
+
+    public static CellType[][] calculateViewshed(Raster raster, double observerLat, double observerLon, ElevationInterpolation interpolation) {
+        return calculateViewshed(raster, observerLat, observerLon, interpolation, null);
+    }
+
+    /**
+     * Line of sight sampled at sub-cell positions along the exact ray from the observer,
+     * instead of the elevation of each Bresenham cell.
+     *
+     * @param correction - curvature and refraction drop, null for none
+     */
+    public static CellType[][] calculateViewshed(Raster raster, double observerLat, double observerLon, ElevationInterpolation interpolation, CurvatureCorrection correction) {
+        if (interpolation == ElevationInterpolation.NEAREST && correction == null) {
+            return calculateViewshed(raster, observerLat, observerLon);
+        }
+        return calculateViewshed(raster, observerLat, observerLon, interpolation, correction, 0, 0);
+    }
+
+    /**
+     * @param observerHeight - eye height above the ground at the observer, in metres
+     * @param targetHeight - height above the ground a cell must be seen at, in metres
+     */
+    public static CellType[][] calculateViewshed(Raster raster, double observerLat, double observerLon, ElevationInterpolation interpolation, CurvatureCorrection correction,
+                                                 double observerHeight, double targetHeight) {
+        int radius = (Math.min(raster.getCols(), raster.getRows()) / 2) - 1;
+        CellType[][] viewshed = new CellType[raster.getRows()][raster.getCols()];
+        traceRays(raster, observerLat, observerLon, radius, interpolation, correction, observerHeight, targetHeight, new RayBuffers(), (x, y) -> viewshed[y][x] = CellType.VIEWSHED);
+        return viewshed;
+    }
+
+    /**
+     * Recomputes the cells within radius cells of the observer along both axes in place, cells further away
+     * keep their previous visibility. Used to follow small observer moves without tracing the whole raster.
+     * The rays of the full viewshed are traced up to radius steps, cell i of a ray lies i cells away along
+     * one axis, so the square matches what calculateViewshed computes for the observer.
+     */
+    public static void updateNearFieldViewshed(Raster raster, double observerLat, double observerLon, int radius, ElevationInterpolation interpolation, CurvatureCorrection correction,
+                                               double observerHeight, double targetHeight, CellType[][] viewshed) {
+        int observerCol = getObserverCol(raster, observerLon);
+        int observerRow = getObserverRow(raster, observerLat);
+        for (int y = Math.max(observerRow - radius, 0); y <= Math.min(observerRow + radius, raster.getRows() - 1); ++y) {
+            for (int x = Math.max(observerCol - radius, 0); x <= Math.min(observerCol + radius, raster.getCols() - 1); ++x) {
+                viewshed[y][x] = null;
+            }
+        }
+        int viewshedRadius = (Math.min(raster.getCols(), raster.getRows()) / 2) - 1;
+        traceRays(raster, observerLat, observerLon, viewshedRadius, radius, interpolation, correction, observerHeight, targetHeight, new RayBuffers(),
+                (x, y) -> viewshed[y][x] = CellType.VIEWSHED);
+    }
+
+    static double getObserverX(Raster raster, double observerLon) {
+        return Math.min(Math.max(raster.getFractionalCol(observerLon), 0), raster.getCols() - 1);
+    }
+
+    static double getObserverY(Raster raster, double observerLat) {
+        return Math.min(Math.max(raster.getFractionalRow(observerLat), 0), raster.getRows() - 1);
+    }
+
+    /**
+     * Cell the observer's rays start from, shared by every viewshed of the observer.
+     */
+    public static int getObserverCol(Raster raster, double observerLon) {
+        return (int) Math.round(getObserverX(raster, observerLon));
+    }
+
+    public static int getObserverRow(Raster raster, double observerLat) {
+        return (int) Math.round(getObserverY(raster, observerLat));
+    }
+
+    /**
+     * Receives the cells found visible while tracing rays.
+     */
+    interface CellMarker {
+        void mark(int x, int y);
+    }
+
+    /**
+     * Scratch arrays of the ray tracer, kept by callers that trace many observers on one thread.
+     */
+    static final class RayBuffers {
+        private double[] samples = new double[0];
+        private double[] slopes = new double[0];
+        private boolean[] visible = new boolean[0];
+        private double[] inverseIndices = new double[0];
+        private double[] dropTable;
+        private CurvatureCorrection dropTableCorrection;
+
+        void ensureCapacity(int size) {
+            if (samples.length < size) {
+                samples = new double[size];
+                slopes = new double[size];
+                visible = new boolean[size];
+                inverseIndices = new double[size];
+                inverseIndices[0] = Double.POSITIVE_INFINITY;
+                for (int i = 1; i < size; ++i) {
+                    inverseIndices[i] = 1.0 / i;
+                }
+            }
+        }
+
+        double[] getDropTable(CurvatureCorrection correction, int size) {
+            if (correction == null) {
+                return null;
+            }
+            if (dropTable == null || dropTableCorrection != correction || dropTable.length < size) {
+                dropTable = correction.createStepDropTable(size);
+                dropTableCorrection = correction;
+            }
+            return dropTable;
+        }
+    }
+
+    static void traceRays(Raster raster, double observerLat, double observerLon, int radius, ElevationInterpolation interpolation, CurvatureCorrection correction,
+                          double observerHeight, double targetHeight, RayBuffers buffers, CellMarker marker) {
+        traceRays(raster, observerLat, observerLon, radius, radius, interpolation, correction, observerHeight, targetHeight, buffers, marker);
+    }
+
+    /**
+     * @param steps - steps traced along each ray toward the perimeter at radius, cells beyond are left unmarked
+     */
+    static void traceRays(Raster raster, double observerLat, double observerLon, int radius, int steps, ElevationInterpolation interpolation, CurvatureCorrection correction,
+                          double observerHeight, double targetHeight, RayBuffers buffers, CellMarker marker) {
+        double observerX = getObserverX(raster, observerLon);
+        double observerY = getObserverY(raster, observerLat);
+        int observerCol = getObserverCol(raster, observerLon);
+        int observerRow = getObserverRow(raster, observerLat);
+        double observerElevation = raster.getInterpolatedElevationByRowCol(observerX, observerY, interpolation) + observerHeight;
+
+        List<Cell> perimeter = BresenhamCircle.calculateBresenhamCircle(observerCol, observerRow, raster.getCols(), raster.getRows(), radius);
+        buffers.ensureCapacity(radius + 2);
+
+        for (Cell cell : perimeter) {
+            // Cell i of the line lies i cells away along its major axis, so the ray has one sample per cell
+            int size = Math.max(Math.abs((int) cell.getX() - observerCol), Math.abs((int) cell.getY() - observerRow)) + 1;
+            int traced = Math.min(size, steps + 1);
+            List<Cell> line = BresenhamLine.calculateBresenhamLine(observerCol, observerRow, (int) cell.getX(), (int) cell.getY(), traced);
+            buffers.ensureCapacity(size);
+            double[] samples = buffers.samples;
+            raster.sampleElevationsAlongRay(observerX, observerY, cell.getX(), cell.getY(), size, traced, interpolation, samples);
+            double[] dropTable = buffers.getDropTable(correction, size);
+            if (dropTable != null) {
+                double stepMeters = CurvatureCorrection.getStepMeters(raster, observerLat, cell.getX() - observerX, cell.getY() - observerY, size);
+                applyDrop(samples, dropTable, stepMeters * stepMeters, traced);
+            }
+            double rayLength = Math.hypot(cell.getX() - observerX, cell.getY() - observerY);
+            double inverseStep = size > 1 ? (size - 1) / rayLength : 0;
+            resolveRay(samples, buffers.inverseIndices, traced, inverseStep, observerElevation, targetHeight, buffers.slopes, buffers.visible);
+            boolean[] visible = buffers.visible;
+            for (int i = 0; i < traced; ++i) {
+                if (visible[i]) {
+                    Cell lineCell = line.get(i);
+                    marker.mark((int) lineCell.getX(), (int) lineCell.getY());
+                }
+            }
+        }
+    }
+
+    /**
+     * Line of sight along one ray, samples[0] is the observer and sample i lies i steps away.
+     * A sample is visible when its slope at target height reaches the steepest ground slope before it.
+     * Slopes are computed in a separate pass of plain array arithmetic with precomputed inverse
+     * distances, so the JIT can unroll and vectorize it, the running max is a primitive.
+     *
+     * @param inverseStep - 1 / step length in cells
+     */
+    static void resolveRay(double[] samples, double[] inverseIndices, int size, double inverseStep, double observerElevation, double targetHeight,
+                           double[] slopes, boolean[] visible) {
+        for (int i = 1; i < size; ++i) {
+            slopes[i] = (samples[i] - observerElevation) * inverseIndices[i] * inverseStep;
+        }
+        double targetSlopeFactor = targetHeight * inverseStep;
+        double maxSlope = Double.NEGATIVE_INFINITY;
+        visible[0] = true;
+        for (int i = 1; i < size; ++i) {
+            double slope = slopes[i];
+            visible[i] = slope + targetSlopeFactor * inverseIndices[i] >= maxSlope;
+            maxSlope = Math.max(maxSlope, slope);
+        }
+    }
+
+    // Lowers each sample by the curvature drop of its step, scaled to the step length of the ray
+    private static void applyDrop(double[] samples, double[] dropTable, double stepMetersSquared, int size) {
+        for (int i = 0; i < size; ++i) {
+            samples[i] -= dropTable[i] * stepMetersSquared;
+        }
+    }
+
+    /**
+     * Picks the line of sight mode by raster extent, rasters that fit inside the full resolution
+     * radius use interpolated sampling and larger ones the multi-resolution pyramid.
+     */
+    public static CellType[][] calculateAdaptiveViewshed(Raster raster, double observerLat, double observerLon) {
+        int radius = (Math.min(raster.getCols(), raster.getRows()) / 2) - 1;
+        return radius <= FULL_RESOLUTION_CELLS ?
+                calculateViewshed(raster, observerLat, observerLon, LINE_OF_SIGHT_INTERPOLATION, CURVATURE_CORRECTION, OBSERVER_HEIGHT, TARGET_HEIGHT) :
+                calculateMultiResolutionViewshed(raster, observerLat, observerLon, FULL_RESOLUTION_CELLS, CURVATURE_CORRECTION, OBSERVER_HEIGHT, TARGET_HEIGHT);
+    }
+
+    public static CellType[][] calculateMultiResolutionViewshed(Raster raster, double observerLat, double observerLon, int fullResolutionCells) {
+        return calculateMultiResolutionViewshed(raster, observerLat, observerLon, fullResolutionCells, null, 0, 0);
+    }
+
+    /**
+     * Line of sight that evaluates full resolution cells near the observer and blocks of cells further away,
+     * one block per max-pooled pyramid cell length. A block is visible when its highest pyramid elevation at its
+     * nearest distance clears the horizon, and the horizon only rises by the exact slope of one sampled cell per
+     * block, so the far field is a superset of the full resolution viewshed.
+     *
+     * @param fullResolutionCells - ray length in cells evaluated at full resolution, each doubling beyond it drops a level
+     * @param correction - curvature and refraction drop, null for none
+     * @param observerHeight - eye height above the ground at the observer, in metres
+     * @param targetHeight - height above the ground a cell must be seen at, in metres
+     */
+    public static CellType[][] calculateMultiResolutionViewshed(Raster raster, double observerLat, double observerLon, int fullResolutionCells, CurvatureCorrection correction,
+                                                                double observerHeight, double targetHeight) {
+        // Same observer as traceRays, rays start at the observer's cell and distances are taken from its position
+        double observerX = getObserverX(raster, observerLon);
+        double observerY = getObserverY(raster, observerLat);
+        int observerCol = getObserverCol(raster, observerLon);
+        int observerRow = getObserverRow(raster, observerLat);
+        double observerElevation = raster.getInterpolatedElevationByRowCol(observerX, observerY, LINE_OF_SIGHT_INTERPOLATION) + observerHeight;
+        int radius = (Math.min(raster.getCols(), raster.getRows()) / 2) - 1;
+        int levels = raster.getPyramidLevelCount();
+        int nearField = Math.max(fullResolutionCells, 1);
+
+        CellType[][] viewshed = new CellType[raster.getRows()][raster.getCols()];
+        List<Cell> perimeter = BresenhamCircle.calculateBresenhamCircle(observerCol, observerRow, raster.getCols(), raster.getRows(), radius);
+        double[] dropTable = correction != null ? correction.createStepDropTable(radius + 2) : null;
+        viewshed[observerRow][observerCol] = CellType.VIEWSHED;
+
+        for (Cell cell : perimeter) {
+            double maxSlope = Double.NEGATIVE_INFINITY;
+            int level = 0;
+            long nextLevelDistance = nearField;
+            List<Cell> line = BresenhamLine.calculateBresenhamLine(observerCol, observerRow, (int) cell.getX(), (int) cell.getY());
+            double stepMetersSquared = 0;
+            if (dropTable != null) {
+                if (dropTable.length < line.size()) {
+                    dropTable = correction.createStepDropTable(line.size());
+                }
+                double stepMeters = CurvatureCorrection.getStepMeters(raster, observerLat, cell.getX() - observerX, cell.getY() - observerY, line.size());
+                stepMetersSquared = stepMeters * stepMeters;
+            }
+            int i = 1;
+            while (i < line.size()) {
+                while (i >= nextLevelDistance && level < levels - 1) {
+                    ++level;
+                    nextLevelDistance <<= 1;
+                }
+                Cell lineCell = line.get(i);
+                int x = (int) lineCell.getX();
+                int y = (int) lineCell.getY();
+                double drop = dropTable != null ? dropTable[i] * stepMetersSquared : 0;
+                double inverseDistance = 1 / Math.hypot(x - observerX, y - observerY);
+                double slope = (raster.getElevation(x, y) - observerElevation - drop) * inverseDistance;
+                if (level == 0) {
+                    if (slope + targetHeight * inverseDistance >= maxSlope) {
+                        viewshed[y][x] = CellType.VIEWSHED;
+                    }
+                    if (slope > maxSlope) {
+                        maxSlope = slope;
+                    }
+                    ++i;
+                    continue;
+                }
+                // Cells of the block fit in the 2x2 pyramid cells about its ends, the drop and distance grow along the ray
+                int end = Math.min(line.size(), i + (1 << level));
+                Cell lastCell = line.get(end - 1);
+                int lastX = (int) lastCell.getX();
+                int lastY = (int) lastCell.getY();
+                int highest = Math.max(Math.max(raster.getPyramidElevation(level, x, y), raster.getPyramidElevation(level, lastX, y)),
+                        Math.max(raster.getPyramidElevation(level, x, lastY), raster.getPyramidElevation(level, lastX, lastY)));
+                double rise = highest - observerElevation - drop + targetHeight;
+                double highestSlope = rise >= 0 ? rise * inverseDistance : rise / Math.hypot(lastX - observerX, lastY - observerY);
+                if (highestSlope >= maxSlope) {
+                    for (int j = i; j < end; ++j) {
+                        Cell blockCell = line.get(j);
+                        viewshed[(int) blockCell.getY()][(int) blockCell.getX()] = CellType.VIEWSHED;
+                    }
+                }
+                if (slope > maxSlope) {
+                    maxSlope = slope;
+                }
+                i = end;
+            }
+        }
+        return viewshed;
+    }
+}
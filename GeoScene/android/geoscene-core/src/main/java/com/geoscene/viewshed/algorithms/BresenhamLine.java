@@ -13,6 +13,13 @@ to a straight line between two points. Ref:  https://en.wikipedia.org/wiki/Brese
 public class BresenhamLine {
 
     public static List<Cell> calculateBresenhamLine(int x0, int y0, int x1, int y1) {
+        return calculateBresenhamLine(x0, y0, x1, y1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first maxCells cells of the line from (x0, y0) to (x1, y1).
+     */
+    public static List<Cell> calculateBresenhamLine(int x0, int y0, int x1, int y1, int maxCells) {
         List<Cell> line = new ArrayList<>();
         // delta of exact value and rounded value of the dependent variable
         int d = 0;
@@ -32,7 +39,7 @@ public class BresenhamLine {
         if (dx >= dy) {
             while (true) {
                 line.add(new Cell(x, y));
-                if(x == x1)
+                if(x == x1 || line.size() == maxCells)
                     break;
                 x += ix;
                 d += dy2;
@@ -43,7 +50,7 @@ public class BresenhamLine {
             }
         } else while (true) {
             line.add(new Cell(x, y));
-            if(y == y1)
+            if(y == y1 || line.size() == maxCells)
                 break;
             y += iy;
             d += dx2;
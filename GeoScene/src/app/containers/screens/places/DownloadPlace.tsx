@@ -52,6 +52,9 @@ export function DownloadPlace({
   });
 
   const [errorModalVisible, setErrorModalVisible] = useState<boolean>(false);
+  const [downloadProgress, setDownloadProgress] = useState<number | null>(
+    null,
+  );
 
   // const
   const mapRef = useRef<number | null>(null);
@@ -65,13 +68,17 @@ export function DownloadPlace({
     const downloadEventListener = eventEmitter.addListener(
       'DownloadEvent',
       (event) => {
-        if (event.done && !event.error) {
+        if (event.progress !== undefined) {
+          setDownloadProgress(event.progress);
+        } else if (event.done && !event.error) {
           setShowDownloadModalVisible(false);
+          setDownloadProgress(null);
           setName('');
           setDescription('');
           setRadius('15');
         } else if (event.error) {
           setShowDownloadModalVisible(false);
+          setDownloadProgress(null);
           setErrorModalVisible(true);
         }
       },
@@ -202,6 +209,7 @@ export function DownloadPlace({
                 locationMarker.latitude,
                 locationMarker.longitude,
                 radius,
+                state.precomputeVisibility ?? true,
               );
             }}
           />
@@ -209,7 +217,11 @@ export function DownloadPlace({
       </TabScreen>
       <LoadingModal
         isVisible={downloadModalVisible}
-        text={'Downloading location data, this may take up to a minute.'}
+        text={
+          downloadProgress === null
+            ? 'Downloading location data, this may take up to a minute.'
+            : `Precomputing visible places ${downloadProgress}%.`
+        }
       />
       <ErrorModal
         isVisible={errorModalVisible}
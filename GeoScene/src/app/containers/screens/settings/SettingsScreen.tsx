@@ -260,6 +260,21 @@ export const SettingsScreen: React.FC<SettingsStackRouteNavProps<
             },
           }),
       },
+      precompute_visibility: {
+        title: 'Precompute Downloaded Places',
+        additionalText:
+          'Downloaded places open faster, downloading takes longer.',
+        switch: true,
+        bottomText: true,
+        switchActive: state.precomputeVisibility ?? true,
+        onClick: () =>
+          dispatch({
+            type: SettingsActionTypes.CHANGE_PRECOMPUTE_VISIBILITY,
+            payload: {
+              precomputeVisibility: !(state.precomputeVisibility ?? true),
+            },
+          }),
+      },
     },
     about: {
       about: {
@@ -324,6 +339,7 @@ export const SettingsScreen: React.FC<SettingsStackRouteNavProps<
         menuItems.ar_optimization.offset_overlap,
         menuItems.ar_optimization.dynamic_markers,
         menuItems.ar_optimization.realistic_markers,
+        menuItems.ar_optimization.precompute_visibility,
       ],
     },
     {
@@ -82,6 +82,7 @@ export interface SettingsType {
   realisticMarkers: boolean;
   offsetOverlapMarkers: boolean;
   showVisiblePlacesOnMap: boolean;
+  precomputeVisibility: boolean;
 }
 
 const initialSettings: SettingsType = {
@@ -97,6 +98,7 @@ const initialSettings: SettingsType = {
   realisticMarkers: true,
   offsetOverlapMarkers: false,
   showVisiblePlacesOnMap: true,
+  precomputeVisibility: true,
 };
 
 export const SettingsContext = createContext<{
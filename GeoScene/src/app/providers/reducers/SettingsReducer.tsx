@@ -23,6 +23,7 @@ export enum SettingsActionTypes {
   CHANGE_OFFSET_OVERLAP_MARKERS,
   CHANGE_SHOW_MAP_VISIBLE_MARKERS,
   CHANGE_MAP_TYPE,
+  CHANGE_PRECOMPUTE_VISIBILITY,
 }
 
 type SettingsPayload = {
@@ -64,6 +65,9 @@ type SettingsPayload = {
   [SettingsActionTypes.CHANGE_MAP_TYPE]: {
     mapType: MapType;
   };
+  [SettingsActionTypes.CHANGE_PRECOMPUTE_VISIBILITY]: {
+    precomputeVisibility: boolean;
+  };
 };
 
 export type SettingsActions = ActionMap<SettingsPayload>[keyof ActionMap<
@@ -151,6 +155,14 @@ const SettingsReducer = (state: SettingsType, action: SettingsActions) => {
       AsyncStorage.setItem(SETTINGS_KEY, JSON.stringify(newState));
       return newState;
     }
+    case SettingsActionTypes.CHANGE_PRECOMPUTE_VISIBILITY: {
+      const newState = {
+        ...state,
+        precomputeVisibility: action.payload.precomputeVisibility,
+      };
+      AsyncStorage.setItem(SETTINGS_KEY, JSON.stringify(newState));
+      return newState;
+    }
     case SettingsActionTypes.CHANGE_PLACE_TYPES: {
       let placeTypes = cloneObject(state.placeTypes);
       placeTypes[action.payload.category][action.payload.placeType].on =
@@ -5,3 +5,5 @@ export const Overpass = NativeModules.Overpass;
 export const OAuthManagerBridge = NativeModules.OAuthManager;
 export const Geography = NativeModules.Geography;
 export const Permissions = NativeModules.Permissions;
+export const Viewshed = NativeModules.Viewshed;
+export const Tracing = NativeModules.Tracing;
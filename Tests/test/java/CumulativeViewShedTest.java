@@ -0,0 +1,69 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.viewshed.CumulativeViewShed;
+import com.geoscene.viewshed.ViewShed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CumulativeViewShedTest {
+    private Raster raster;
+    private List<Coordinate> observers;
+
+    @Before
+    public void setUp() {
+        int[][] elevations = new int[120][120];
+        for (int y = 0; y < 120; y++) {
+            for (int x = 0; x < 120; x++) {
+                elevations[y][x] = (int) (300 + 120 * Math.sin(x / 7.0) * Math.cos(y / 11.0));
+            }
+        }
+        raster = new Raster(120, 120, 34.6, 31.7, 8.33333333E-4, elevations);
+        observers = Arrays.asList(
+                raster.getCoordinateByRowCol(60, 60),
+                raster.getCoordinateByRowCol(40, 70),
+                raster.getCoordinateByRowCol(75, 50));
+    }
+
+    @Test
+    public void observerBitsetsMatchSingleViewsheds() {
+        CumulativeViewShed cumulative = CumulativeViewShed.calculate(raster, observers);
+        assertEquals(observers.size(), cumulative.getObserverCount());
+        for (int observer = 0; observer < observers.size(); observer++) {
+            Coordinate coordinate = observers.get(observer);
+            CellType[][] single = ViewShed.calculateViewshed(raster, coordinate.getLat(), coordinate.getLon(), ViewShed.LINE_OF_SIGHT_INTERPOLATION, ViewShed.CURVATURE_CORRECTION,
+                    ViewShed.OBSERVER_HEIGHT, ViewShed.TARGET_HEIGHT);
+            int visible = 0;
+            for (int y = 0; y < raster.getRows(); y++) {
+                for (int x = 0; x < raster.getCols(); x++) {
+                    assertEquals(single[y][x] != null, cumulative.isVisible(observer, x, y));
+                    visible += single[y][x] != null ? 1 : 0;
+                }
+            }
+            assertEquals(visible, cumulative.getVisibleCellCount(observer));
+        }
+    }
+
+    @Test
+    public void countsSumObserverVisibility() {
+        CumulativeViewShed cumulative = CumulativeViewShed.calculate(raster, observers);
+        int covered = 0;
+        for (int y = 0; y < raster.getRows(); y++) {
+            for (int x = 0; x < raster.getCols(); x++) {
+                int expected = 0;
+                for (int observer = 0; observer < observers.size(); observer++) {
+                    expected += cumulative.isVisible(observer, x, y) ? 1 : 0;
+                }
+                assertEquals(expected, cumulative.getCount(x, y));
+                covered += expected > 0 ? 1 : 0;
+            }
+        }
+        assertEquals(covered, cumulative.getCoveredCellCount());
+    }
+}
@@ -0,0 +1,35 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.viewshed.CurvatureCorrection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CurvatureCorrectionTest {
+
+    @Test
+    public void dropAtTenKilometers() {
+        // d^2 / 2R * (1 - k) = 10^8 / 12742017.6 * 0.87
+        assertEquals(6.83, CurvatureCorrection.STANDARD.getDrop(10000), 0.01);
+        assertEquals(7.85, new CurvatureCorrection(0).getDrop(10000), 0.01);
+    }
+
+    @Test
+    public void stepTableMatchesDrop() {
+        double stepMeters = 92.5;
+        double[] table = CurvatureCorrection.STANDARD.createStepDropTable(200);
+        for (int i = 0; i < table.length; i++) {
+            assertEquals(CurvatureCorrection.STANDARD.getDrop(i * stepMeters), table[i] * stepMeters * stepMeters, 1e-9);
+        }
+    }
+
+    @Test
+    public void stepMetersAlongAxes() {
+        Raster raster = new Raster(10, 10, 34.6, 0.0, 8.33333333E-4, new int[10][10]);
+        double cellMeters = 8.33333333E-4 * CurvatureCorrection.EARTH_RADIUS_METERS * Math.PI / 180;
+        assertEquals(cellMeters, CurvatureCorrection.getStepMeters(raster, 0.0, 5, 0, 6), 1e-9);
+        assertEquals(cellMeters * Math.cos(Math.toRadians(60)), CurvatureCorrection.getStepMeters(raster, 60.0, 5, 0, 6), 1e-9);
+        assertEquals(cellMeters, CurvatureCorrection.getStepMeters(raster, 60.0, 0, 5, 6), 1e-9);
+        assertEquals(0, CurvatureCorrection.getStepMeters(raster, 60.0, 0, 0, 1), 0.0);
+    }
+}
@@ -1,209 +1,211 @@
 import com.geoscene.elevation.Raster;
 import com.geoscene.elevation.open_topography.CellType;
 import com.geoscene.geography.Coordinate;
-import com.geoscene.places.overpass.poi.Bounds;
-import com.geoscene.places.overpass.poi.Element;
-import com.geoscene.places.overpass.poi.PointsOfInterest;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
 import com.geoscene.places.fov_analyzer.FOVAnalyzer;
-import com.geoscene.places.overpass.poi.Tags;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceBounds;
+import com.geoscene.places.poi.PlaceList;
 
 import org.javatuples.Pair;
-import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.Mock;
-import org.mockito.Mockito;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
-import io.realm.RealmList;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 public class FOVAnalyzerTest {
-    RealmList<Element> elements;
-    @Mock
-    Raster raster;
-    CellType[][] viewshed;
-    PointsOfInterest points;
-    Element location;
-    Element wayPlace;
+    private static final int SIZE = 50;
+    private static final double CELL_SIZE = 8.33333333E-4;
+    private static final double WEST = 34.55;
+    private static final double SOUTH = 31.65;
 
+    private Raster raster;
+    private CellType[][] viewshed;
+    private PlaceList places;
+    private Map<String, HashSet<String>> placesTypes;
 
     @Before
     public void setUp() {
-        raster = Mockito.mock(Raster.class);
-    }
-
-    @After
-    public void tearDown() {
-        Mockito.reset(raster);
-        location = null;
-        elements = null;
-
+        raster = new Raster(SIZE, SIZE, WEST, SOUTH, CELL_SIZE, new int[SIZE][SIZE]);
+        raster.setBoundingBox(new BoundingBoxCenter(new Pair<>(
+                new Coordinate(SOUTH, WEST),
+                new Coordinate(SOUTH + SIZE * CELL_SIZE, WEST + SIZE * CELL_SIZE))));
+        viewshed = new CellType[SIZE][SIZE];
+        raster.setViewshed(viewshed);
+        places = new PlaceList(new ArrayList<>());
+        placesTypes = new HashMap<>();
+        placesTypes.put("place", new HashSet<>(Arrays.asList("city", "town")));
+        placesTypes.put("natural", new HashSet<>(Arrays.asList("peak", "ridge")));
+        placesTypes.put("historic", new HashSet<>(Arrays.asList("ruins")));
     }
 
     @Test
     public void intersectVisiblePlacesNodeTest() {
-        setUpNodeTest();
-        List<Pair<Element, Coordinate>> sol = FOVAnalyzer.intersectVisiblePlaces(raster,points);
-        assertEquals(sol.size(), 1);
-        assertEquals(sol.get(0).getValue0().type,"node");
-        assertEquals(sol.get(0).getValue0().tags.name,"Ashkelon");
-
+        Place ashkelon = node("Ashkelon", 10, 10);
+        ashkelon.tags.natural = "peak";
+        visible(10, 10);
+
+        List<Pair<Place, Coordinate>> sol = intersect();
+        assertEquals(1, sol.size());
+        assertSame(ashkelon, sol.get(0).getValue0());
+        assertCell(10, 10, sol.get(0).getValue1());
     }
 
     @Test
     public void intersectVisiblePlacesNoViewshedCalculation() {
-        setUpNoViewshedCalculationTest();
-        List<Pair<Element, Coordinate>> sol = FOVAnalyzer.intersectVisiblePlaces(raster,points);
-        assertEquals(sol.size(), 2);
-        assertTrue(sol.stream().anyMatch(place -> place.getValue0().tags.name.equals("Ashkelon")));
-        assertTrue(sol.stream().anyMatch(place -> place.getValue0().tags.name.equals("Ashdod")));
+        raster.setViewshed(null);
+        Place ashdod = way("Ashdod", 30, 30, 34, 34);
+        ashdod.tags.place = "city";
+        Place ashkelon = node("Ashkelon", 10, 10);
+        ashkelon.tags.place = "city";
+
+        // Without a viewshed every node in the bounding box is listed before the ways
+        assertEquals(Arrays.asList(ashkelon, ashdod), elements(intersect()));
     }
 
     @Test
     public void intersectVisiblePlacesWayTest() {
-        setUpWayTest();
-        List<Pair<Element, Coordinate>> sol = FOVAnalyzer.intersectVisiblePlaces(raster,points);
-        assertEquals(sol.size(), 1);
-        assertEquals(sol.get(0).getValue0().type,"way");
-        assertEquals(sol.get(0).getValue0().tags.name,"Ashkelon");
-
+        Place ashkelon = way("Ashkelon", 7, 7, 11, 11);
+        ashkelon.tags.natural = "ridge";
+        visible(10, 10);
+
+        List<Pair<Place, Coordinate>> sol = intersect();
+        assertEquals(1, sol.size());
+        assertSame(ashkelon, sol.get(0).getValue0());
+        assertCell(10, 10, sol.get(0).getValue1());
     }
 
     @Test
-    public void intersectVisibleNotVisiblePlacesWayTest(){
-        setUpNotVisibleWayTest();
-        List<Pair<Element, Coordinate>> sol = FOVAnalyzer.intersectVisiblePlaces(raster,points);
-        assertEquals(sol.size(), 0);
+    public void intersectVisibleNotVisiblePlacesWayTest() {
+        way("Ashkelon", 7, 7, 11, 11).tags.natural = "ridge";
+        way("Ashkelon", 12, 5, 16, 12).tags.natural = "ridge";
+        visible(20, 20);
+
+        assertTrue(intersect().isEmpty());
     }
 
     @Test
-    public void intersectVisibleMoreThenOneVisiblePlacesWayNodeTest(){
-        setUpVisibleMoreThenOneNodeWayTest();
-        List<Pair<Element, Coordinate>> sol = FOVAnalyzer.intersectVisiblePlaces(raster,points);
-        assertEquals(sol.size(), 2);
-        assertTrue(sol.stream().anyMatch(place -> place.getValue0().tags.name.equals("Ashkelon")));
-        assertTrue(sol.stream().anyMatch(place -> place.getValue0().tags.name.equals("Ashdod")));
+    public void intersectVisibleMoreThenOneVisiblePlacesWayNodeTest() {
+        Place ashkelon = node("Ashkelon", 10, 10);
+        ashkelon.tags.natural = "peak";
+        Place ashdod = way("Ashdod", 19, 19, 21, 21);
+        ashdod.tags.natural = "ridge";
+        visible(10, 10);
+        visible(20, 20);
+
+        assertEquals(Arrays.asList(ashdod, ashkelon), elements(intersect()));
     }
 
-
-    private void setUpNodeTest(){
-        points = new PointsOfInterest();
-        elements = new RealmList<>();
-        location = new Element();
-        location.type = "node";
-        location.lat = 31.668944014074476;
-        location.lon = 34.57515727034688;
-        location.tags = new Tags();
-        location.tags.name = "Ashkelon";
-        elements.add(location);
-        points.elements = elements;
-        viewshed = new CellType[50][50];
-        viewshed[10][10] = CellType.VIEWSHED;
-        Mockito.when(raster.getRowColByCoordinates(Mockito.any())).thenReturn(new Pair<>(10,10));
-        Mockito.when(raster.getViewshed()).thenReturn(viewshed);
+    @Test
+    public void visiblePlacesAreOrderedByCategoryWaysFirst() {
+        Place historicNode = node("Tel", 2, 2);
+        historicNode.tags.historic = "ruins";
+        Place naturalNode = node("Peak", 4, 4);
+        naturalNode.tags.natural = "peak";
+        Place historicWay = way("Fortress", 5, 5, 7, 7);
+        historicWay.tags.historic = "ruins";
+        Place appNode = node("Lookout", 8, 8);
+        appNode.tags.createdBy = "GeoScene";
+        Place naturalWay = way("Ridge", 9, 9, 11, 11);
+        naturalWay.tags.natural = "ridge";
+        Place placeWay = way("Ashkelon", 12, 12, 14, 14);
+        placeWay.tags.place = "city";
+        Place secondNaturalNode = node("Hill", 15, 15);
+        secondNaturalNode.tags.natural = "peak";
+        for (int i = 2; i <= 15; i++) {
+            visible(i, i);
+        }
+
+        // Places, natural, historic then app created, ways before nodes and the input order kept within each
+        assertEquals(Arrays.asList(placeWay, naturalWay, naturalNode, secondNaturalNode, historicWay, historicNode, appNode),
+                elements(intersect()));
     }
 
-    private void setUpNoViewshedCalculationTest(){
-        points = new PointsOfInterest();
-        elements = new RealmList<>();
-        location = new Element();
-        location.type = "node";
-        location.lat = 31.668944014074476;
-        location.lon = 34.57515727034688;
-        location.tags = new Tags();
-        location.tags.name = "Ashkelon";
-        wayPlace = new Element();
-        wayPlace.type = "way";
-        wayPlace.lat = 32.668944014074476;
-        wayPlace.lon = 36.57515727034688;
-        wayPlace.tags = new Tags();
-        wayPlace.tags.name = "Ashdod";
-        wayPlace.bounds = new Bounds();
-        elements.add(location);
-        elements.add(wayPlace);
-        points.elements = elements;
-        Mockito.when(raster.getRowColByCoordinates(Mockito.any())).thenReturn(new Pair<>(10,10));
-        Mockito.when(raster.getViewshed()).thenReturn(null);
+    @Test
+    public void visibleWayHidesNodesOfItsNameInItsCategory() {
+        Place ridge = way("Carmel", 5, 5, 7, 7);
+        ridge.tags.natural = "ridge";
+        node("Carmel", 6, 6).tags.natural = "peak";
+        Place ruins = node("Carmel", 8, 8);
+        ruins.tags.historic = "ruins";
+        // Named alike through the English name
+        Place tabor = way("Har Tavor", 10, 10, 12, 12);
+        tabor.tags.nameEng = "Mount Tabor";
+        tabor.tags.natural = "ridge";
+        Place taborPeak = node("Tabor", 11, 11);
+        taborPeak.tags.nameEng = "Mount Tabor";
+        taborPeak.tags.natural = "peak";
+        // A way out of sight hides nothing
+        way("Gilboa", 30, 30, 32, 32).tags.natural = "ridge";
+        Place gilboa = node("Gilboa", 20, 20);
+        gilboa.tags.natural = "peak";
+        visible(6, 6);
+        visible(8, 8);
+        visible(11, 11);
+        visible(20, 20);
+
+        assertEquals(Arrays.asList(ridge, tabor, gilboa, ruins), elements(intersect()));
+    }
 
+    @Test
+    public void unnamedPlaceWayShowsTheNearestPlaceNode() {
+        Place area = way(null, 10, 10, 20, 20);
+        area.tags.place = "town";
+        Place far = node("Outskirts", 11, 11);
+        far.tags.place = "town";
+        Place center = node("Ashdod", 15, 15);
+        center.tags.place = "town";
+        visible(12, 12);
+
+        List<Pair<Place, Coordinate>> sol = intersect();
+        assertEquals(1, sol.size());
+        assertSame(center, sol.get(0).getValue0());
+        assertCell(12, 12, sol.get(0).getValue1());
     }
 
-    private void setUpWayTest(){
-        points = new PointsOfInterest();
-        elements = new RealmList<>();
-        location = new Element();
-        location.type = "way";
-        location.lat = 31.668944014074476;
-        location.lon = 34.57515727034688;
-        location.tags = new Tags();
-        location.tags.name = "Ashkelon";
-        location.bounds = new Bounds();
-        elements.add(location);
-        points.elements = elements;
-        viewshed = new CellType[50][50];
-        viewshed[10][10] = CellType.VIEWSHED;
-        Mockito.when(raster.getRowColByCoordinates(Mockito.any())).thenReturn(new Pair<>(7,7)).thenReturn(new Pair<>(11,11));
-        Mockito.when(raster.getViewshed()).thenReturn(viewshed);
+    private List<Pair<Place, Coordinate>> intersect() {
+        return FOVAnalyzer.intersectVisiblePlaces(raster, places, placesTypes, true, false);
+    }
 
+    private void visible(int x, int y) {
+        viewshed[y][x] = CellType.VIEWSHED;
     }
 
-    private void setUpNotVisibleWayTest(){
-        points = new PointsOfInterest();
-        elements = new RealmList<>();
-        location = new Element();
-        location.type = "way";
-        location.lat = 31.668944014074476;
-        location.lon = 34.57515727034688;
-        location.tags = new Tags();
-        location.tags.name = "Ashkelon";
-        location.bounds = new Bounds();
-        wayPlace = new Element();
-        wayPlace.type = "way";
-        wayPlace.lat = 32.668944014074476;
-        wayPlace.lon = 36.57515727034688;
-        wayPlace.tags = new Tags();
-        wayPlace.tags.name = "Ashkelon";
-        wayPlace.bounds = new Bounds();
-        elements.add(location);
-        elements.add(wayPlace);
-        points.elements = elements;
-        viewshed = new CellType[50][50];
-        viewshed[20][20] = CellType.VIEWSHED;
-        Mockito.when(raster.getRowColByCoordinates(Mockito.any())).thenReturn(new Pair<>(7,7)).
-                thenReturn(new Pair<>(11,11)).thenReturn(new Pair<>(12,12)).thenReturn(new Pair<>(16,5));
-        Mockito.when(raster.getViewshed()).thenReturn(viewshed);
+    private Place node(String name, int x, int y) {
+        Place place = new Place();
+        place.type = "node";
+        place.lat = raster.getLatitudeByRow(y);
+        place.lon = raster.getLongitudeByCol(x);
+        place.tags.name = name;
+        places.elements.add(place);
+        return place;
+    }
 
+    // Way whose bounds span the cells from (x0, y0) to (x1, y1)
+    private Place way(String name, int x0, int y0, int x1, int y1) {
+        Place place = new Place();
+        place.type = "way";
+        place.bounds = new PlaceBounds(raster.getLatitudeByRow(y1), raster.getLongitudeByCol(x0),
+                raster.getLatitudeByRow(y0), raster.getLongitudeByCol(x1));
+        place.tags.name = name;
+        places.elements.add(place);
+        return place;
     }
 
-    private void setUpVisibleMoreThenOneNodeWayTest(){
-        points = new PointsOfInterest();
-        elements = new RealmList<>();
-        location = new Element();
-        location.type = "node";
-        location.lat = 31.668944014074476;
-        location.lon = 34.57515727034688;
-        location.tags = new Tags();
-        location.tags.name = "Ashkelon";
-        location.bounds = new Bounds();
-        wayPlace = new Element();
-        wayPlace.type = "way";
-        wayPlace.lat = 32.668944014074476;
-        wayPlace.lon = 36.57515727034688;
-        wayPlace.tags = new Tags();
-        wayPlace.tags.name = "Ashdod";
-        wayPlace.bounds = new Bounds();
-        elements.add(location);
-        elements.add(wayPlace);
-        points.elements = elements;
-        viewshed = new CellType[50][50];
-        viewshed[11][11] = CellType.VIEWSHED;
-        viewshed[10][10] = CellType.VIEWSHED;
-        Mockito.when(raster.getRowColByCoordinates(Mockito.any())).thenReturn(new Pair<>(10,10)).
-                thenReturn(new Pair<>(11,11)).thenReturn(new Pair<>(19,19)).thenReturn(new Pair<>(21,21));
-        Mockito.when(raster.getViewshed()).thenReturn(viewshed);
+    private void assertCell(int x, int y, Coordinate coordinate) {
+        assertEquals(raster.getLatitudeByRow(y), coordinate.getLat(), 1e-9);
+        assertEquals(raster.getLongitudeByCol(x), coordinate.getLon(), 1e-9);
+    }
 
+    private static List<Place> elements(List<Pair<Place, Coordinate>> locations) {
+        return locations.stream().map(Pair::getValue0).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
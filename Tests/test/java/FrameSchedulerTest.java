@@ -0,0 +1,140 @@
+import com.geoscene.scheduling.FrameScheduler;
+import com.geoscene.tracing.FrameTimeHistogram;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+    private static final long MILLI = 1_000_000;
+
+    private long now;
+    private final FrameScheduler scheduler = new FrameScheduler(4 * MILLI, new FrameTimeHistogram(), new FrameTimeHistogram(), () -> now);
+
+    private Runnable task(List<String> ran, String name, long millis) {
+        return () -> {
+            ran.add(name);
+            now += millis * MILLI;
+        };
+    }
+
+    @Test
+    public void runsByPriorityWithinBudget() {
+        List<String> ran = new ArrayList<>();
+        scheduler.post(FrameScheduler.Priority.COLLISION, task(ran, "collision", 1));
+        scheduler.post(FrameScheduler.Priority.LABEL_TEXT, task(ran, "label1", 3));
+        scheduler.post(FrameScheduler.Priority.LABEL_TEXT, task(ran, "label2", 3));
+        scheduler.post(FrameScheduler.Priority.ANCHOR_PLACEMENT, task(ran, "anchor", 1));
+
+        scheduler.runFrame(16 * MILLI);
+        assertEquals(ran.toString(), 2, ran.size());
+        assertEquals("anchor", ran.get(0));
+        assertEquals("label1", ran.get(1));
+        assertEquals(2, scheduler.getPending());
+        assertEquals(2, scheduler.getDeferredCount());
+
+        scheduler.runFrame(16 * MILLI);
+        assertEquals("label2", ran.get(2));
+        assertEquals("collision", ran.get(3));
+        assertEquals(0, scheduler.getPending());
+        assertEquals(2, scheduler.getFrameTimes().getCount());
+        assertEquals(4, scheduler.getWorkTimes().getMax(), 1e-9);
+    }
+
+    @Test
+    public void firstTaskRunsOverBudget() {
+        List<String> ran = new ArrayList<>();
+        scheduler.post(FrameScheduler.Priority.ANCHOR_PLACEMENT, task(ran, "slow", 10));
+        scheduler.post(FrameScheduler.Priority.ANCHOR_PLACEMENT, task(ran, "next", 1));
+        scheduler.runFrame(0);
+        assertEquals(1, ran.size());
+        scheduler.runFrame(0);
+        assertEquals(2, ran.size());
+        assertEquals(0, scheduler.getFrameTimes().getCount());
+    }
+
+    @Test
+    public void tasksPostedWhileRunningWaitForNextFrame() {
+        List<String> ran = new ArrayList<>();
+        scheduler.post(FrameScheduler.Priority.COLLISION, () -> {
+            ran.add("first");
+            scheduler.post(FrameScheduler.Priority.SETUP, task(ran, "posted", 0));
+        });
+        scheduler.runFrame(0);
+        assertEquals(1, ran.size());
+        scheduler.runFrame(0);
+        assertEquals("posted", ran.get(1));
+    }
+
+    @Test
+    public void hasBudgetTracksRunningFrame() {
+        assertTrue(scheduler.hasBudget());
+        boolean[] budget = new boolean[2];
+        scheduler.post(FrameScheduler.Priority.SETUP, () -> {
+            budget[0] = scheduler.hasBudget();
+            now += 5 * MILLI;
+            budget[1] = scheduler.hasBudget();
+        });
+        scheduler.runFrame(0);
+        assertTrue(budget[0]);
+        assertFalse(budget[1]);
+        assertTrue(scheduler.hasBudget());
+    }
+
+    @Test
+    public void failingTaskDoesNotStopFrame() {
+        List<String> ran = new ArrayList<>();
+        scheduler.post(FrameScheduler.Priority.SETUP, () -> {
+            throw new IllegalStateException("failed");
+        });
+        scheduler.post(FrameScheduler.Priority.SETUP, task(ran, "after", 0));
+        scheduler.runFrame(0);
+        assertEquals(1, ran.size());
+    }
+
+    @Test
+    public void histogramPercentiles() throws IOException {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        assertEquals(0, histogram.getPercentile(0.5), 0);
+        for (int i = 0; i < 90; i++) {
+            histogram.record(16 * MILLI);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(40 * MILLI);
+        }
+        histogram.record(400 * MILLI);
+        assertEquals(101, histogram.getCount());
+        assertEquals(16.7, histogram.getPercentile(0.5), 1e-9);
+        assertEquals(50, histogram.getPercentile(0.95), 1e-9);
+        assertEquals(400, histogram.getPercentile(1), 1e-9);
+        assertEquals(400, histogram.getMax(), 1e-9);
+        assertEquals((90 * 16 + 10 * 40 + 400) / 101.0, histogram.getMean(), 1e-9);
+
+        // Strict parsing rejects the non-finite numbers a lenient writer lets through
+        JsonReader reader = new JsonReader(new StringReader(histogram.toJsonTree().toString()));
+        reader.setLenient(false);
+        JsonObject json = new Gson().getAdapter(JsonElement.class).read(reader).getAsJsonObject();
+        assertEquals(101, json.get("count").getAsLong());
+        JsonArray buckets = json.getAsJsonArray("buckets");
+        assertEquals(FrameTimeHistogram.BUCKET_BOUNDS.length + 1, buckets.size());
+        for (int i = 0; i < FrameTimeHistogram.BUCKET_BOUNDS.length; i++) {
+            assertEquals(FrameTimeHistogram.BUCKET_BOUNDS[i], buckets.get(i).getAsJsonObject().get("le").getAsDouble(), 0);
+        }
+        assertFalse(buckets.get(FrameTimeHistogram.BUCKET_BOUNDS.length).getAsJsonObject().has("le"));
+        assertEquals(1, buckets.get(FrameTimeHistogram.BUCKET_BOUNDS.length).getAsJsonObject().get("count").getAsLong());
+
+        histogram.clear();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax(), 0);
+    }
+}
@@ -0,0 +1,68 @@
+import com.geoscene.geography.Coordinate;
+import com.geoscene.triangulation.GeodesicArcCache;
+import com.geoscene.triangulation.Triangulation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeodesicArcCacheTest {
+    private static final double DISTANCE = Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5;
+    private GeodesicArcCache<double[]> cache;
+
+    @Before
+    public void setUp() {
+        cache = new GeodesicArcCache<>((lat, lon) -> new double[]{lat, lon});
+    }
+
+    @Test
+    public void repeatedArcIsCached() {
+        List<double[]> arc = cache.getArc(31.67, 34.55, 45, DISTANCE, 12.4);
+        assertSame(arc, cache.getArc(31.67, 34.55, 45.001, DISTANCE, 12.9));
+        assertEquals(1, cache.getHitCount());
+        assertNotSame(arc, cache.getArc(31.67, 34.55, 45, DISTANCE, 13));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void arcKeepsEndsAndShrinksWhenZoomedOut() {
+        List<double[]> near = cache.getArc(60.1, 24.9, 80, DISTANCE, 16);
+        List<double[]> far = cache.getArc(60.1, 24.9, 80, DISTANCE, 6);
+        assertTrue(far.size() < near.size());
+        for (List<double[]> arc : Arrays.asList(near, far)) {
+            assertEquals(60.1, arc.get(0)[0], 1e-9);
+            assertEquals(24.9, arc.get(0)[1], 1e-9);
+        }
+        assertArrayEquals(near.get(near.size() - 1), far.get(far.size() - 1), 1e-9);
+    }
+
+    @Test
+    public void simplifiedArcStaysWithinPixel() {
+        // A high latitude arc bends on the mercator plane, every dense point must stay a pixel from the simplified line
+        int zoom = 10;
+        double pixel = 2 * Math.PI * 6378137 / 256 / (1 << zoom);
+        List<double[]> arc = cache.getArc(60.1, 24.9, 80, DISTANCE, zoom);
+        assertTrue(arc.size() > 2);
+        for (Coordinate point : Triangulation.getGeodesicArc(100, DISTANCE, 60.1, 24.9, 80)) {
+            double closest = Double.MAX_VALUE;
+            for (int i = 1; i < arc.size(); i++) {
+                closest = Math.min(closest, segmentDistance(mercator(point.getLat(), point.getLon()), mercator(arc.get(i - 1)[0], arc.get(i - 1)[1]), mercator(arc.get(i)[0], arc.get(i)[1])));
+            }
+            assertTrue(closest < pixel * 1.1);
+        }
+    }
+
+    private static double[] mercator(double lat, double lon) {
+        return new double[]{6378137 * Math.toRadians(lon), 6378137 * Math.log(Math.tan(Math.PI / 4 + Math.toRadians(lat) / 2))};
+    }
+
+    private static double segmentDistance(double[] p, double[] a, double[] b) {
+        double dx = b[0] - a[0], dy = b[1] - a[1];
+        double t = Math.max(0, Math.min(1, ((p[0] - a[0]) * dx + (p[1] - a[1]) * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(p[0] - a[0] - t * dx, p[1] - a[1] - t * dy);
+    }
+}
@@ -0,0 +1,84 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.viewshed.CurvatureCorrection;
+import com.geoscene.viewshed.HorizonEngine;
+import com.geoscene.viewshed.HorizonProfile;
+import com.geoscene.viewshed.ViewShed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HorizonEngineTest {
+    private static final double CELL_SIZE = 8.33333333E-4;
+
+    private Raster flatRaster(int size, int elevation) {
+        int[][] elevations = new int[size][size];
+        for (int[] row : elevations) {
+            java.util.Arrays.fill(row, elevation);
+        }
+        return new Raster(size, size, 0.0, 0.0, CELL_SIZE, elevations);
+    }
+
+    @Test
+    public void flatTerrainHorizonIsLevel() {
+        Raster raster = flatRaster(101, 100);
+        HorizonProfile planar = new HorizonEngine(raster, 360, null, 0).getHorizon(raster.getLatitudeByRow(50), raster.getLongitudeByCol(50));
+        HorizonProfile curved = new HorizonEngine(raster, 360, CurvatureCorrection.STANDARD, 0).getHorizon(raster.getLatitudeByRow(50), raster.getLongitudeByCol(50));
+        assertEquals(360, planar.getBinCount());
+        for (int bin = 0; bin < planar.getBinCount(); bin++) {
+            assertEquals(0f, planar.getAngles()[bin], 1e-6f);
+            // Terrain drops away with curvature, the highest angle is the nearest sample just below level
+            assertTrue(curved.getAngles()[bin] < 0f);
+            assertTrue(curved.getAngles()[bin] > -0.01f);
+        }
+    }
+
+    @Test
+    public void ridgeRaisesHorizonInItsDirection() {
+        Raster raster = flatRaster(101, 100);
+        int[][] elevations = raster.getElevations();
+        // North-south wall 20 cells east of the observer, 100m above it
+        for (int y = 0; y < 101; y++) {
+            elevations[y][70] = 200;
+        }
+        HorizonEngine engine = new HorizonEngine(raster, 3600, null, 0);
+        HorizonProfile profile = engine.getHorizon(raster.getLatitudeByRow(50), raster.getLongitudeByCol(50));
+        double wallMeters = 20 * CurvatureCorrection.getCellMeters(raster);
+        assertEquals(Math.toDegrees(Math.atan(100 / wallMeters)), profile.getHorizonAngle(90), 0.05);
+        assertEquals(0f, profile.getHorizonAngle(270), 1e-6f);
+        assertFalse(profile.isAboveHorizon(90, 1.0));
+        assertTrue(profile.isAboveHorizon(90, 4.0));
+        assertEquals(profile.getBin(90), profile.getBin(450));
+        assertEquals(profile.getBin(270), profile.getBin(-90));
+    }
+
+    @Test
+    public void terrainBehindTheRidgeIsOccluded() {
+        Raster raster = flatRaster(101, 100);
+        int[][] elevations = raster.getElevations();
+        for (int y = 0; y < 101; y++) {
+            elevations[y][70] = 200;
+        }
+        HorizonProfile profile = new HorizonEngine(raster, 3600, CurvatureCorrection.STANDARD, ViewShed.OBSERVER_HEIGHT)
+                .getHorizon(raster.getLatitudeByRow(50), raster.getLongitudeByCol(50));
+        double cellMeters = CurvatureCorrection.getCellMeters(raster);
+        assertEquals(20 * cellMeters, profile.getHorizonDistance(90), 1);
+        assertEquals(100 + ViewShed.OBSERVER_HEIGHT, profile.getObserverElevation(), 1e-9);
+
+        // Ground behind the wall is hidden, ground before it is below the horizon but nearer than the wall
+        assertTrue(profile.isOccluded(90, 100, 30 * cellMeters));
+        assertFalse(profile.isOccluded(90, 100, 10 * cellMeters));
+        // A peak clearing the wall's angle stays in sight
+        assertFalse(profile.isOccluded(90, 300, 40 * cellMeters));
+        assertFalse(profile.isOccluded(270, 100, 30 * cellMeters));
+    }
+
+    @Test
+    public void profilesAreCachedPerObserverCell() {
+        Raster raster = flatRaster(51, 0);
+        HorizonEngine engine = new HorizonEngine(raster, 360, null, 0);
+        HorizonProfile profile = engine.getHorizon(raster.getLatitudeByRow(20), raster.getLongitudeByCol(20));
+        assertSame(profile, engine.getHorizon(raster.getLatitudeByRow(20) + CELL_SIZE * 0.2, raster.getLongitudeByCol(20) - CELL_SIZE * 0.2));
+        assertNotSame(profile, engine.getHorizon(raster.getLatitudeByRow(22), raster.getLongitudeByCol(20)));
+    }
+}
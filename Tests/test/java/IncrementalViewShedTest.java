@@ -0,0 +1,102 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.viewshed.IncrementalViewShed;
+import com.geoscene.viewshed.ViewShed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IncrementalViewShedTest {
+    private Raster raster;
+    private IncrementalViewShed incrementalViewShed;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(7);
+        int[][] elevations = new int[200][200];
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                elevations[y][x] = (int) (200 + 80 * Math.sin(x / 9.0) * Math.cos(y / 13.0)) + random.nextInt(5);
+            }
+        }
+        raster = new Raster(200, 200, 34.6, 31.7, 8.33333333E-4, elevations);
+        incrementalViewShed = new IncrementalViewShed(raster);
+    }
+
+    @Test
+    public void firstUpdateComputesFullViewshed() {
+        double lat = raster.getLatitudeByRow(100);
+        double lon = raster.getLongitudeByCol(100);
+        assertTrue(incrementalViewShed.update(lat, lon));
+        assertEquals(1, incrementalViewShed.getFullUpdates());
+        assertSame(incrementalViewShed.getViewshed(), raster.getViewshed());
+        assertArrayEquals(ViewShed.calculateAdaptiveViewshed(raster, lat, lon), incrementalViewShed.getViewshed());
+        assertFalse(incrementalViewShed.update(lat, lon));
+    }
+
+    @Test
+    public void smallMoveUpdatesNearFieldOnly() {
+        incrementalViewShed.update(raster.getLatitudeByRow(100), raster.getLongitudeByCol(100));
+        CellType[][] previous = incrementalViewShed.getViewshed();
+        CellType[][] snapshot = new CellType[previous.length][];
+        for (int y = 0; y < previous.length; y++) {
+            snapshot[y] = previous[y].clone();
+        }
+
+        assertTrue(incrementalViewShed.update(raster.getLatitudeByRow(101), raster.getLongitudeByCol(102)));
+        assertEquals(1, incrementalViewShed.getFullUpdates());
+        assertEquals(1, incrementalViewShed.getNearFieldUpdates());
+        CellType[][] updated = incrementalViewShed.getViewshed();
+        assertNotSame(previous, updated);
+        // The previously published grid is left untouched
+        assertArrayEquals(snapshot, previous);
+        // Rows beyond the near field are shared with the previous grid
+        assertSame(previous[0], updated[0]);
+        assertSame(previous[199], updated[199]);
+    }
+
+    @Test
+    public void retracedNearFieldMatchesFullViewshed() {
+        incrementalViewShed.update(raster.getLatitudeByRow(100), raster.getLongitudeByCol(100));
+        CellType[][] previous = incrementalViewShed.getViewshed();
+        // Off the cell centers, the retrace and the full viewshed must start from the same observer cell
+        double lat = raster.getLatitudeByRow(102) + 0.3 * raster.getCellSize();
+        double lon = raster.getLongitudeByCol(101) - 0.4 * raster.getCellSize();
+        assertTrue(incrementalViewShed.update(lat, lon));
+        assertEquals(1, incrementalViewShed.getNearFieldUpdates());
+
+        CellType[][] updated = incrementalViewShed.getViewshed();
+        CellType[][] scratch = ViewShed.calculateAdaptiveViewshed(raster, lat, lon);
+        int x0 = ViewShed.getObserverCol(raster, lon);
+        int y0 = ViewShed.getObserverRow(raster, lat);
+        int near = 0;
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                if (Math.max(Math.abs(x - x0), Math.abs(y - y0)) <= IncrementalViewShed.NEAR_FIELD_CELLS) {
+                    assertEquals("cell " + x + "," + y, scratch[y][x], updated[y][x]);
+                    ++near;
+                } else {
+                    assertEquals("cell " + x + "," + y, previous[y][x], updated[y][x]);
+                }
+            }
+        }
+        assertEquals((2 * IncrementalViewShed.NEAR_FIELD_CELLS + 1) * (2 * IncrementalViewShed.NEAR_FIELD_CELLS + 1), near);
+    }
+
+    @Test
+    public void driftBeyondLimitRecomputesFullViewshed() {
+        incrementalViewShed.update(raster.getLatitudeByRow(100), raster.getLongitudeByCol(100));
+        for (int step = 1; step <= IncrementalViewShed.MAX_DRIFT_CELLS + 1; step++) {
+            incrementalViewShed.update(raster.getLatitudeByRow(100), raster.getLongitudeByCol(100 + step));
+        }
+        assertEquals(2, incrementalViewShed.getFullUpdates());
+        assertEquals(IncrementalViewShed.MAX_DRIFT_CELLS, incrementalViewShed.getNearFieldUpdates());
+        double lat = raster.getLatitudeByRow(100);
+        double lon = raster.getLongitudeByCol(100 + IncrementalViewShed.MAX_DRIFT_CELLS + 1);
+        assertArrayEquals(ViewShed.calculateAdaptiveViewshed(raster, lat, lon), incrementalViewShed.getViewshed());
+    }
+}
@@ -0,0 +1,143 @@
+import com.geoscene.location_markers.LabelPlacement;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LabelPlacementTest {
+    private static final float WIDTH = 120;
+    private static final float HEIGHT = 40;
+    private static final float STEP = HEIGHT + LabelPlacement.GAP;
+
+    private LabelPlacement placement;
+
+    @Before
+    public void setUp() {
+        placement = new LabelPlacement();
+    }
+
+    @Test
+    public void nearestLabelKeepsItsPlace() {
+        int far = placement.add(200, 300, WIDTH, HEIGHT, 900);
+        int near = placement.add(220, 310, WIDTH, HEIGHT, 100);
+        placement.place(true, false, 1000);
+
+        assertEquals(0, placement.getLift(near), 0);
+        // Lifted until its bottom is GAP pixels above the near label's top
+        assertEquals(310 - HEIGHT - LabelPlacement.GAP, 300 - placement.getLift(far), 1e-3);
+        assertFalse(placement.isHidden(far));
+    }
+
+    @Test
+    public void liftsStackAboveEachOther() {
+        int[] labels = new int[4];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = placement.add(500, 400, WIDTH, HEIGHT, 100 * (labels.length - i));
+        }
+        placement.place(true, false, 1000);
+
+        // Added farthest first, so the last label is the nearest and stands at the bottom
+        for (int i = 0; i < labels.length; i++) {
+            assertEquals((labels.length - 1 - i) * STEP, placement.getLift(labels[i]), 1e-3);
+        }
+    }
+
+    @Test
+    public void labelsApartAreNotLifted() {
+        int left = placement.add(100, 400, WIDTH, HEIGHT, 200);
+        int right = placement.add(100 + WIDTH + 1, 400, WIDTH, HEIGHT, 100);
+        int below = placement.add(100, 400 + HEIGHT + 1, WIDTH, HEIGHT, 300);
+        placement.place(true, true, 1000);
+
+        for (int label : new int[]{left, right, below}) {
+            assertEquals(0, placement.getLift(label), 0);
+            assertFalse(placement.isHidden(label));
+        }
+    }
+
+    @Test
+    public void liftStopsAtMaxLift() {
+        int near = placement.add(500, 400, WIDTH, HEIGHT, 100);
+        int second = placement.add(500, 400, WIDTH, HEIGHT, 200);
+        int third = placement.add(500, 400, WIDTH, HEIGHT, 300);
+        placement.place(true, false, 1.5f * STEP);
+
+        assertEquals(0, placement.getLift(near), 0);
+        assertEquals(STEP, placement.getLift(second), 1e-3);
+        // Would need two steps, stays on its anchor overlapping the near label
+        assertEquals(0, placement.getLift(third), 0);
+        assertFalse(placement.isHidden(third));
+    }
+
+    @Test
+    public void removeHidesWhatCannotBeLifted() {
+        int near = placement.add(500, 400, WIDTH, HEIGHT, 100);
+        int second = placement.add(500, 400, WIDTH, HEIGHT, 200);
+        int third = placement.add(500, 400, WIDTH, HEIGHT, 300);
+        placement.place(true, true, 1.5f * STEP);
+
+        assertFalse(placement.isHidden(near));
+        assertFalse(placement.isHidden(second));
+        assertTrue(placement.isHidden(third));
+        assertEquals(0, placement.getLift(third), 0);
+    }
+
+    @Test
+    public void removeWithoutOffsetHidesEveryOverlap() {
+        int near = placement.add(500, 400, WIDTH, HEIGHT, 100);
+        int far = placement.add(530, 390, WIDTH, HEIGHT, 200);
+        placement.place(false, true, 1000);
+
+        assertFalse(placement.isHidden(near));
+        assertTrue(placement.isHidden(far));
+        assertEquals(0, placement.getLift(far), 0);
+
+        placement.place(false, false, 1000);
+        assertFalse(placement.isHidden(far));
+        assertEquals(0, placement.getLift(far), 0);
+    }
+
+    @Test
+    public void hiddenLabelsDoNotBlockFartherOnes() {
+        int near = placement.add(500, 400, WIDTH, HEIGHT, 100);
+        int hidden = placement.add(500 + WIDTH / 2, 400, WIDTH, HEIGHT, 200);
+        // Overlaps only the hidden label
+        int far = placement.add(500 + WIDTH * 1.2f, 400, WIDTH, HEIGHT, 300);
+        placement.place(false, true, 1000);
+
+        assertFalse(placement.isHidden(near));
+        assertTrue(placement.isHidden(hidden));
+        assertFalse(placement.isHidden(far));
+    }
+
+    @Test
+    public void offScreenLabelsCollideAcrossCells() {
+        // Anchors left of and above the screen, on both sides of the grid's zero lines
+        int near = placement.add(-10, -5, WIDTH, HEIGHT, 100);
+        int far = placement.add(10, 5, WIDTH, HEIGHT, 200);
+        int farther = placement.add(-3 * LabelPlacement.CELL_SIZE, -2 * LabelPlacement.CELL_SIZE, WIDTH, HEIGHT, 300);
+        int farthest = placement.add(-3 * LabelPlacement.CELL_SIZE + 20, -2 * LabelPlacement.CELL_SIZE, WIDTH, HEIGHT, 400);
+        placement.place(true, false, 1000);
+
+        assertEquals(0, placement.getLift(near), 0);
+        assertEquals(5 - (-5 - HEIGHT - LabelPlacement.GAP), placement.getLift(far), 1e-3);
+        assertEquals(0, placement.getLift(farther), 0);
+        assertEquals(STEP, placement.getLift(farthest), 1e-3);
+    }
+
+    @Test
+    public void clearStartsOver() {
+        placement.add(500, 400, WIDTH, HEIGHT, 100);
+        placement.add(500, 400, WIDTH, HEIGHT, 200);
+        placement.place(true, true, 0);
+        placement.clear();
+        assertEquals(0, placement.getCount());
+
+        int label = placement.add(500, 400, WIDTH, HEIGHT, 300);
+        placement.place(true, true, 0);
+        assertEquals(1, placement.getCount());
+        assertFalse(placement.isHidden(label));
+        assertEquals(0, placement.getLift(label), 0);
+    }
+}
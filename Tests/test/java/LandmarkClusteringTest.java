@@ -0,0 +1,103 @@
+import com.geoscene.geography.Coordinate;
+import com.geoscene.triangulation.LandmarkClustering;
+import com.geoscene.triangulation.Triangulation;
+import com.geoscene.triangulation.TriangulationFix;
+
+import net.sf.geographiclib.Geodesic;
+import net.sf.geographiclib.GeodesicData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LandmarkClusteringTest {
+    private static final double OBSERVER_LAT = 31.8;
+    private static final double OBSERVER_LON = 34.7;
+    private static final double OBSERVER_AZIMUTH = 40;
+
+    // Two landmarks on the observer's line of sight, 8km and 14km away
+    private double[] near;
+    private double[] far;
+    private LandmarkClustering clustering;
+
+    @Before
+    public void setUp() {
+        GeodesicData nearPoint = Geodesic.WGS84.Direct(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, 8000);
+        GeodesicData farPoint = Geodesic.WGS84.Direct(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, 14000);
+        near = new double[]{nearPoint.lat2, nearPoint.lon2};
+        far = new double[]{farPoint.lat2, farPoint.lon2};
+        clustering = new LandmarkClustering();
+    }
+
+    @Test
+    public void raysOfOneNameAtTwoPlacesAreSplit() {
+        // Rays 0, 2, 3 observe the near landmark, 1 and 4 the far one, all sharing one name
+        double[][] origins = {{31.75, 34.85}, {31.9, 34.95}, {31.95, 34.7}, {31.85, 34.9}, {32.0, 34.8}};
+        double[][] targets = {near, far, near, near, far};
+        double[] offsets = {0.5, -0.5, -1, 1, 0.5};
+        Rays rays = new Rays(origins, targets, offsets);
+
+        List<List<Integer>> groups = clustering.cluster(Arrays.asList(0, 1, 2, 3, 4), rays.lats, rays.lons, rays.intersections);
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 2, 3), Arrays.asList(1, 4)), groups);
+        TriangulationFix nearFix = clustering.fix(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, groups.get(0), rays.lats, rays.lons, rays.azimuths);
+        TriangulationFix farFix = clustering.fix(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, groups.get(1), rays.lats, rays.lons, rays.azimuths);
+        assertNotNull(nearFix);
+        assertNotNull(farFix);
+        assertTrue(distance(nearFix, near) < 500);
+        assertTrue(distance(farFix, far) < 500);
+    }
+
+    @Test
+    public void unclusteredCandidatesKeepTheirOrder() {
+        double[][] origins = {{31.9, 34.95}, {31.75, 34.85}};
+        Rays rays = new Rays(origins, new double[][]{far, near}, new double[]{0, 0});
+
+        assertEquals(Arrays.asList(Collections.singletonList(0), Collections.singletonList(1)),
+                clustering.cluster(Arrays.asList(0, 1), rays.lats, rays.lons, rays.intersections));
+    }
+
+    @Test
+    public void fixRejectsRaysItDoesNotExplain() {
+        // The third ray meets the line of sight near the landmark but at a steep angle to the other rays' fix
+        double[][] origins = {{31.75, 34.85}, {31.95, 34.7}, {31.85, 34.9}};
+        Rays rays = new Rays(origins, new double[][]{near, near, near}, new double[]{0.5, -0.5, 12});
+
+        assertNotNull(clustering.fix(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, Arrays.asList(0, 1), rays.lats, rays.lons, rays.azimuths));
+        assertNull(clustering.fix(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, Arrays.asList(0, 1, 2), rays.lats, rays.lons, rays.azimuths));
+    }
+
+    private static double distance(TriangulationFix fix, double[] point) {
+        return Geodesic.WGS84.Inverse(fix.lat, fix.lon, point[0], point[1]).s12;
+    }
+
+    // Rays from the origins toward the targets, turned by the offsets in degrees, and their intersections with the observer's ray
+    private static class Rays {
+        private final double[] lats;
+        private final double[] lons;
+        private final double[] azimuths;
+        private final double[] intersections;
+
+        private Rays(double[][] origins, double[][] targets, double[] offsets) {
+            int count = origins.length;
+            lats = new double[count];
+            lons = new double[count];
+            azimuths = new double[count];
+            intersections = new double[2 * count];
+            for (int i = 0; i < count; i++) {
+                lats[i] = origins[i][0];
+                lons[i] = origins[i][1];
+                azimuths[i] = Geodesic.WGS84.Inverse(lats[i], lons[i], targets[i][0], targets[i][1]).azi1 + offsets[i];
+                Coordinate intersection = Triangulation.triangulate(OBSERVER_LAT, OBSERVER_LON, OBSERVER_AZIMUTH, lats[i], lons[i], azimuths[i]);
+                assertNotNull(intersection);
+                intersections[2 * i] = intersection.getLat();
+                intersections[2 * i + 1] = intersection.getLon();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import com.geoscene.geography.Coordinate;
+import com.geoscene.triangulation.LeastSquaresTriangulation;
+import com.geoscene.triangulation.Triangulation;
+import com.geoscene.triangulation.TriangulationFix;
+
+import net.sf.geographiclib.Geodesic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LeastSquaresTriangulationTest {
+    private static final double TARGET_LAT = 31.95;
+    private static final double TARGET_LON = 34.75;
+
+    private double[] lats;
+    private double[] lons;
+    private double[] azimuths;
+    private LeastSquaresTriangulation solver;
+
+    @Before
+    public void setUp() {
+        // Observers spread up to about 30km south west of the target
+        Random random = new Random(7);
+        lats = new double[12];
+        lons = new double[12];
+        azimuths = new double[12];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = TARGET_LAT - 0.05 - random.nextDouble() * 0.25;
+            lons[i] = TARGET_LON - 0.3 + random.nextDouble() * 0.4;
+            azimuths[i] = Geodesic.WGS84.Inverse(lats[i], lons[i], TARGET_LAT, TARGET_LON).azi1;
+        }
+        solver = new LeastSquaresTriangulation();
+    }
+
+    @Test
+    public void exactRaysMeetOnTarget() {
+        TriangulationFix fix = solver.solve(lats, lons, azimuths, lats.length);
+        assertNotNull(fix);
+        assertTrue(distance(fix) < 0.1);
+        assertEquals(0, fix.rmsError, 1e-4);
+        assertTrue(fix.semiMajor >= fix.semiMinor && fix.semiMinor > 0);
+    }
+
+    @Test
+    public void twoRaysMatchPairwiseTriangulation() {
+        double azimuth1 = azimuths[1] + 2;
+        Coordinate pair = Triangulation.triangulate(lats[0], lons[0], azimuths[0], lats[1], lons[1], azimuth1);
+        TriangulationFix fix = solver.solve(new double[]{lats[0], lats[1]}, new double[]{lons[0], lons[1]}, new double[]{azimuths[0], azimuth1}, 2);
+        assertNotNull(pair);
+        assertNotNull(fix);
+        assertEquals(0, Geodesic.WGS84.Inverse(fix.lat, fix.lon, pair.getLat(), pair.getLon()).s12, 0.1);
+    }
+
+    @Test
+    public void noisyRaysFixWithinEllipse() {
+        Random random = new Random(11);
+        for (int i = 0; i < azimuths.length; i++) {
+            azimuths[i] += random.nextGaussian() * 2;
+        }
+        azimuths[3] += 25; // A misread compass
+        TriangulationFix fix = solver.solve(lats, lons, azimuths, lats.length);
+        assertNotNull(fix);
+        assertTrue(fix.rmsError > 1);
+        assertTrue(distance(fix) < fix.semiMajor * TriangulationFix.CONFIDENCE_95_SCALE);
+        assertTrue(distance(fix) < 1500);
+    }
+
+    @Test
+    public void degenerateRaysHaveNoFix() {
+        assertNull(solver.solve(lats, lons, azimuths, 1));
+        // Parallel rays
+        assertNull(solver.solve(new double[]{31.7, 31.7}, new double[]{34.5, 34.6}, new double[]{0, 0}, 2));
+        // Target behind the second ray
+        assertNull(solver.solve(lats, lons, new double[]{azimuths[0], azimuths[1] + 180}, 2));
+    }
+
+    private static double distance(TriangulationFix fix) {
+        return Geodesic.WGS84.Inverse(fix.lat, fix.lon, TARGET_LAT, TARGET_LON).s12;
+    }
+}
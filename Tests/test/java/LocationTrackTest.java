@@ -0,0 +1,80 @@
+import com.geoscene.geography.LocationTrack;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocationTrackTest {
+
+    @Test
+    public void ringKeepsLatestFixes() {
+        LocationTrack track = new LocationTrack(4);
+        for (int i = 0; i < 6; i++) {
+            track.add(i * 1000, 32 + i * 0.001, 35, 5 + i, 1.5f);
+        }
+        assertEquals(4, track.size());
+        assertEquals(6, track.getAcceptedCount());
+        assertEquals(2000, track.getTime(0));
+        assertEquals(5000, track.getTime(3));
+        assertEquals(32.005, track.getLatitude(3), 1e-12);
+        assertEquals(10, track.getAccuracy(3), 0);
+        assertEquals(1.5f, track.getSpeed(0), 0);
+
+        track.clear();
+        assertEquals(0, track.size());
+        assertEquals(0, track.getAcceptedCount());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexOutsideTrack() {
+        LocationTrack track = new LocationTrack(4);
+        track.add(0, 32, 35, 5, 0);
+        track.getTime(1);
+    }
+
+    @Test
+    public void queriesFixesSinceTime() {
+        LocationTrack track = new LocationTrack(5);
+        for (int i = 0; i < 8; i++) {
+            track.add(i * 1000, 32, 35 + i * 0.001, 5, 0);
+        }
+        assertEquals(0, track.indexSince(0));
+        assertEquals(2, track.indexSince(4500));
+        assertEquals(5, track.indexSince(9000));
+
+        long[] times = new long[10];
+        double[] lats = new double[10], lons = new double[10];
+        assertEquals(3, track.copySince(5000, times, lats, lons));
+        assertEquals(5000, times[0]);
+        assertEquals(35.007, lons[2], 1e-12);
+        assertEquals(2, track.copySince(0, new long[2], new double[2], new double[2]));
+    }
+
+    @Test
+    public void predictsFromRecentVelocity() {
+        LocationTrack track = new LocationTrack(16);
+        double[] position = new double[2];
+        assertFalse(track.predict(0, 10000, position));
+        // A slow walk long ago, then heading north at a steady pace
+        track.add(0, 31, 35, 5, 0);
+        for (int i = 0; i <= 10; i++) {
+            track.add(60000 + i * 1000, 32 + i * 1e-5, 35, 5, 1.1f);
+        }
+        assertTrue(track.predict(75000, 5000, position));
+        assertEquals(32 + 15e-5, position[0], 1e-9);
+        assertEquals(35, position[1], 1e-9);
+    }
+
+    @Test
+    public void countsRejections() {
+        LocationTrack track = new LocationTrack(4);
+        track.reject(LocationTrack.Rejection.OLD);
+        track.reject(LocationTrack.Rejection.KALMAN);
+        track.reject(LocationTrack.Rejection.KALMAN);
+        assertEquals(1, track.getRejectedCount(LocationTrack.Rejection.OLD));
+        assertEquals(0, track.getRejectedCount(LocationTrack.Rejection.INACCURATE));
+        assertEquals(2, track.getRejectedCount(LocationTrack.Rejection.KALMAN));
+        track.clear();
+        assertEquals(0, track.getRejectedCount(LocationTrack.Rejection.KALMAN));
+    }
+}
@@ -0,0 +1,84 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.elevation.open_topography.CellType;
+import com.geoscene.viewshed.ViewShed;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultiResolutionViewShedTest {
+    private static final int SIZE = 1025;
+    private static final double CELL_SIZE = 8.33333333E-4;
+    private static final double LOWER_LEFT_LON = 34.0;
+    private static final double LOWER_LEFT_LAT = 31.0;
+
+    private static Raster raster;
+    private static double observerLat;
+    private static double observerLon;
+    private static CellType[][] fullViewshed;
+
+    @BeforeClass
+    public static void setUp() {
+        // Rolling ridges with some noise, enough relief for the far field to hold both hidden and visible cells
+        Random random = new Random(7);
+        double[] frequencyX = new double[6], frequencyY = new double[6], phase = new double[6], amplitude = new double[6];
+        for (int k = 0; k < 6; k++) {
+            frequencyX[k] = random.nextDouble() * 0.05;
+            frequencyY[k] = random.nextDouble() * 0.05;
+            phase[k] = random.nextDouble() * 7;
+            amplitude[k] = 50 + random.nextDouble() * 200;
+        }
+        int[][] elevations = new int[SIZE][SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                double elevation = 500 + random.nextInt(20);
+                for (int k = 0; k < 6; k++) {
+                    elevation += amplitude[k] * Math.sin(frequencyX[k] * x + frequencyY[k] * y + phase[k]);
+                }
+                elevations[y][x] = (int) elevation;
+            }
+        }
+        raster = new Raster(SIZE, SIZE, LOWER_LEFT_LON, LOWER_LEFT_LAT, CELL_SIZE, elevations);
+        // At a cell center, where the nearest neighbour viewshed's snapped observer and the traced observer position agree
+        observerLat = raster.getLatitudeByRow(SIZE / 2);
+        observerLon = raster.getLongitudeByCol(SIZE / 2);
+        fullViewshed = ViewShed.calculateViewshed(raster, observerLat, observerLon);
+    }
+
+    @Test
+    public void nearFieldCoveringRasterMatchesFullViewshed() {
+        CellType[][] viewshed = ViewShed.calculateMultiResolutionViewshed(raster, observerLat, observerLon, SIZE);
+        // The observer's own cell is visible as in the traced viewshed, the nearest neighbour viewshed leaves it unmarked
+        assertEquals(CellType.VIEWSHED, viewshed[SIZE / 2][SIZE / 2]);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (x == SIZE / 2 && y == SIZE / 2) {
+                    continue;
+                }
+                assertEquals("cell " + x + "," + y, fullViewshed[y][x], viewshed[y][x]);
+            }
+        }
+    }
+
+    @Test
+    public void farFieldIsSupersetOfFullViewshed() {
+        CellType[][] viewshed = ViewShed.calculateMultiResolutionViewshed(raster, observerLat, observerLon, ViewShed.FULL_RESOLUTION_CELLS);
+        int visible = 0, hidden = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (fullViewshed[y][x] != null) {
+                    assertNotNull("cell " + x + "," + y, viewshed[y][x]);
+                    ++visible;
+                } else if (viewshed[y][x] == null) {
+                    ++hidden;
+                }
+            }
+        }
+        // The terrain must exercise both outcomes for the superset to mean anything
+        assertTrue(visible > 1000);
+        assertTrue(hidden > SIZE * SIZE / 2);
+    }
+}
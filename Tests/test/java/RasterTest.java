@@ -0,0 +1,119 @@
+import com.geoscene.elevation.ElevationInterpolation;
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+
+import org.javatuples.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RasterTest {
+    private Raster raster;
+
+    @Before
+    public void setUp() {
+        int[][] elevations = new int[40][50];
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 50; x++) {
+                elevations[y][x] = y * 100 + x;
+            }
+        }
+        raster = new Raster(50, 40, 34.637916666618, 31.736250000006, 8.33333333E-4, elevations);
+    }
+
+    @Test
+    public void packedRowColMatchesPair() {
+        double[][] coordinates = {{31.75, 34.65}, {31.7363, 34.6380}, {31.80, 34.70}, {31.70, 34.60}};
+        for (double[] coordinate : coordinates) {
+            Pair<Integer, Integer> xy = raster.getRowColByCoordinates(new Coordinate(coordinate[0], coordinate[1]));
+            long packed = raster.getPackedRowColByCoordinates(coordinate[0], coordinate[1]);
+            assertEquals((int) xy.getValue0(), Raster.getPackedX(packed));
+            assertEquals((int) xy.getValue1(), Raster.getPackedY(packed));
+            assertEquals(raster.getElevationByCoordinate(new Coordinate(coordinate[0], coordinate[1])), raster.getElevationByCoordinate(coordinate[0], coordinate[1]));
+        }
+    }
+
+    @Test
+    public void coordinateTablesMatchCoordinate() {
+        double[] latLon = new double[2];
+        for (int y = 0; y < raster.getRows(); y++) {
+            for (int x = 0; x < raster.getCols(); x++) {
+                Coordinate coordinate = raster.getCoordinateByRowCol(x, y);
+                raster.getCoordinateByRowCol(x, y, latLon);
+                assertEquals(coordinate.getLat(), latLon[0], 0.0);
+                assertEquals(coordinate.getLon(), latLon[1], 0.0);
+                assertEquals(coordinate.getLat(), raster.getLatitudeByRow(y), 0.0);
+                assertEquals(coordinate.getLon(), raster.getLongitudeByCol(x), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void cellLookupRoundTrips() {
+        double cellSize = raster.getCellSize();
+        for (int y = 0; y < raster.getRows(); y++) {
+            double latitude = raster.getLatitudeByRow(y);
+            assertEquals(y, raster.getRowByLatitude(latitude));
+            assertEquals(y, raster.getFractionalRow(latitude), 1e-9);
+            // Anywhere inside the cell maps back to its center
+            assertEquals(latitude, raster.getLatitudeByRow(raster.getRowByLatitude(latitude + 0.49 * cellSize)), 0.0);
+            assertEquals(latitude, raster.getLatitudeByRow(raster.getRowByLatitude(latitude - 0.49 * cellSize)), 0.0);
+        }
+        for (int x = 0; x < raster.getCols(); x++) {
+            double longitude = raster.getLongitudeByCol(x);
+            assertEquals(x, raster.getColByLongitude(longitude));
+            assertEquals(x, raster.getFractionalCol(longitude), 1e-9);
+            assertEquals(longitude, raster.getLongitudeByCol(raster.getColByLongitude(longitude + 0.49 * cellSize)), 0.0);
+            assertEquals(longitude, raster.getLongitudeByCol(raster.getColByLongitude(longitude - 0.49 * cellSize)), 0.0);
+        }
+        // The cells tile the raster from its lower left corner
+        assertEquals(raster.getyLowerLeftCorner() + raster.getRows() * cellSize, raster.getLatitudeByRow(0) + cellSize / 2, 1e-9);
+        assertEquals(raster.getyLowerLeftCorner(), raster.getLatitudeByRow(raster.getRows() - 1) - cellSize / 2, 1e-9);
+        assertEquals(raster.getxLowerLeftCorner(), raster.getLongitudeByCol(0) - cellSize / 2, 1e-9);
+        // Interpolating at a cell center returns the cell's elevation
+        assertEquals(raster.getElevation(17, 23), raster.getInterpolatedElevation(raster.getLatitudeByRow(23), raster.getLongitudeByCol(17), ElevationInterpolation.BILINEAR), 1e-6);
+    }
+
+    @Test
+    public void interpolationAtCellCentersMatchesGrid() {
+        for (int y = 0; y < raster.getRows(); y++) {
+            for (int x = 0; x < raster.getCols(); x++) {
+                assertEquals(raster.getElevation(x, y), raster.getInterpolatedElevationByRowCol(x, y, ElevationInterpolation.BILINEAR), 1e-9);
+                assertEquals(raster.getElevation(x, y), raster.getInterpolatedElevationByRowCol(x, y, ElevationInterpolation.BICUBIC), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void interpolationBetweenCells() {
+        // The test raster is a linear ramp so both methods reproduce it exactly
+        assertEquals(1210.5, raster.getInterpolatedElevationByRowCol(10.5, 12, ElevationInterpolation.BILINEAR), 1e-9);
+        assertEquals(1260.5, raster.getInterpolatedElevationByRowCol(10.5, 12.5, ElevationInterpolation.BILINEAR), 1e-9);
+        assertEquals(2050.25, raster.getInterpolatedElevationByRowCol(25.25, 20.25, ElevationInterpolation.BICUBIC), 1e-9);
+        assertEquals(1211, raster.getInterpolatedElevationByRowCol(10.6, 12.4, ElevationInterpolation.NEAREST), 0.0);
+    }
+
+    @Test
+    public void sampleAlongRay() {
+        double[] samples = new double[5];
+        raster.sampleElevationsAlongRay(0, 0, 4, 8, 5, ElevationInterpolation.BILINEAR, samples);
+        for (int i = 0; i < samples.length; i++) {
+            assertEquals(i * 200 + i, samples[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void pyramidLevelsAreMaxPooled() {
+        assertSame(raster.getElevations(), raster.getPyramidLevel(0));
+        int[][] level1 = raster.getPyramidLevel(1);
+        assertEquals(20, level1.length);
+        assertEquals(25, level1[0].length);
+        // Max of each 2x2 block is its bottom right cell on the ramp
+        assertEquals(raster.getElevation(11, 13), level1[6][5]);
+        assertEquals(raster.getElevation(11, 13), raster.getPyramidElevation(1, 10, 12));
+        int[][] level2 = raster.getPyramidLevel(2);
+        assertEquals(raster.getElevation(49, 39), level2[level2.length - 1][level2[0].length - 1]);
+        assertTrue(raster.getPyramidLevelCount() <= Raster.MAX_PYRAMID_LEVELS);
+    }
+}
@@ -0,0 +1,211 @@
+import com.geoscene.elevation.Raster;
+import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.mercator.BoundingBoxCenter;
+import com.geoscene.places.fov_analyzer.FOVAnalyzer;
+import com.geoscene.places.poi.Place;
+import com.geoscene.places.poi.PlaceBounds;
+import com.geoscene.places.poi.PlaceList;
+import com.geoscene.region.RegionPackage;
+import com.geoscene.region.VisibilityIndex;
+import com.geoscene.viewshed.ViewShed;
+
+import org.javatuples.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RegionPackageTest {
+    private static final double CELL_SIZE = 8.33333333E-4;
+
+    private Raster raster;
+    private PlaceList places;
+    private Map<String, HashSet<String>> placesTypes;
+
+    @Before
+    public void setUp() {
+        // Rolling terrain with a ridge across the middle
+        int[][] elevations = new int[80][80];
+        for (int y = 0; y < 80; y++) {
+            for (int x = 0; x < 80; x++) {
+                elevations[y][x] = 100 + (int) (20 * Math.sin(x / 7.0) * Math.cos(y / 9.0)) + (x == 40 ? 60 : 0);
+            }
+        }
+        raster = new Raster(80, 80, 34.6, 31.7, CELL_SIZE, elevations);
+        raster.setBoundingBox(new BoundingBoxCenter(new Coordinate(31.7 + 40 * CELL_SIZE, 34.6 + 40 * CELL_SIZE), 80 * CELL_SIZE * 111.32));
+
+        places = new PlaceList(new ArrayList<>());
+        for (int i = 0; i < 40; i++) {
+            Place place = new Place();
+            place.id = i;
+            place.lat = 31.7 + (5 + (i * 7) % 70) * CELL_SIZE;
+            place.lon = 34.6 + (5 + (i * 13) % 70) * CELL_SIZE;
+            place.tags.name = "Place " + i;
+            if (i % 4 == 0) {
+                place.type = "way";
+                place.bounds = new PlaceBounds(place.lat - 2 * CELL_SIZE, place.lon - 2 * CELL_SIZE, place.lat + 2 * CELL_SIZE, place.lon + 2 * CELL_SIZE);
+                place.tags.historic = "ruins";
+            } else {
+                place.type = "node";
+                place.tags.natural = "peak";
+            }
+            places.elements.add(place);
+        }
+        placesTypes = new HashMap<>();
+        placesTypes.put("place", new HashSet<>(Arrays.asList("town", "village")));
+        placesTypes.put("natural", new HashSet<>(Arrays.asList("peak", "hill")));
+        placesTypes.put("historic", new HashSet<>(Arrays.asList("ruins")));
+    }
+
+    @Test
+    public void indexMatchesFieldOfViewAnalysis() {
+        VisibilityIndex index = VisibilityIndex.buildGrid(raster, places, placesTypes, true, 15);
+        assertEquals(36, index.getObserverCount());
+        for (int observer = 0; observer < index.getObserverCount(); observer++) {
+            double lat = raster.getLatitudeByRow(index.getObserverY(observer));
+            double lon = raster.getLongitudeByCol(index.getObserverX(observer));
+            raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, lat, lon));
+            assertVisiblePlaces(FOVAnalyzer.intersectVisiblePlaces(raster, places, placesTypes, true, false), index.getVisiblePlaces(observer, raster, places));
+            assertEquals(observer, index.getNearestObserver(raster, lat, lon, 1));
+        }
+        assertEquals(-1, index.getNearestObserver(raster, 31.7 - 40 * CELL_SIZE, 34.6, 15));
+    }
+
+    @Test
+    public void lookupFiltersPlacesTypes() {
+        VisibilityIndex index = VisibilityIndex.buildGrid(raster, places, placesTypes, true, 15);
+        Map<String, HashSet<String>> naturalTypes = new HashMap<>();
+        naturalTypes.put("place", new HashSet<>());
+        naturalTypes.put("natural", new HashSet<>(Arrays.asList("peak")));
+        naturalTypes.put("historic", new HashSet<>());
+        for (int observer = 0; observer < index.getObserverCount(); observer++) {
+            raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, raster.getLatitudeByRow(index.getObserverY(observer)), raster.getLongitudeByCol(index.getObserverX(observer))));
+            assertVisiblePlaces(FOVAnalyzer.intersectVisiblePlaces(raster, places, naturalTypes, false, false), index.getVisiblePlaces(observer, raster, places, naturalTypes, false, false));
+            assertVisiblePlaces(FOVAnalyzer.intersectVisiblePlaces(raster, places, placesTypes, true, true), index.getVisiblePlaces(observer, raster, places, placesTypes, true, true));
+        }
+    }
+
+    @Test
+    public void lookupHidesNamesakesAmongTheSelectedTypes() {
+        // A wood hiding the peak of its name, and an unnamed town shown as its hamlet node
+        Place wood = area(15, 15, 25, 25);
+        wood.tags.name = "Carmel";
+        wood.tags.natural = "wood";
+        Place peak = point(20, 20);
+        peak.tags.name = "Carmel";
+        peak.tags.natural = "peak";
+        Place town = area(50, 50, 62, 62);
+        town.tags.place = "town";
+        Place hamlet = point(56, 56);
+        hamlet.tags.name = "Kfar";
+        hamlet.tags.place = "hamlet";
+        Map<String, HashSet<String>> defaultTypes = VisibilityIndex.createDefaultPlacesTypes();
+        VisibilityIndex index = VisibilityIndex.buildGrid(raster, places, defaultTypes, true, 15);
+        Map<String, HashSet<String>> selectedTypes = new HashMap<>();
+        selectedTypes.put("place", new HashSet<>(Collections.singletonList("town")));
+        selectedTypes.put("natural", new HashSet<>(Collections.singletonList("peak")));
+        selectedTypes.put("historic", new HashSet<>());
+
+        int peakShown = 0, peakHidden = 0, hamletShown = 0;
+        for (int observer = 0; observer < index.getObserverCount(); observer++) {
+            raster.setViewshed(ViewShed.calculateAdaptiveViewshed(raster, raster.getLatitudeByRow(index.getObserverY(observer)), raster.getLongitudeByCol(index.getObserverX(observer))));
+            List<Pair<Place, Coordinate>> selected = FOVAnalyzer.intersectVisiblePlaces(raster, places, selectedTypes, false, false);
+            List<Pair<Place, Coordinate>> all = FOVAnalyzer.intersectVisiblePlaces(raster, places, defaultTypes, true, false);
+            assertVisiblePlaces(selected, index.getVisiblePlaces(observer, raster, places, selectedTypes, false, false));
+            assertVisiblePlaces(all, index.getVisiblePlaces(observer, raster, places, defaultTypes, true, false));
+            assertVisiblePlaces(all, index.getVisiblePlaces(observer, raster, places));
+            peakShown += contains(selected, peak) ? 1 : 0;
+            peakHidden += contains(all, wood) && !contains(all, peak) ? 1 : 0;
+            hamletShown += contains(selected, hamlet) ? 1 : 0;
+        }
+        assertTrue(peakShown > 0);
+        assertTrue(peakHidden > 0);
+        assertTrue(hamletShown > 0);
+    }
+
+    @Test
+    public void buildReportsEveryObserver() {
+        List<Integer> reported = Collections.synchronizedList(new ArrayList<>());
+        VisibilityIndex index = VisibilityIndex.buildGrid(raster, places, placesTypes, true, 15, (done, total) -> {
+            assertEquals(36, total);
+            reported.add(done);
+        });
+        List<Integer> sorted = new ArrayList<>(reported);
+        Collections.sort(sorted);
+        assertEquals(index.getObserverCount(), sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i + 1, (int) sorted.get(i));
+        }
+    }
+
+    @Test
+    public void packageRoundTrip() throws IOException {
+        VisibilityIndex index = VisibilityIndex.buildGrid(raster, places, placesTypes, true, 20);
+        RegionPackage region = new RegionPackage("Ridge", null, raster.getBbox(), raster, places, placesTypes, true, index);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        region.write(bytes);
+        RegionPackage read = RegionPackage.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals("Ridge", read.getName());
+        assertNull(read.getDescription());
+        assertEquals(raster.getBbox().getRadiusKM(), read.getBoundingBox().getRadiusKM(), 0.0);
+        assertArrayEquals(raster.getElevations(), read.getRaster().getElevations());
+        assertEquals(raster.getxLowerLeftCorner(), read.getRaster().getxLowerLeftCorner(), 0.0);
+        assertEquals(placesTypes, read.getPlacesTypes());
+        assertEquals(places.elements.size(), read.getPlaces().elements.size());
+        for (int i = 0; i < places.elements.size(); i++) {
+            Place expected = places.elements.get(i), actual = read.getPlaces().elements.get(i);
+            assertEquals(expected.type, actual.type);
+            assertEquals(expected.lat, actual.lat, 0.0);
+            assertEquals(expected.tags.name, actual.tags.name);
+            assertEquals(expected.tags.natural, actual.tags.natural);
+            assertEquals(expected.bounds == null, actual.bounds == null);
+        }
+        VisibilityIndex readIndex = read.getVisibilityIndex();
+        assertEquals(index.getObserverCount(), readIndex.getObserverCount());
+        for (int observer = 0; observer < index.getObserverCount(); observer++) {
+            assertArrayEquals(index.getVisiblePlaceIndices(observer), readIndex.getVisiblePlaceIndices(observer));
+        }
+    }
+
+    private Place point(int x, int y) {
+        Place place = new Place();
+        place.type = "node";
+        place.lat = 31.7 + y * CELL_SIZE;
+        place.lon = 34.6 + x * CELL_SIZE;
+        places.elements.add(place);
+        return place;
+    }
+
+    private Place area(int x0, int y0, int x1, int y1) {
+        Place place = new Place();
+        place.type = "way";
+        place.bounds = new PlaceBounds(31.7 + y0 * CELL_SIZE, 34.6 + x0 * CELL_SIZE, 31.7 + y1 * CELL_SIZE, 34.6 + x1 * CELL_SIZE);
+        places.elements.add(place);
+        return place;
+    }
+
+    private static boolean contains(List<Pair<Place, Coordinate>> locations, Place place) {
+        return locations.stream().anyMatch(location -> location.getValue0() == place);
+    }
+
+    private static void assertVisiblePlaces(List<Pair<Place, Coordinate>> expected, List<Pair<Place, Coordinate>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i).getValue0(), actual.get(i).getValue0());
+            assertEquals(expected.get(i).getValue1().getLat(), actual.get(i).getValue1().getLat(), 0.0);
+            assertEquals(expected.get(i).getValue1().getLon(), actual.get(i).getValue1().getLon(), 0.0);
+        }
+    }
+}
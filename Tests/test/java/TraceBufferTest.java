@@ -0,0 +1,87 @@
+import com.geoscene.tracing.CountingInputStream;
+import com.geoscene.tracing.ResourceProbe;
+import com.geoscene.tracing.StageTrace;
+import com.geoscene.tracing.TraceBuffer;
+import com.geoscene.tracing.TraceSpan;
+import com.geoscene.tracing.Tracer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceBufferTest {
+
+    @After
+    public void tearDown() {
+        Tracer.setResourceProbe(null);
+        Tracer.getBuffer().clear();
+    }
+
+    @Test
+    public void ringKeepsLatestTraces() {
+        TraceBuffer buffer = new TraceBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(new StageTrace(1, "stage" + i, "main", 0, i, -1, -1, -1, -1, -1, true));
+        }
+        List<StageTrace> traces = buffer.snapshot();
+        assertEquals(3, traces.size());
+        assertEquals("stage2", traces.get(0).stage);
+        assertEquals("stage4", traces.get(2).stage);
+        assertEquals(2, buffer.getDroppedCount());
+
+        JsonObject json = new JsonParser().parse(buffer.toJson()).getAsJsonObject();
+        assertEquals(3, json.get("capacity").getAsInt());
+        assertEquals(3, json.getAsJsonArray("traces").size());
+        assertEquals("stage4", json.getAsJsonArray("traces").get(2).getAsJsonObject().get("stage").getAsString());
+
+        buffer.clear();
+        assertTrue(buffer.snapshot().isEmpty());
+    }
+
+    @Test
+    public void spanRecordsProbeDeltas() throws IOException {
+        long[] counters = {1000, 50};
+        Tracer.setResourceProbe(new ResourceProbe() {
+            @Override
+            public long threadCpuTimeNanos() {
+                return counters[0];
+            }
+
+            @Override
+            public long allocatedBytes() {
+                return counters[1];
+            }
+        });
+        int session = Tracer.startSession();
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(new byte[300]));
+        try (TraceSpan span = Tracer.begin("parse")) {
+            assertEquals(100, stream.read(new byte[100]));
+            assertEquals(0, stream.read());
+            assertEquals(50, stream.skip(50));
+            counters[0] += 700;
+            counters[1] += 4096;
+            span.setBytes(stream.getCount()).setCells(12);
+        }
+        Tracer.begin("failed").fail().close();
+
+        List<StageTrace> traces = Tracer.getBuffer().snapshot();
+        assertEquals(2, traces.size());
+        StageTrace parse = traces.get(0);
+        assertEquals(session, parse.session);
+        assertEquals(700, parse.cpuNanos);
+        assertEquals(4096, parse.allocatedBytes);
+        assertEquals(151, parse.bytes);
+        assertEquals(12, parse.cells);
+        assertEquals(ResourceProbe.UNAVAILABLE, parse.items);
+        assertTrue(parse.wallNanos >= 0);
+        assertTrue(parse.success);
+        assertFalse(traces.get(1).success);
+    }
+}
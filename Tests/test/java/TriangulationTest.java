@@ -1,11 +1,17 @@
 import com.geoscene.geography.Coordinate;
+import com.geoscene.geography.LocationUtils;
 import com.geoscene.triangulation.Triangulation;
+import com.geoscene.triangulation.TriangulationSolver;
+
+import net.sf.geographiclib.Geodesic;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class TriangulationTest {
@@ -53,4 +59,69 @@ public class TriangulationTest {
         Assert.assertTrue(coordinate.getLat() <= lat0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void triangulateReachesTarget() {
+        // Rays aimed along the geodesics to a target 40km away meet on it
+        double targetLat = 31.95, targetLon = 34.75;
+        double azi0 = Geodesic.WGS84.Inverse(lat0, lon0, targetLat, targetLon).azi1;
+        double azi1 = Geodesic.WGS84.Inverse(lat1, lon1, targetLat, targetLon).azi1;
+        Coordinate coordinate = Triangulation.triangulate(lat0, lon0, azi0, lat1, lon1, azi1);
+        Assert.assertNotNull(coordinate);
+        Assert.assertTrue(Geodesic.WGS84.Inverse(coordinate.getLat(), coordinate.getLon(), targetLat, targetLon).s12 < 1);
+    }
+
+    @Test
+    public void triangulateAllMatchesPairs() {
+        double[] lats = {lat1, lat0, lat1, lat1};
+        double[] lons = {lon1, lon0, lon1, lon1};
+        double[] azimuths = {0, 180, 300, 180};
+        TriangulationSolver solver = new TriangulationSolver();
+        solver.setRays(lats, lons, azimuths);
+        double[] intersections = new double[2 * solver.getRayCount()];
+        Assert.assertEquals(2, solver.triangulateAll(lat0, lon0, 45, intersections));
+        for (int i = 0; i < lats.length; i++) {
+            Coordinate coordinate = Triangulation.triangulate(lat0, lon0, 45, lats[i], lons[i], azimuths[i]);
+            if (coordinate == null) {
+                Assert.assertTrue(Double.isNaN(intersections[2 * i]));
+            } else {
+                Assert.assertEquals(coordinate.getLat(), intersections[2 * i], 1e-9);
+                Assert.assertEquals(coordinate.getLon(), intersections[2 * i + 1], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void triangulateNearbyMatchesAll() {
+        // Rays scattered up to 200km around the observer, the index must keep every intersection in range
+        Random random = new Random(42);
+        int count = 2000;
+        double[] lats = new double[count], lons = new double[count], azimuths = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = lat0 + (random.nextDouble() - 0.5) * 3.6;
+            lons[i] = lon0 + (random.nextDouble() - 0.5) * 4.2;
+            azimuths[i] = random.nextDouble() * 360;
+        }
+        TriangulationSolver solver = new TriangulationSolver();
+        solver.setRays(lats, lons, azimuths);
+        double[] all = new double[2 * count], nearby = new double[2 * count];
+        int[] rays = new int[count];
+        for (int step = 0; step < 200; step++) {
+            double lat = lat0 + step * 0.001, lon = lon0 - step * 0.001, azimuth = random.nextDouble() * 360;
+            solver.triangulateAll(lat, lon, azimuth, all);
+            int found = solver.triangulateNearby(lat, lon, azimuth, rays, nearby);
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                if (!Double.isNaN(all[2 * i])
+                        && LocationUtils.aerialDistance(lat, all[2 * i], lon, all[2 * i + 1]) < Triangulation.MAX_TRIANGULATION_DISTANCE
+                        && LocationUtils.aerialDistance(lats[i], all[2 * i], lons[i], all[2 * i + 1]) <= Triangulation.MAX_TRIANGULATION_DISTANCE * 1.5) {
+                    expected++;
+                }
+            }
+            Assert.assertEquals(expected, found);
+            for (int i = 0; i < found; i++) {
+                Assert.assertEquals(all[2 * rays[i]], nearby[2 * i], 1e-9);
+                Assert.assertEquals(all[2 * rays[i] + 1], nearby[2 * i + 1], 1e-9);
+            }
+        }
+    }
+}
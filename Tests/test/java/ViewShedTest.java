@@ -1,3 +1,4 @@
+import com.geoscene.elevation.ElevationInterpolation;
 import com.geoscene.elevation.Raster;
 import com.geoscene.elevation.open_topography.CellType;
 import com.geoscene.geography.Coordinate;
@@ -83,6 +84,29 @@ public class ViewShedTest {
 
     }
 
+    @Test
+    public void calculateViewshedObserverAndTargetHeight(){
+        // Flat plain at 100m with a 103m wall 5 cells east of the observer
+        int[][] elevations = new int[60][60];
+        for (int y = 0; y < 60; y++) {
+            for (int x = 0; x < 60; x++) {
+                elevations[y][x] = x == 35 ? 103 : 100;
+            }
+        }
+        Raster plain = new Raster(60, 60, 34.637916666618, 31.736250000006, 8.33333333E-4, elevations);
+        double lat = plain.getyLowerLeftCorner() + (60 - 30.5) * plain.getCellSize();
+        double lon = plain.getxLowerLeftCorner() + 30.5 * plain.getCellSize();
+        sol = ViewShed.calculateViewshed(plain, lat, lon, ElevationInterpolation.NEAREST, null, 0, 0);
+        assertEquals(sol[30][35], CellType.VIEWSHED);
+        assertNull(sol[30][40]);
+        sol = ViewShed.calculateViewshed(plain, lat, lon, ElevationInterpolation.NEAREST, null, 10, 0);
+        assertEquals(sol[30][40], CellType.VIEWSHED);
+        sol = ViewShed.calculateViewshed(plain, lat, lon, ElevationInterpolation.NEAREST, null, 0, 5);
+        assertNull(sol[30][40]);
+        sol = ViewShed.calculateViewshed(plain, lat, lon, ElevationInterpolation.NEAREST, null, 0, 10);
+        assertEquals(sol[30][40], CellType.VIEWSHED);
+    }
+
     @After
     public void tearDown(){
         Mockito.reset(raster);